@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+import java.io.File;
+
+/**
+ * A file of a bundle extracted in the staging directory.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BundleEntry {
+
+    /**
+     * The path of the file in the bundle.
+     */
+    private String path;
+    /**
+     * The extracted file.
+     */
+    private File file;
+    /**
+     * The digests of the file, null for a checksum file.
+     */
+    private Checksums checksums;
+
+    /**
+     * @return the path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @param path the path to set
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param file the file to set
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the checksums
+     */
+    public Checksums getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * @param checksums the checksums to set
+     */
+    public void setChecksums(Checksums checksums) {
+        this.checksums = checksums;
+    }
+}
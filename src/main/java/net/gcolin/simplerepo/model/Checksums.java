@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+/**
+ * The digests of a file computed when the file was written.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class Checksums {
+
+    /**
+     * The MD5 in hexadecimal.
+     */
+    private String md5;
+    /**
+     * The SHA-1 in hexadecimal.
+     */
+    private String sha1;
+    /**
+     * The SHA-256 in hexadecimal.
+     */
+    private String sha256;
+    /**
+     * The SHA-512 in hexadecimal.
+     */
+    private String sha512;
+    /**
+     * The size of the file when the digests were computed.
+     */
+    private long size;
+    /**
+     * The last modification date of the file when the digests were computed.
+     */
+    private long lastModified;
+    /**
+     * The path of the blob linked by the file.
+     */
+    private String blob;
+
+    /**
+     * @return the MD5 in hexadecimal or null if unknown
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    /**
+     * @param md5 the MD5 in hexadecimal
+     */
+    public void setMd5(String md5) {
+        this.md5 = md5;
+    }
+
+    /**
+     * @return the SHA-1 in hexadecimal
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * @param sha1 the SHA-1 in hexadecimal
+     */
+    public void setSha1(String sha1) {
+        this.sha1 = sha1;
+    }
+
+    /**
+     * @return the SHA-256 in hexadecimal
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * @param sha256 the SHA-256 in hexadecimal
+     */
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    /**
+     * @return the SHA-512 in hexadecimal or null if unknown
+     */
+    public String getSha512() {
+        return sha512;
+    }
+
+    /**
+     * @param sha512 the SHA-512 in hexadecimal
+     */
+    public void setSha512(String sha512) {
+        this.sha512 = sha512;
+    }
+
+    /**
+     * @return the size of the file when the digests were computed
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size of the file when the digests were computed
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the last modification date of the file when the digests were
+     *         computed
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the last modification date of the file when the
+     *                     digests were computed
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the path of the blob linked by the file or null if the file is
+     *         not stored as a blob
+     */
+    public String getBlob() {
+        return blob;
+    }
+
+    /**
+     * @param blob the path of the blob linked by the file
+     */
+    public void setBlob(String blob) {
+        this.blob = blob;
+    }
+
+    /**
+     * Get the entity tag of the file.
+     *
+     * @return the quoted SHA-1
+     */
+    public String getETag() {
+        return '"' + sha1 + '"';
+    }
+
+}
@@ -45,6 +45,82 @@ public class Configuration {
      */
     private long notFoundCache = TimeUnit.DAYS.toMicros(1L);
 
+    /**
+     * Maximum number of remote retrievals executed at the same time.
+     */
+    private int fetchThreads = 32;
+
+    /**
+     * Maximum number of remote retrievals waiting for a thread.
+     */
+    private int fetchQueueSize = 1000;
+
+    /**
+     * Time in milliseconds before giving up a connection to a remote
+     * repository.
+     */
+    private long connectTimeout = TimeUnit.SECONDS.toMillis(30L);
+
+    /**
+     * Time in milliseconds before giving up a remote repository that does not
+     * send data.
+     */
+    private long readTimeout = TimeUnit.MINUTES.toMillis(10L);
+
+    /**
+     * Maximum number of connections to a remote server.
+     */
+    private int maxConnectionsPerRemote = 20;
+
+    /**
+     * Maximum number of remote resources not found kept in memory.
+     */
+    private int notFoundCacheSize = 10000;
+
+    /**
+     * True for saving the remote resources not found when the server stops.
+     */
+    private boolean notFoundSnapshot = true;
+
+    /**
+     * Time in milliseconds during which the attributes of a local file are
+     * reused.
+     */
+    private long attributeCacheTtl = 500L;
+
+    /**
+     * Maximum number of local files whose attributes are kept in memory.
+     */
+    private int attributeCacheSize = 100000;
+
+    /**
+     * Minimum size in bytes of the text resources sent compressed, -1
+     * disables the compression.
+     */
+    private int gzipThreshold = 1024;
+
+    /**
+     * Maximum number of bytes of the small files kept in memory.
+     */
+    private long hotCacheSize = 64L * 1024 * 1024;
+
+    /**
+     * Maximum size in bytes of a file kept in memory.
+     */
+    private int hotCacheMaxFileSize = 64 * 1024;
+
+    /**
+     * Time in milliseconds without deploy in a snapshot directory before
+     * removing its old snapshots.
+     */
+    private long cleanUpDelay = 2000;
+
+    /**
+     * True for storing the bodies of the files once, in blobs named by their
+     * SHA-256.
+     */
+    private boolean blobStore;
+
     /**
      * Get repositories.
      *
@@ -95,4 +171,263 @@ public class Configuration {
         this.notFoundCache = notFoundCache;
     }
 
+    /**
+     * Get the maximum number of remote retrievals executed at the same time.
+     *
+     * @return the maximum number of remote retrievals
+     */
+    public int getFetchThreads() {
+        return fetchThreads;
+    }
+
+    /**
+     * Set the maximum number of remote retrievals executed at the same time.
+     *
+     * @param fetchThreads the maximum number of remote retrievals
+     */
+    public void setFetchThreads(int fetchThreads) {
+        this.fetchThreads = fetchThreads;
+    }
+
+    /**
+     * Get the maximum number of remote retrievals waiting for a thread.
+     *
+     * @return the maximum number of waiting remote retrievals
+     */
+    public int getFetchQueueSize() {
+        return fetchQueueSize;
+    }
+
+    /**
+     * Set the maximum number of remote retrievals waiting for a thread.
+     *
+     * @param fetchQueueSize the maximum number of waiting remote retrievals
+     */
+    public void setFetchQueueSize(int fetchQueueSize) {
+        this.fetchQueueSize = fetchQueueSize;
+    }
+
+    /**
+     * Get the connection timeout to a remote repository.
+     *
+     * @return the connection timeout in milliseconds
+     */
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Set the connection timeout to a remote repository.
+     *
+     * @param connectTimeout the connection timeout in milliseconds
+     */
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Get the read timeout of a remote repository.
+     *
+     * @return the read timeout in milliseconds
+     */
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Set the read timeout of a remote repository.
+     *
+     * @param readTimeout the read timeout in milliseconds
+     */
+    public void setReadTimeout(long readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Get the maximum number of connections to a remote server.
+     *
+     * @return the maximum number of connections to a remote server
+     */
+    public int getMaxConnectionsPerRemote() {
+        return maxConnectionsPerRemote;
+    }
+
+    /**
+     * Set the maximum number of connections to a remote server.
+     *
+     * @param maxConnectionsPerRemote the maximum number of connections to a
+     *                                remote server
+     */
+    public void setMaxConnectionsPerRemote(int maxConnectionsPerRemote) {
+        this.maxConnectionsPerRemote = maxConnectionsPerRemote;
+    }
+
+    /**
+     * Get the maximum number of remote resources not found kept in memory.
+     *
+     * @return the maximum number of remote resources not found
+     */
+    public int getNotFoundCacheSize() {
+        return notFoundCacheSize;
+    }
+
+    /**
+     * Set the maximum number of remote resources not found kept in memory.
+     *
+     * @param notFoundCacheSize the maximum number of remote resources not found
+     */
+    public void setNotFoundCacheSize(int notFoundCacheSize) {
+        this.notFoundCacheSize = notFoundCacheSize;
+    }
+
+    /**
+     * Check if the remote resources not found are saved when the server
+     * stops.
+     *
+     * @return true if the remote resources not found are saved
+     */
+    public boolean isNotFoundSnapshot() {
+        return notFoundSnapshot;
+    }
+
+    /**
+     * Set if the remote resources not found are saved when the server stops.
+     *
+     * @param notFoundSnapshot true for saving the remote resources not found
+     */
+    public void setNotFoundSnapshot(boolean notFoundSnapshot) {
+        this.notFoundSnapshot = notFoundSnapshot;
+    }
+
+    /**
+     * Get the time during which the attributes of a local file are reused.
+     *
+     * @return the time in milliseconds
+     */
+    public long getAttributeCacheTtl() {
+        return attributeCacheTtl;
+    }
+
+    /**
+     * Set the time during which the attributes of a local file are reused.
+     *
+     * @param attributeCacheTtl the time in milliseconds
+     */
+    public void setAttributeCacheTtl(long attributeCacheTtl) {
+        this.attributeCacheTtl = attributeCacheTtl;
+    }
+
+    /**
+     * Get the maximum number of local files whose attributes are kept in
+     * memory.
+     *
+     * @return the maximum number of local files
+     */
+    public int getAttributeCacheSize() {
+        return attributeCacheSize;
+    }
+
+    /**
+     * Set the maximum number of local files whose attributes are kept in
+     * memory.
+     *
+     * @param attributeCacheSize the maximum number of local files
+     */
+    public void setAttributeCacheSize(int attributeCacheSize) {
+        this.attributeCacheSize = attributeCacheSize;
+    }
+
+    /**
+     * Get the minimum size of the text resources sent compressed.
+     *
+     * @return the size in bytes or -1 if the compression is disabled
+     */
+    public int getGzipThreshold() {
+        return gzipThreshold;
+    }
+
+    /**
+     * Set the minimum size of the text resources sent compressed.
+     *
+     * @param gzipThreshold the size in bytes or -1 for disabling the
+     *                      compression
+     */
+    public void setGzipThreshold(int gzipThreshold) {
+        this.gzipThreshold = gzipThreshold;
+    }
+
+    /**
+     * Get the maximum number of bytes of the small files kept in memory.
+     *
+     * @return the number of bytes
+     */
+    public long getHotCacheSize() {
+        return hotCacheSize;
+    }
+
+    /**
+     * Set the maximum number of bytes of the small files kept in memory.
+     *
+     * @param hotCacheSize the number of bytes
+     */
+    public void setHotCacheSize(long hotCacheSize) {
+        this.hotCacheSize = hotCacheSize;
+    }
+
+    /**
+     * Get the maximum size of a file kept in memory.
+     *
+     * @return the size in bytes
+     */
+    public int getHotCacheMaxFileSize() {
+        return hotCacheMaxFileSize;
+    }
+
+    /**
+     * Set the maximum size of a file kept in memory.
+     *
+     * @param hotCacheMaxFileSize the size in bytes
+     */
+    public void setHotCacheMaxFileSize(int hotCacheMaxFileSize) {
+        this.hotCacheMaxFileSize = hotCacheMaxFileSize;
+    }
+
+    /**
+     * Get the time without deploy in a snapshot directory before removing its
+     * old snapshots.
+     *
+     * @return the time in milliseconds
+     */
+    public long getCleanUpDelay() {
+        return cleanUpDelay;
+    }
+
+    /**
+     * Set the time without deploy in a snapshot directory before removing its
+     * old snapshots.
+     *
+     * @param cleanUpDelay the time in milliseconds
+     */
+    public void setCleanUpDelay(long cleanUpDelay) {
+        this.cleanUpDelay = cleanUpDelay;
+    }
+
+    /**
+     * Check if the identical files are stored once.
+     *
+     * @return true if the files are linked to blobs
+     */
+    public boolean isBlobStore() {
+        return blobStore;
+    }
+
+    /**
+     * Set if the identical files are stored once.
+     *
+     * @param blobStore true for linking the files to blobs
+     */
+    public void setBlobStore(boolean blobStore) {
+        this.blobStore = blobStore;
+    }
+
 }
@@ -21,6 +21,8 @@ package net.gcolin.simplerepo.model;
 import java.io.File;
 import java.util.List;
 
+import net.gcolin.simplerepo.util.InflightDownload;
+
 /**
  * Contains the data to send.
  *
@@ -34,9 +36,21 @@ public class ContentResult {
      */
     private File file;
     /**
-     * All files to send in an HTML.
+     * All the local items to send in an HTML.
+     */
+    private List<ListingEntry> children;
+    /**
+     * The items of a remote directory to send in an HTML.
+     */
+    private List<ListingEntry> listing;
+    /**
+     * A file being downloaded to send.
      */
-    private List<File> children;
+    private InflightDownload download;
+    /**
+     * The attributes of the file to send or null.
+     */
+    private PathAttributes attributes;
 
     /**
      * Get a file to send.
@@ -61,7 +75,7 @@ public class ContentResult {
      *
      * @return children of the requested file.
      */
-    public final List<File> getChildren() {
+    public final List<ListingEntry> getChildren() {
         return children;
     }
 
@@ -70,17 +84,71 @@ public class ContentResult {
      *
      * @param newchildren children of the requested file
      */
-    public final void setChildren(final List<File> newchildren) {
+    public final void setChildren(final List<ListingEntry> newchildren) {
         this.children = newchildren;
     }
 
+    /**
+     * Get the items of a remote directory to send in an HTML.
+     *
+     * @return the items of the remote directory or null
+     */
+    public final List<ListingEntry> getListing() {
+        return listing;
+    }
+
+    /**
+     * Set the items of a remote directory to send in an HTML.
+     *
+     * @param newlisting the items of the remote directory
+     */
+    public final void setListing(final List<ListingEntry> newlisting) {
+        this.listing = newlisting;
+    }
+
+    /**
+     * Get a file being downloaded to send.
+     *
+     * @return a file being downloaded
+     */
+    public final InflightDownload getDownload() {
+        return download;
+    }
+
+    /**
+     * Set a file being downloaded to send.
+     *
+     * @param newdownload a file being downloaded
+     */
+    public final void setDownload(final InflightDownload newdownload) {
+        this.download = newdownload;
+    }
+
+    /**
+     * Get the attributes of the file to send.
+     *
+     * @return the attributes or null if they are not known
+     */
+    public final PathAttributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Set the attributes of the file to send.
+     *
+     * @param newattributes the attributes
+     */
+    public final void setAttributes(final PathAttributes newattributes) {
+        this.attributes = newattributes;
+    }
+
     /**
      * Check if the response is empty.
      *
      * @return true if there is nothing to send
      */
     public final boolean isEmpty() {
-        return file == null && children == null;
+        return file == null && children == null && download == null;
     }
 
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+import java.io.File;
+
+/**
+ * An item of a directory listing.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class ListingEntry {
+
+    /**
+     * The name.
+     */
+    private String name;
+    /**
+     * True if the item is a directory.
+     */
+    private boolean directory;
+    /**
+     * The size in bytes or -1.
+     */
+    private long size = -1L;
+    /**
+     * The last modification date or 0.
+     */
+    private long lastModified;
+    /**
+     * The local file or null if the item is only in a remote listing.
+     */
+    private File file;
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name the name to set
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return true if the item is a directory
+     */
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param directory true if the item is a directory
+     */
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the size in bytes or -1 if unknown
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size in bytes or -1 if unknown
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the last modification date or 0 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the last modification date or 0 if unknown
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the local file or null if the item is only in a remote listing
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param file the local file
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+}
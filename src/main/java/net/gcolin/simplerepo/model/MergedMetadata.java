@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+/**
+ * The maven-metadata.xml of a virtual repository, merged from the
+ * maven-metadata.xml of its members.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class MergedMetadata {
+
+    /**
+     * The files merged with their size and last modification date.
+     */
+    private String fingerprint;
+    /**
+     * The content.
+     */
+    private byte[] content;
+    /**
+     * The digests of the content.
+     */
+    private Checksums checksums;
+    /**
+     * The last modification date of the most recent file merged.
+     */
+    private long lastModified;
+
+    /**
+     * @return the files merged with their size and last modification date
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param fingerprint the files merged with their size and last
+     *                    modification date
+     */
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @return the content
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * @param content the content to set
+     */
+    public void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * @return the digests of the content
+     */
+    public Checksums getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * @param checksums the digests of the content
+     */
+    public void setChecksums(Checksums checksums) {
+        this.checksums = checksums;
+    }
+
+    /**
+     * @return the last modification date of the most recent file merged
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the last modification date of the most recent file
+     *                     merged
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+}
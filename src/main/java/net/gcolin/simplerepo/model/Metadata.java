@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metadata model in maven-metadata.xml.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class Metadata {
+
+    /**
+     * The group id.
+     */
+    private String groupId;
+    /**
+     * The artifact id.
+     */
+    private String artifactId;
+    /**
+     * The version.
+     */
+    private String version;
+    /**
+     * The latest version.
+     */
+    private String latest;
+    /**
+     * The latest release.
+     */
+    private String release;
+    /**
+     * The versions.
+     */
+    private List<String> versions = new ArrayList<String>();
+    /**
+     * The last update date (yyyyMMddHHmmss).
+     */
+    private String lastUpdated;
+    /**
+     * The timestamp of the latest snapshot.
+     */
+    private String snapshotTimestamp;
+    /**
+     * The build number of the latest snapshot.
+     */
+    private String snapshotBuildNumber;
+    /**
+     * The snapshot versions.
+     */
+    private List<Version> snapshotVersions = new ArrayList<Version>();
+    /**
+     * The plugins of a group.
+     */
+    private List<Plugin> plugins = new ArrayList<Plugin>();
+
+    /**
+     * @return the group id
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * @param groupId the group id to set
+     */
+    public void setGroupId(String groupId) {
+        this.groupId = groupId;
+    }
+
+    /**
+     * @return the artifact id
+     */
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * @param artifactId the artifact id to set
+     */
+    public void setArtifactId(String artifactId) {
+        this.artifactId = artifactId;
+    }
+
+    /**
+     * @return the version
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @param version the version to set
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * @return the latest version
+     */
+    public String getLatest() {
+        return latest;
+    }
+
+    /**
+     * @param latest the latest version to set
+     */
+    public void setLatest(String latest) {
+        this.latest = latest;
+    }
+
+    /**
+     * @return the latest release
+     */
+    public String getRelease() {
+        return release;
+    }
+
+    /**
+     * @param release the latest release to set
+     */
+    public void setRelease(String release) {
+        this.release = release;
+    }
+
+    /**
+     * @return the versions
+     */
+    public List<String> getVersions() {
+        return versions;
+    }
+
+    /**
+     * @param versions the versions to set
+     */
+    public void setVersions(List<String> versions) {
+        this.versions = versions;
+    }
+
+    /**
+     * @return the last update date (yyyyMMddHHmmss)
+     */
+    public String getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * @param lastUpdated the last update date to set
+     */
+    public void setLastUpdated(String lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * @return the timestamp of the latest snapshot
+     */
+    public String getSnapshotTimestamp() {
+        return snapshotTimestamp;
+    }
+
+    /**
+     * @param snapshotTimestamp the timestamp of the latest snapshot to set
+     */
+    public void setSnapshotTimestamp(String snapshotTimestamp) {
+        this.snapshotTimestamp = snapshotTimestamp;
+    }
+
+    /**
+     * @return the build number of the latest snapshot
+     */
+    public String getSnapshotBuildNumber() {
+        return snapshotBuildNumber;
+    }
+
+    /**
+     * @param snapshotBuildNumber the build number of the latest snapshot to set
+     */
+    public void setSnapshotBuildNumber(String snapshotBuildNumber) {
+        this.snapshotBuildNumber = snapshotBuildNumber;
+    }
+
+    /**
+     * @return the snapshot versions
+     */
+    public List<Version> getSnapshotVersions() {
+        return snapshotVersions;
+    }
+
+    /**
+     * @param snapshotVersions the snapshot versions to set
+     */
+    public void setSnapshotVersions(List<Version> snapshotVersions) {
+        this.snapshotVersions = snapshotVersions;
+    }
+
+    /**
+     * @return the plugins of a group
+     */
+    public List<Plugin> getPlugins() {
+        return plugins;
+    }
+
+    /**
+     * @param plugins the plugins to set
+     */
+    public void setPlugins(List<Plugin> plugins) {
+        this.plugins = plugins;
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.model;
+
+import java.util.List;
+
+/**
+ * The attributes of a local file read at a given time.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class PathAttributes {
+
+    /**
+     * True if the file exists.
+     */
+    private boolean exists;
+    /**
+     * True if the file is a directory.
+     */
+    private boolean directory;
+    /**
+     * The size in bytes.
+     */
+    private long size;
+    /**
+     * The last modification date.
+     */
+    private long lastModified;
+    /**
+     * The visible items of the directory or null.
+     */
+    private List<ListingEntry> children;
+    /**
+     * The date when the attributes were read.
+     */
+    private long checked;
+    /**
+     * The digests of the file or null.
+     */
+    private Checksums checksums;
+    /**
+     * True if the digests have been read.
+     */
+    private volatile boolean checksumsRead;
+
+    /**
+     * @return true if the file exists
+     */
+    public boolean isExists() {
+        return exists;
+    }
+
+    /**
+     * @param exists true if the file exists
+     */
+    public void setExists(boolean exists) {
+        this.exists = exists;
+    }
+
+    /**
+     * @return true if the file is a directory
+     */
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param directory true if the file is a directory
+     */
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @param size the size in bytes
+     */
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * @return the last modification date
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @param lastModified the last modification date
+     */
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @return the visible items of the directory or null
+     */
+    public List<ListingEntry> getChildren() {
+        return children;
+    }
+
+    /**
+     * @param children the visible items of the directory
+     */
+    public void setChildren(List<ListingEntry> children) {
+        this.children = children;
+    }
+
+    /**
+     * @return the date when the attributes were read
+     */
+    public long getChecked() {
+        return checked;
+    }
+
+    /**
+     * @param checked the date when the attributes were read
+     */
+    public void setChecked(long checked) {
+        this.checked = checked;
+    }
+
+    /**
+     * @return the digests of the file or null
+     */
+    public Checksums getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * @param checksums the digests of the file
+     */
+    public void setChecksums(Checksums checksums) {
+        this.checksums = checksums;
+    }
+
+    /**
+     * @return true if the digests have been read
+     */
+    public boolean isChecksumsRead() {
+        return checksumsRead;
+    }
+
+    /**
+     * @param checksumsRead true if the digests have been read
+     */
+    public void setChecksumsRead(boolean checksumsRead) {
+        this.checksumsRead = checksumsRead;
+    }
+
+}
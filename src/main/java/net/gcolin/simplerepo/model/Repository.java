@@ -44,6 +44,20 @@ public class Repository {
      * the max-age before checking.
      */
     private long artifactMaxAge = -1L;
+    /**
+     * True for looking up the included repositories at the same time.
+     */
+    private boolean parallelResolution;
+    /**
+     * The time in milliseconds during which the clients keep the released
+     * artifacts, -1 for the default.
+     */
+    private long releaseMaxAge = -1L;
+    /**
+     * The time in milliseconds during which the clients keep the metadata and
+     * the snapshots, -1 for deriving it from the artifact max age.
+     */
+    private long metadataMaxAge = -1L;
 
     /**
      * Get name.
@@ -113,4 +127,63 @@ public class Repository {
         this.artifactMaxAge = artifactMaxAge;
     }
 
+    /**
+     * Check if the included repositories are looked up at the same time.
+     *
+     * @return true if the included repositories are looked up at the same time
+     */
+    public boolean isParallelResolution() {
+        return parallelResolution;
+    }
+
+    /**
+     * Set if the included repositories are looked up at the same time.
+     *
+     * @param parallelResolution true for looking up the included repositories
+     *                           at the same time
+     */
+    public void setParallelResolution(boolean parallelResolution) {
+        this.parallelResolution = parallelResolution;
+    }
+
+    /**
+     * Get the time during which the clients keep the released artifacts.
+     *
+     * @return the time in milliseconds or -1 for the default
+     */
+    public long getReleaseMaxAge() {
+        return releaseMaxAge;
+    }
+
+    /**
+     * Set the time during which the clients keep the released artifacts.
+     *
+     * @param releaseMaxAge the time in milliseconds or -1 for the default
+     */
+    public void setReleaseMaxAge(long releaseMaxAge) {
+        this.releaseMaxAge = releaseMaxAge;
+    }
+
+    /**
+     * Get the time during which the clients keep the metadata and the
+     * snapshots.
+     *
+     * @return the time in milliseconds or -1 for deriving it from the artifact
+     *         max age
+     */
+    public long getMetadataMaxAge() {
+        return metadataMaxAge;
+    }
+
+    /**
+     * Set the time during which the clients keep the metadata and the
+     * snapshots.
+     *
+     * @param metadataMaxAge the time in milliseconds or -1 for deriving it from
+     *                       the artifact max age
+     */
+    public void setMetadataMaxAge(long metadataMaxAge) {
+        this.metadataMaxAge = metadataMaxAge;
+    }
+
 }
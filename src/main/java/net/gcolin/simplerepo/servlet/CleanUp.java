@@ -19,31 +19,29 @@
 package net.gcolin.simplerepo.servlet;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.servlet.ServletException;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
+import net.gcolin.simplerepo.model.Metadata;
 import net.gcolin.simplerepo.model.Repository;
 import net.gcolin.simplerepo.model.Version;
 import net.gcolin.simplerepo.model.VersionFile;
+import net.gcolin.simplerepo.util.BlobStore;
+import net.gcolin.simplerepo.util.ChecksumStore;
+import net.gcolin.simplerepo.util.Compression;
 import net.gcolin.simplerepo.util.ConfigurationManager;
+import net.gcolin.simplerepo.util.MetadataReader;
+import net.gcolin.simplerepo.util.Sidecars;
 
 /**
  * Clean up old snapshots.
@@ -53,6 +51,15 @@ import net.gcolin.simplerepo.util.ConfigurationManager;
  */
 public final class CleanUp {
 
+	/**
+	 * The maximum number of patterns kept.
+	 */
+	private static final int MAX_PATTERNS = 1000;
+	/**
+	 * The patterns of the snapshot file names, by artifact id and version.
+	 */
+	private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<String, Pattern>();
+
 	/**
 	 * Utility class unused constructor.
 	 */
@@ -67,108 +74,124 @@ public final class CleanUp {
 	 * @param repository           repository
 	 * @param ctxVersion           JMX
 	 * @param servlet              servlet
+	 * @return the number of bytes deleted
 	 * @throws ServletException if an error occurs.
 	 */
-	public static void cleanUpSnapshots(final File metadataxml, final ConfigurationManager configurationManager,
+	public static long cleanUpSnapshots(final File metadataxml, final ConfigurationManager configurationManager,
 			final Repository repository, RepositoryServlet servlet) throws ServletException {
 		int max = configurationManager.getMaxSnapshots();
 		if (max <= 0) {
-			return;
+			return 0;
 		}
-		try {
-			Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(metadataxml);
-			XPath xPath = XPathFactory.newInstance().newXPath();
-			String artifactId = (String) xPath.evaluate("/metadata/artifactId/text()", doc.getDocumentElement(),
-					XPathConstants.STRING);
-			String versiona = (String) xPath.evaluate("/metadata/version/text()", doc.getDocumentElement(),
-					XPathConstants.STRING);
-			NodeList versionsNode = (NodeList) xPath.evaluate("/metadata/versioning/snapshotVersions/snapshotVersion",
-					doc.getDocumentElement(), XPathConstants.NODESET);
-			List<Version> versions = new ArrayList<Version>();
-			for (int i = 0; i < versionsNode.getLength(); i++) {
-				Node node = versionsNode.item(i);
-				Version v = new Version();
-				v.setClassifier(xPath.evaluate("classifier", node));
-				v.setExtension(xPath.evaluate("extension", node));
-				v.setValue(xPath.evaluate("value", node));
-				v.setUpdated(xPath.evaluate("updated", node));
-
-				NodeList matchesNode = (NodeList) xPath.evaluate("matches", node, XPathConstants.NODESET);
-				for (int j = 0; j < matchesNode.getLength(); j++) {
-					VersionFile vf = new VersionFile();
-					vf.setFile(xPath.evaluate("file", node));
-					vf.setVersion(xPath.evaluate("version", node));
-					v.getMatches().add(vf);
-				}
-
-				versions.add(v);
-			}
-
-			versiona = versiona.substring(0, versiona.length() - "-SNAPSHOT".length());
-			String regexpr = artifactId + "-(" + versiona.replaceAll("\\.", "\\\\.")
-					+ "-\\d{8}\\.\\d{6}-\\d)(-[^.]*){0,1}\\.(.*)";
-			Pattern p = Pattern.compile(regexpr);
-			File parent = metadataxml.getParentFile();
-			String[] children = parent.list();
-			if (children != null) {
-				for (String c : children) {
-					Matcher m = p.matcher(c);
-					if (m.matches()) {
-						String version = m.group(1);
-						String classifierF = m.group(2);
-						if (classifierF != null) {
-							classifierF = classifierF.substring(1);
-						}
-						String classifier = classifierF;
-						String extension = m.group(3);
-						Version selected = null;
-						for (Version ver : versions) {
-							if (equals(classifier, ver.getClassifier()) && equals(extension, ver.getExtension())
-									&& !equals(version, ver.getValue())) {
-								selected = ver;
-							}
-						}
-
-						if (selected != null) {
-							VersionFile vf = new VersionFile();
-							vf.setFile(c);
-							vf.setVersion(version);
-							selected.getMatches().add(vf);
+		long reclaimed = 0;
+		Metadata metadata;
+		try (InputStream in = new FileInputStream(metadataxml)) {
+			metadata = MetadataReader.read(in);
+		} catch (IOException ex) {
+			throw new ServletException(ex);
+		}
+		String artifactId = metadata.getArtifactId();
+		String versiona = metadata.getVersion();
+		if (artifactId == null || versiona == null || !versiona.endsWith("-SNAPSHOT")) {
+			return 0;
+		}
+		List<Version> versions = metadata.getSnapshotVersions();
+		Pattern p = getPattern(artifactId, versiona.substring(0, versiona.length() - "-SNAPSHOT".length()));
+		File parent = metadataxml.getParentFile();
+		String[] children = parent.list();
+		if (children != null) {
+			for (String c : children) {
+				Matcher m = p.matcher(c);
+				if (m.matches()) {
+					String version = m.group(1);
+					String classifierF = m.group(2);
+					if (classifierF != null) {
+						classifierF = classifierF.substring(1);
+					}
+					String classifier = classifierF;
+					String extension = m.group(3);
+					Version selected = null;
+					for (Version ver : versions) {
+						if (equals(classifier, ver.getClassifier()) && equals(extension, ver.getExtension())
+								&& !equals(version, ver.getValue())) {
+							selected = ver;
 						}
+					}
 
+					if (selected != null) {
+						VersionFile vf = new VersionFile();
+						vf.setFile(c);
+						vf.setVersion(version);
+						selected.getMatches().add(vf);
 					}
+
 				}
 			}
-			for (Version v : versions) {
-				Collections.sort(v.getMatches());
-				for (int i = 0; i < v.getMatches().size() - max + 1; i++) {
-					String name = v.getMatches().get(i).getFile();
-					File md5File = new File(parent, name + ".md5");
-					if (md5File.exists() && !md5File.delete()) {
-						configurationManager.getLogger().log(Level.WARNING, "cannot delete {0}",
-								md5File.getAbsolutePath());
-					}
-					File sha1File = new File(parent, name + ".sha1");
-					if (sha1File.exists() && !sha1File.delete()) {
-						configurationManager.getLogger().log(Level.WARNING, "cannot delete {0}",
-								sha1File.getAbsolutePath());
-					}
-					File file = new File(parent, name);
-					if (file.exists() && !file.delete()) {
-						configurationManager.getLogger().log(Level.WARNING, "cannot delete {0}",
-								file.getAbsolutePath());
-					}
+		}
+		for (Version v : versions) {
+			Collections.sort(v.getMatches());
+			for (int i = 0; i < v.getMatches().size() - max + 1; i++) {
+				String name = v.getMatches().get(i).getFile();
+				for (String ext : Sidecars.EXTENSIONS) {
+					reclaimed += delete(new File(parent, name + "." + ext), configurationManager);
 				}
+				reclaimed += delete(new File(parent, name), configurationManager);
+			}
+		}
+		return reclaimed;
+	}
+
+	/**
+	 * Get the pattern of the snapshot file names of an artifact.
+	 *
+	 * @param artifactId  the artifact id
+	 * @param baseVersion the version without -SNAPSHOT
+	 * @return the pattern that matches the version, the classifier and the
+	 *         extension
+	 */
+	private static Pattern getPattern(final String artifactId, final String baseVersion) {
+		String key = artifactId + ':' + baseVersion;
+		Pattern p = PATTERNS.get(key);
+		if (p == null) {
+			if (PATTERNS.size() >= MAX_PATTERNS) {
+				PATTERNS.clear();
+			}
+			p = Pattern.compile(Pattern.quote(artifactId) + "-(" + Pattern.quote(baseVersion)
+					+ "-\\d{8}\\.\\d{6}-\\d+)(-[^.]*){0,1}\\.(.*)");
+			PATTERNS.put(key, p);
+		}
+		return p;
+	}
+
+	/**
+	 * Delete a file and its cached data.
+	 *
+	 * @param file                 file
+	 * @param configurationManager configurationManager
+	 * @return the number of bytes deleted
+	 */
+	private static long delete(final File file, final ConfigurationManager configurationManager) {
+		long length = file.length();
+		BlobStore blobStore = configurationManager.getBlobStore();
+		File blob = blobStore == null ? null : ChecksumStore.getBlob(file);
+		if (!file.exists()) {
+			length = 0;
+		} else if (!file.delete()) {
+			configurationManager.getLogger().log(Level.WARNING, "cannot delete {0}", file.getAbsolutePath());
+			length = 0;
+		} else if (blob != null) {
+			// the file may have been the last link of its blob
+			try {
+				blobStore.release(blob);
+			} catch (IOException ex) {
+				configurationManager.getLogger().log(Level.WARNING, "cannot release " + blob, ex);
 			}
-		} catch (IOException ex) {
-			throw new ServletException(ex);
-		} catch (ParserConfigurationException ex) {
-			throw new ServletException(ex);
-		} catch (XPathExpressionException ex) {
-			throw new ServletException(ex);
-		} catch (SAXException ex) {
-			throw new ServletException(ex);
 		}
+		ChecksumStore.delete(file);
+		Compression.delete(file);
+		configurationManager.getAttributeCache().invalidate(file);
+		configurationManager.getHotCache().invalidate(file);
+		return length;
 	}
 
 	/**
@@ -16,39 +16,84 @@ package net.gcolin.simplerepo.servlet;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.Writer;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
+import net.gcolin.simplerepo.model.BundleEntry;
+import net.gcolin.simplerepo.model.Checksums;
 import net.gcolin.simplerepo.model.ContentResult;
+import net.gcolin.simplerepo.model.ListingEntry;
+import net.gcolin.simplerepo.model.MergedMetadata;
+import net.gcolin.simplerepo.model.PathAttributes;
 import net.gcolin.simplerepo.model.Repository;
+import net.gcolin.simplerepo.util.BatchRequest;
+import net.gcolin.simplerepo.util.BlobStore;
+import net.gcolin.simplerepo.util.BundleExtractor;
+import net.gcolin.simplerepo.util.ByteRange;
+import net.gcolin.simplerepo.util.CachePolicy;
+import net.gcolin.simplerepo.util.ChecksumStore;
+import net.gcolin.simplerepo.util.Compression;
+import net.gcolin.simplerepo.util.Checksummer;
 import net.gcolin.simplerepo.util.ConfigurationManager;
 import net.gcolin.simplerepo.util.DirectoryListCallback;
+import net.gcolin.simplerepo.util.DirectoryLister;
+import net.gcolin.simplerepo.util.FileSender;
+import net.gcolin.simplerepo.util.InflightDownload;
 import net.gcolin.simplerepo.util.Io;
+import net.gcolin.simplerepo.util.JsonListing;
 import net.gcolin.simplerepo.util.ListCallback;
+import net.gcolin.simplerepo.util.ParallelTasks;
+import net.gcolin.simplerepo.util.RemoteListing;
 import net.gcolin.simplerepo.util.RepositoriesListCallback;
+import net.gcolin.simplerepo.util.RepositoryPaths;
+import net.gcolin.simplerepo.util.Sidecars;
+import net.gcolin.simplerepo.util.SingleFlight;
+import net.gcolin.simplerepo.util.StripedLocks;
+import net.gcolin.simplerepo.util.UpstreamResponse;
+import net.gcolin.simplerepo.util.VirtualResolver;
 
 /**
  * Maven repository servlet.
@@ -64,10 +109,88 @@ public class RepositoryServlet extends AbstractDisplayServlet {
 	 * @see Serializable#serialVersionUID
 	 */
 	private static final long serialVersionUID = 7371970943974063406L;
+	/**
+	 * The size of the buffer used for downloading.
+	 */
+	private static final int BUFFER_SIZE = 8192;
+	/**
+	 * The estimated size of a listing page without its rows.
+	 */
+	private static final int LISTING_PAGE_SIZE = 1024;
+	/**
+	 * The estimated size of a row of a listing.
+	 */
+	private static final int LISTING_ROW_SIZE = 160;
+	/**
+	 * The maximum number of parallel lookups in the members of the virtual
+	 * repositories.
+	 */
+	private static final int RESOLVER_THREADS = 16;
+	/**
+	 * The request attribute that contains the requested repository.
+	 */
+	private static final String REPOSITORY_ATTRIBUTE = "simplerepo.repository";
+	/**
+	 * The request attribute that contains the path in the requested
+	 * repository.
+	 */
+	private static final String PATH_ATTRIBUTE = "simplerepo.path";
+	/**
+	 * The request attribute set when the response has been sent while the
+	 * resource was downloaded. The results are shared between the concurrent
+	 * requests, so they cannot carry it.
+	 */
+	private static final String SENT_ATTRIBUTE = "simplerepo.sent";
+	/**
+	 * The maximum number of items of a batch resolution.
+	 */
+	private static final int MAX_BATCH_ITEMS = 1000;
+	/**
+	 * The maximum number of items of a batch resolution resolved at the same
+	 * time.
+	 */
+	private static final int BATCH_PARALLELISM = 8;
+	/**
+	 * The maximum number of files in a deployed bundle.
+	 */
+	private static final int MAX_BUNDLE_ENTRIES = 100000;
+	/**
+	 * The maximum number of bytes extracted from a deployed bundle.
+	 */
+	private static final long MAX_BUNDLE_BYTES = 4L * 1024 * 1024 * 1024;
+	/**
+	 * The number of locks shared by the uploaded paths.
+	 */
+	private static final int UPLOAD_LOCK_STRIPES = 64;
+	/**
+	 * The name of the metadata files.
+	 */
+	private static final String MAVEN_METADATA = "maven-metadata.xml";
+	/**
+	 * A hexadecimal digest.
+	 */
+	private static final Pattern HEX_DIGEST = Pattern.compile("[0-9a-fA-F]+");
 	/**
 	 * The configuration manager.
 	 */
 	private transient ConfigurationManager configManager;
+	/**
+	 * The remote retrievals in progress, indexed by repository and path.
+	 */
+	private final transient SingleFlight<ContentResult> remoteFlights = new SingleFlight<ContentResult>();
+	/**
+	 * The resolver of the virtual repositories.
+	 */
+	private transient VirtualResolver resolver;
+	/**
+	 * The engine that sends the files.
+	 */
+	private final transient FileSender fileSender = new FileSender();
+	/**
+	 * The locks of the uploads. The uploads of the same path are executed one
+	 * after the other, the uploads of other paths are executed in parallel.
+	 */
+	private final transient StripedLocks uploadLocks = new StripedLocks(UPLOAD_LOCK_STRIPES);
 
 	/**
 	 * {@inheritDoc}
@@ -75,6 +198,15 @@ public class RepositoryServlet extends AbstractDisplayServlet {
 	@Override
 	public final void init() throws ServletException {
 		configManager = (ConfigurationManager) getServletContext().getAttribute("configManager");
+		resolver = new VirtualResolver(RESOLVER_THREADS);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void destroy() {
+		resolver.close();
 	}
 
 	/**
@@ -101,346 +233,1961 @@ public class RepositoryServlet extends AbstractDisplayServlet {
 			return;
 		}
 		path = path.substring(path.indexOf('/') + 1);
-
-		ContentResult result = getType(req, resp, repo, path);
-		if (result.isEmpty()) {
-			result = getRemote(req, resp, repo, path, false, Collections.EMPTY_SET, null);
-			if (result.isEmpty()) {
-				resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+		req.setAttribute(REPOSITORY_ATTRIBUTE, repo);
+		req.setAttribute(PATH_ATTRIBUTE, path);
+		if (isVirtual(repo) && isMetadata(path)) {
+			if (req.isAsyncSupported()) {
+				retrieveAsync(req, resp, repo, path, false);
 			} else {
-				sendResult(req, resp, result);
+				sendMergedMetadata(req, resp, repo, path, false);
 			}
-		} else {
+			return;
+		}
+
+		ContentResult result = getType(req, resp, repo, path, true);
+		if (result != null && !result.isEmpty()) {
 			sendResult(req, resp, result);
+		} else if ((result == null || hasRemote(repo)) && req.isAsyncSupported()) {
+			retrieveAsync(req, resp, repo, path, false);
+		} else {
+			retrieve(req, resp, repo, path);
 		}
 	}
 
 	/**
-	 * Send the response to the client.
+	 * Answer with the headers of a resource. The local files are never opened
+	 * and the missing resources are only checked on the remote repositories,
+	 * without being downloaded.
 	 *
-	 * @param req    request
-	 * @param resp   response
-	 * @param result result
-	 * @throws IOException if an error occurs
-	 * @throws ServletException 
+	 * @param req  request
+	 * @param resp response
+	 * @throws IOException      if an error occurs
+	 * @throws ServletException if an error occurs
 	 */
-	private void sendResult(final HttpServletRequest req, final HttpServletResponse resp, final ContentResult result)
-			throws IOException, ServletException {
-		if (result.getChildren() != null) {
-			// directory
-			list(req, resp, new DirectoryListCallback(result.getChildren()));
-		} else if (result.getFile() != null) {
-			// a file
-			Enumeration<String> en = req.getHeaders("If-Modified-Since");
-			if (en.hasMoreElements()) {
-				long date = req.getDateHeader("If-Modified-Since");
-				if (result.getFile().lastModified() <= date) {
-					resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-					return;
-				}
-			}
-			resp.setContentLength((int) result.getFile().length());
-			resp.setDateHeader("Last-Modified", result.getFile().lastModified());
-			FileInputStream fin = null;
-			try {
-				fin = new FileInputStream(result.getFile());
-				Io.copy(fin, resp.getOutputStream());
-			} finally {
-				Io.close(fin);
+	@Override
+	protected final void doHead(final HttpServletRequest req, final HttpServletResponse resp)
+			throws ServletException, IOException {
+		String path = req.getPathInfo();
+		if (path == null || path.isEmpty() || "/".equals(path)) {
+			super.doHead(req, resp);
+			return;
+		}
+		path = path.substring(1);
+
+		Repository repo = checkPath(path);
+		if (repo == null) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		path = path.substring(path.indexOf('/') + 1);
+		req.setAttribute(REPOSITORY_ATTRIBUTE, repo);
+		req.setAttribute(PATH_ATTRIBUTE, path);
+		if (isVirtual(repo) && isMetadata(path)) {
+			if (req.isAsyncSupported()) {
+				retrieveAsync(req, resp, repo, path, true);
+			} else {
+				sendMergedMetadata(req, resp, repo, path, true);
 			}
+			return;
+		}
+
+		ContentResult result = getType(req, resp, repo, path, true);
+		if (result != null && result.getFile() != null) {
+			sendHead(req, resp, result.getFile(), result.getAttributes());
+		} else if (result != null && result.getChildren() != null) {
+			sendHead(req, resp, null, null);
+		} else if (hasRemote(repo) && req.isAsyncSupported()) {
+			retrieveAsync(req, resp, repo, path, true);
+		} else {
+			head(req, resp, repo, path);
 		}
 	}
 
 	/**
-	 * Get remote folder or file. This method is synchronized for avoiding multiple
-	 * retrieves of the same resource and for retrieving files one by one.
+	 * Check if a path is a maven-metadata.xml or one of its checksum files.
 	 *
-	 * @param req        request
-	 * @param resp       response
-	 * @param repo       repository
-	 * @param path       path
-	 * @param nocheck    no check if result has been downloaded before
-	 * @param downloaded downloaded
-	 * @return true if the resource exists
+	 * @param path path
+	 * @return true if the path is a maven-metadata.xml or one of its checksum
+	 *         files
+	 */
+	private boolean isMetadata(final String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		String extension = Sidecars.getExtension(name);
+		return name.equals(MAVEN_METADATA) || extension != null && name.equals(MAVEN_METADATA + '.' + extension);
+	}
+
+	/**
+	 * Send the maven-metadata.xml of a virtual repository, merged from the
+	 * maven-metadata.xml of all its members, or one of its checksum files.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @param repo the virtual repository
+	 * @param path the path of the maven-metadata.xml or of a checksum file
+	 * @param head true for sending only the headers
 	 * @throws IOException if an error occurs
 	 */
-	@SuppressWarnings("unchecked")
-	private synchronized ContentResult getRemote(final HttpServletRequest req, final HttpServletResponse resp,
-			final Repository repo, final String path, final boolean nocheck, final Set<String> downloaded,
-			File previous) throws IOException {
-		// maybe another paralle call has concluded
-		ContentResult result;
-		if (nocheck) {
-			result = new ContentResult();
+	private void sendMergedMetadata(final HttpServletRequest req, final HttpServletResponse resp,
+			final Repository repo, final String path, final boolean head) throws IOException {
+		String extension = Sidecars.getExtension(path);
+		String metadataPath = extension == null ? path : path.substring(0, path.length() - extension.length() - 1);
+		List<File> files = new ArrayList<File>();
+		collectMetadata(req, repo, metadataPath, files);
+		MergedMetadata merged = configManager.getMergedMetadataCache().get(repo.getName() + '/' + metadataPath,
+				files);
+		if (merged == null) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		byte[] body;
+		String etag = null;
+		if (extension == null) {
+			body = merged.getContent();
+			etag = setChecksumHeaders(resp, merged.getChecksums(), false);
 		} else {
-			result = getType(req, resp, repo, path);
+			body = Sidecars.getDigest(merged.getChecksums(), extension).getBytes(StandardCharsets.ISO_8859_1);
 		}
-		if (!result.isEmpty()) {
-			return result;
+		resp.setContentType(getMimeType(new File(path)));
+		resp.setDateHeader("Last-Modified", merged.getLastModified());
+		applyCachePolicy(req, resp);
+		if (isNotModified(req, etag, merged.getLastModified())) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
 		}
-		if (isVirtual(repo)) {
-			Set<String> downl = new HashSet<String>();
-			for (String r : repo.getIncludes()) {
-				ContentResult res = getRemote(req, resp, configManager.getRepository(r), path, false, downl, null);
-				if (res.getFile() != null) {
-					return res;
-				} else if (res.getChildren() != null) {
-					if (result.getChildren() == null) {
-						result.setChildren(new ArrayList<File>(res.getChildren()));
-					} else {
-						result.getChildren().addAll(res.getChildren());
-					}
-				}
+		resp.setContentLength(body.length);
+		if (!head) {
+			resp.getOutputStream().write(body);
+		}
+	}
+
+	/**
+	 * Get the maven-metadata.xml of the members of a virtual repository. The
+	 * files are retrieved from the remote repositories if needed, at the same
+	 * time if the virtual repository uses the parallel resolution. A member
+	 * that cannot be reached keeps its local file.
+	 *
+	 * @param req   request
+	 * @param repo  the virtual repository
+	 * @param path  the path of the maven-metadata.xml
+	 * @param files the local files of the members, by priority
+	 * @throws IOException if the thread is interrupted
+	 */
+	private void collectMetadata(final HttpServletRequest req, final Repository repo, final String path,
+			final List<File> files) throws IOException {
+		List<Repository> members = new ArrayList<Repository>();
+		addMembers(repo, members, new HashSet<String>());
+		if (repo.isParallelResolution()) {
+			List<Callable<Boolean>> lookups = new ArrayList<Callable<Boolean>>();
+			for (Repository member : members) {
+				lookups.add(() -> retrieveMetadata(req, member, path));
 			}
-		} else if (repo.getRemote() != null) {
-			File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
-			File parent = file.getParentFile();
-			if (parent.mkdirs()) {
-				configManager.getLogger().log(Level.FINE, "create directory {0}", parent);
+			resolver.probe(lookups);
+		} else {
+			for (Repository member : members) {
+				retrieveMetadata(req, member, path);
 			}
+		}
+		for (Repository member : members) {
+			files.add(new File(configManager.getRoot(), member.getName() + File.separatorChar + path));
+		}
+	}
 
-			File notfound = new File(file.getParentFile(), file.getName() + ".notfound");
-			if (notfound.exists()) {
-				if ((System.currentTimeMillis() - notfound.lastModified()) <= configManager.getNotFoundCache()) {
-					return result;
-				} else {
-					if (notfound.delete()) {
-						configManager.getLogger().log(Level.FINE, "delete file {0}", notfound);
-					}
-				}
+	/**
+	 * Add the members of a virtual repository, the members of the virtual
+	 * members are added in their place.
+	 *
+	 * @param repo    the virtual repository
+	 * @param members the members by priority
+	 * @param seen    the repositories already visited
+	 */
+	private void addMembers(final Repository repo, final List<Repository> members, final Set<String> seen) {
+		for (String r : repo.getIncludes()) {
+			Repository member = configManager.getRepository(r);
+			if (member == null || !seen.add(member.getName())) {
+				continue;
+			} else if (isVirtual(member)) {
+				addMembers(member, members, seen);
+			} else {
+				members.add(member);
 			}
+		}
+	}
 
-			String upath = repo.getRemote() + path;
-			URL u = new URL(upath);
-			URLConnection c = u.openConnection();
-			c.setUseCaches(false);
-			try {
-				if (previous != null) {
-					c.setIfModifiedSince(previous.lastModified());
-				}
-				c.setReadTimeout((int) TimeUnit.MINUTES.toMillis(10));
-				c.connect();
-
-				if (c instanceof HttpURLConnection) {
-					int statusCode = ((HttpURLConnection) c).getResponseCode();
-					if (statusCode == HttpServletResponse.SC_NOT_MODIFIED) {
-						result.setFile(previous);
-						return result;
-					} else if (statusCode != HttpServletResponse.SC_OK) {
-						if (notfound.createNewFile()) {
-							configManager.getLogger().log(Level.FINE, "create file {0}", notfound);
-						}
-						return result;
-					}
-				}
-				String contentType = c.getContentType();
-				if (!path.endsWith(".html") && !path.endsWith(".htm") && contentType != null
-						&& contentType.toLowerCase(Locale.ENGLISH).startsWith("text/html")) {
-					if (file.mkdirs()) {
-						configManager.getLogger().log(Level.FINE, "create directory {0}", file);
-					}
-					result.setChildren(new ArrayList<File>());
-					ByteArrayOutputStream out = null;
-					try {
-						InputStream in = null;
-						out = new ByteArrayOutputStream();
-						try {
-							in = c.getInputStream();
-							Io.copy(in, out);
-						} finally {
-							Io.close(in);
-						}
-						String encoding = "utf-8";
-						String contents = new String(out.toByteArray(), encoding);
-						Pattern pattern = Pattern.compile("<a.*>(.*)</a>");
-						Matcher matcher = pattern.matcher(contents);
-						while (matcher.find()) {
-							String name = matcher.group(1).trim();
-							if (!"../".equals(name) && !downloaded.contains(name)) {
-								if (downloaded != Collections.EMPTY_SET) {
-									downloaded.add(name);
-								}
-								File subfile;
-								if (name.endsWith("/")) {
-									subfile = new File(file, name.substring(0, name.length() - 1));
-									if (subfile.mkdir()) {
-										configManager.getLogger().log(Level.FINE, "create directory {0}", subfile);
-									}
-									if (new File(subfile, ".todo").createNewFile()) {
-										configManager.getLogger().log(Level.FINER, "create a todo file in {0}", file);
-									}
-								} else {
-									String suburl;
-									if (path.isEmpty() || path.endsWith("/")) {
-										suburl = path + name;
-									} else {
-										suburl = path + "/" + name;
-									}
-									getRemote(req, resp, repo, suburl, false, Collections.EMPTY_SET, null);
-									subfile = new File(file, name);
-								}
-								result.getChildren().add(subfile);
-							}
-
-						}
-					} finally {
-						Io.close(out);
-					}
-				} else {
-					InputStream in = null;
-					FileOutputStream out = null;
-					try {
-						result.setFile(file);
-						in = c.getInputStream();
-						out = new FileOutputStream(file);
-						Io.copy(in, out);
-					} finally {
-						Io.close(in);
-						Io.close(out);
-						long lastModified = c.getLastModified();
-						if (lastModified > 0) {
-							file.setLastModified(lastModified);
-						}
+	/**
+	 * Retrieve the maven-metadata.xml of a member of a virtual repository
+	 * from its remote repository if needed.
+	 *
+	 * @param req    request
+	 * @param member the member
+	 * @param path   the path of the maven-metadata.xml
+	 * @return true if the member has the file
+	 */
+	private boolean retrieveMetadata(final HttpServletRequest req, final Repository member, final String path) {
+		try {
+			ContentResult result = getType(req, null, member, path, false);
+			if (result.isEmpty()) {
+				result = getRemote(req, null, member, path, false, null);
+			}
+			if (result.getDownload() != null) {
+				// downloaded by another request
+				InputStream in = result.getDownload().openStream();
+				try {
+					byte[] buf = new byte[BUFFER_SIZE];
+					while (in.read(buf) != -1) {
+						// wait for the end of the download
 					}
-				}
-			} finally {
-				if (c instanceof HttpURLConnection) {
-					((HttpURLConnection) c).disconnect();
+				} finally {
+					Io.close(in);
 				}
 			}
-		} else if (path.length() == 0) {
-			result.setChildren(Collections.EMPTY_LIST);
+			return !result.isEmpty();
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot retrieve " + member.getName() + '/' + path, ex);
+			return false;
 		}
-		return result;
 	}
 
 	/**
-	 * Display a list of items.
+	 * Answer with the headers of a resource that may be on a remote
+	 * repository.
 	 *
 	 * @param req  request
 	 * @param resp response
-	 * @param cb   callback
+	 * @param repo repository
+	 * @param path path
 	 * @throws IOException if an error occurs
-	 * @throws ServletException 
 	 */
-	private void list(final HttpServletRequest req, final HttpServletResponse resp, final ListCallback cb)
-			throws IOException, ServletException {
-		req.setAttribute("cb", cb);
-		String path = req.getPathInfo();
-		if (path == null || path.isEmpty()) {
-			path = "/";
+	private void head(final HttpServletRequest req, final HttpServletResponse resp, final Repository repo,
+			final String path) throws IOException {
+		PathAttributes attributes = findAttributes(repo, path);
+		if (!attributes.isExists()) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+		} else if (attributes.isDirectory()) {
+			sendHead(req, resp, null, null);
+		} else {
+			File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
+			sendHead(req, resp, file, attributes);
 		}
-		req.setAttribute("title", "Index of " + path);
-		super.doGet(req, resp);
 	}
 
 	/**
-	 * Get the type of resource.
+	 * Get the attributes of a resource. The local file is used if it is fresh,
+	 * otherwise the remote repository is asked with a HEAD request. The members
+	 * of a virtual repository are asked one after the other.
 	 *
-	 * @param req  request
-	 * @param resp response
 	 * @param repo repository
-	 * @param path relative path
-	 * @return -1 unknown 1 : directory 0 : file
-	 * @throws IOException if an i/o error occurs
+	 * @param path path
+	 * @return the attributes of the resource
+	 * @throws IOException if an error occurs
 	 */
-	@SuppressWarnings("unchecked")
-	private ContentResult getType(final HttpServletRequest req, final HttpServletResponse resp, final Repository repo,
-			final String path) throws IOException {
-		ContentResult result = new ContentResult();
+	private PathAttributes findAttributes(final Repository repo, final String path) throws IOException {
 		if (isVirtual(repo)) {
+			PathAttributes directory = null;
 			for (String r : repo.getIncludes()) {
-				ContentResult res = getType(req, resp, configManager.getRepository(r), path);
-				if (res.getFile() != null) {
-					return res;
-				} else if (res.getChildren() != null) {
-					if (result.getChildren() == null) {
-						result.setChildren(new ArrayList<File>(res.getChildren()));
-					} else {
-						result.getChildren().addAll(res.getChildren());
-					}
+				PathAttributes attributes = findAttributes(configManager.getRepository(r), path);
+				if (attributes.isExists() && !attributes.isDirectory()) {
+					return attributes;
+				} else if (attributes.isExists() && directory == null) {
+					directory = attributes;
 				}
 			}
-		} else {
-			File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
-			if (file.exists()) {
-				if (file.isDirectory()) {
-					File[] children = file.listFiles();
-					if (children != null) {
-						result.setChildren(Arrays.asList(children));
-					} else {
-						result.setChildren(Collections.EMPTY_LIST);
-					}
-					if (result.getChildren().size() == 1 && result.getChildren().get(0).getName().endsWith(".todo")) {
-						if (result.getChildren().get(0).delete()) {
-							configManager.getLogger().log(Level.FINER, "remove todo file in {0}", file);
-						}
-						result.setChildren(
-								getRemote(req, resp, repo, path, true, Collections.EMPTY_SET, null).getChildren());
-					}
-				} else if (repo.getArtifactMaxAge() == -1
-						|| (System.currentTimeMillis() - file.lastModified()) <= repo.getArtifactMaxAge()) {
-					result.setFile(file);
-				} else {
-					return getRemote(req, resp, repo, path, true, Collections.EMPTY_SET, file);
+			return directory == null ? new PathAttributes() : directory;
+		}
+		File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
+		PathAttributes local = configManager.getAttributeCache().get(file);
+		if (repo.getRemote() == null || local.isExists() && (local.isDirectory() || repo.getArtifactMaxAge() == -1
+				|| (System.currentTimeMillis() - local.getLastModified()) <= repo.getArtifactMaxAge())) {
+			return local;
+		}
+		String key = repo.getName() + '/' + path;
+		if (!local.isExists() && configManager.getNegativeCache().contains(key, configManager.getNotFoundCache())) {
+			return local;
+		}
+		UpstreamResponse c = null;
+		try {
+			c = configManager.getUpstreamClient().open(repo.getRemote() + path, "HEAD",
+					local.isExists() ? local.getLastModified() : 0);
+			if (c.getStatus() == HttpServletResponse.SC_METHOD_NOT_ALLOWED
+					|| c.getStatus() == HttpServletResponse.SC_NOT_IMPLEMENTED) {
+				// the remote rejects HEAD, the body of the GET is not read
+				c.close();
+				c = configManager.getUpstreamClient().open(repo.getRemote() + path, "GET",
+						local.isExists() ? local.getLastModified() : 0);
+			}
+		} catch (IOException ex) {
+			if (c != null) {
+				c.close();
+			}
+			if (local.isExists()) {
+				// the stale local file is better than nothing
+				configManager.getLogger().log(Level.FINE, "cannot check " + key, ex);
+				return local;
+			}
+			throw ex;
+		}
+		try {
+			int statusCode = c.getStatus();
+			if (statusCode == HttpServletResponse.SC_NOT_MODIFIED) {
+				return local;
+			} else if (statusCode != HttpServletResponse.SC_OK) {
+				if (local.isExists()) {
+					// the stale local file is better than nothing
+					return local;
 				}
+				// only a definitive answer is remembered, the next GET may succeed
+				if (statusCode == HttpServletResponse.SC_NOT_FOUND || statusCode == HttpServletResponse.SC_GONE) {
+					configManager.getNegativeCache().add(key);
+				}
+				return new PathAttributes();
 			}
+			PathAttributes remote = new PathAttributes();
+			remote.setExists(true);
+			String contentType = c.getContentType();
+			remote.setDirectory(!path.endsWith(".html") && !path.endsWith(".htm") && contentType != null
+					&& contentType.toLowerCase(Locale.ENGLISH).startsWith("text/html"));
+			remote.setSize(c.getContentLength());
+			remote.setLastModified(c.getLastModified());
+			return remote;
+		} finally {
+			c.close();
 		}
-		return result;
 	}
 
 	/**
-	 * Check if a repository is a virtual repository.
+	 * Send the headers of a resource.
 	 *
-	 * @param repo repository
-	 * @return true if the repository is virtual
+	 * @param req        request
+	 * @param resp       response
+	 * @param file       the file or null for a directory
+	 * @param attributes the attributes of the file or null
+	 * @throws IOException if an error occurs
 	 */
-	private boolean isVirtual(final Repository repo) {
-		return repo.getIncludes() != null && !repo.getIncludes().isEmpty();
+	private void sendHead(final HttpServletRequest req, final HttpServletResponse resp, final File file,
+			final PathAttributes attributes) throws IOException {
+		if (file == null) {
+			CachePolicy.applyListing(resp);
+			resp.setCharacterEncoding("utf-8");
+			resp.setContentType("text/html");
+			return;
+		}
+		PathAttributes attrs = attributes == null ? configManager.getAttributeCache().get(file) : attributes;
+		PathAttributes gzip = getGzipCompanion(req, resp, file, attrs.getLastModified());
+		String etag = setChecksumHeaders(resp, configManager.getAttributeCache().getChecksums(file, attrs),
+				gzip != null);
+		applyCachePolicy(req, resp);
+		if (isNotModified(req, etag, attrs.getLastModified())) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		if (attrs.getLastModified() > 0) {
+			resp.setDateHeader("Last-Modified", attrs.getLastModified());
+		}
+		if (gzip != null) {
+			resp.setHeader("Accept-Ranges", "bytes");
+			resp.setHeader("Content-Encoding", "gzip");
+			resp.setHeader("Content-Length", Long.toString(gzip.getSize()));
+		} else if (attrs.getSize() >= 0) {
+			resp.setHeader("Accept-Ranges", "bytes");
+			resp.setHeader("Content-Length", Long.toString(attrs.getSize()));
+		}
+		resp.setContentType(getMimeType(file));
 	}
 
 	/**
-	 * Get a repository with the request path.
+	 * Retrieve a resource that is not in the local files and send it.
 	 *
-	 * @param path request path
-	 * @return null or a repository
+	 * @param req  request
+	 * @param resp response
+	 * @param repo repository
+	 * @param path path
+	 * @throws IOException      if an error occurs
+	 * @throws ServletException if an error occurs
 	 */
-	private Repository checkPath(final String path) {
-		int n = path.indexOf('/');
-		if (n == -1) {
-			return null;
+	@SuppressWarnings("unchecked")
+	private void retrieve(final HttpServletRequest req, final HttpServletResponse resp, final Repository repo,
+			final String path) throws IOException, ServletException {
+		ContentResult result = getType(req, resp, repo, path, false);
+		if (result.isEmpty()) {
+			result = getRemote(req, resp, repo, path, false, null);
+		}
+		if (result.isEmpty()) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
 		} else {
-			return configManager.getRepository(path.substring(0, n));
+			sendResult(req, resp, result);
 		}
 	}
 
 	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	protected synchronized final void doPut(final HttpServletRequest req, final HttpServletResponse resp)
-			throws ServletException, IOException {
+	 * Retrieve a resource in a thread dedicated to the remote retrievals so the
+	 * threads of the container stay available for the local files. The
+	 * maven-metadata.xml of a virtual repository is merged in this thread too.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @param repo repository
+	 * @param path path
+	 * @param head true for sending the headers only
+	 * @throws IOException if an error occurs
+	 */
+	private void retrieveAsync(final HttpServletRequest request, final HttpServletResponse resp,
+			final Repository repo, final String path, final boolean head) throws IOException {
+		final HttpServletRequest req = new AsyncRequest(request);
+		final AsyncContext ctx = request.startAsync(req, resp);
+		// the read timeout of the remote repositories limits the retrieval
+		ctx.setTimeout(0);
+		try {
+			configManager.getFetchExecutor().execute(() -> {
+				try {
+					if (isVirtual(repo) && isMetadata(path)) {
+						sendMergedMetadata(req, resp, repo, path, head);
+					} else if (head) {
+						head(req, resp, repo, path);
+					} else {
+						retrieve(req, resp, repo, path);
+					}
+				} catch (IOException | ServletException | RuntimeException ex) {
+					if (resp.isCommitted()) {
+						configManager.getLogger().log(Level.FINE, "cannot send " + repo.getName() + "/" + path, ex);
+					} else {
+						configManager.getLogger().log(Level.SEVERE, "cannot retrieve " + repo.getName() + "/" + path,
+								ex);
+						sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+					}
+				} finally {
+					ctx.complete();
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			configManager.getLogger().log(Level.WARNING, "too many remote retrievals, reject {0}/{1}",
+					new Object[] {repo.getName(), path});
+			sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			ctx.complete();
+		}
+	}
+
+	/**
+	 * Send an error to a client that may have left.
+	 *
+	 * @param resp   response
+	 * @param status the HTTP status
+	 */
+	private void sendError(final HttpServletResponse resp, final int status) {
+		try {
+			resp.sendError(status);
+		} catch (IOException | IllegalStateException ex) {
+			configManager.getLogger().log(Level.FINE, ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Send the response to the client.
+	 *
+	 * @param req    request
+	 * @param resp   response
+	 * @param result result
+	 * @throws IOException if an error occurs
+	 * @throws ServletException 
+	 */
+	private void sendResult(final HttpServletRequest req, final HttpServletResponse resp, final ContentResult result)
+			throws IOException, ServletException {
+		if (req.getAttribute(SENT_ATTRIBUTE) != null) {
+			// already sent while downloading
+			return;
+		} else if (result.getChildren() != null) {
+			// directory
+			DirectoryListCallback cb = new DirectoryListCallback(result.getChildren(), result.getListing());
+			resp.addHeader("Vary", "Accept");
+			if (isJsonRequested(req)) {
+				sendJson(req, resp, cb.getEntries());
+			} else {
+				list(req, resp, cb);
+			}
+		} else if (result.getFile() != null) {
+			// a file
+			final File file = result.getFile();
+			long lastModified;
+			long length;
+			Checksums checksums;
+			if (result.getAttributes() != null) {
+				lastModified = result.getAttributes().getLastModified();
+				length = result.getAttributes().getSize();
+				checksums = configManager.getAttributeCache().getChecksums(file, result.getAttributes());
+			} else {
+				lastModified = file.lastModified();
+				length = file.length();
+				checksums = ChecksumStore.read(file, length, lastModified);
+			}
+			PathAttributes gzip = getGzipCompanion(req, resp, file, lastModified);
+			String etag = setChecksumHeaders(resp, checksums, gzip != null);
+			applyCachePolicy(req, resp);
+			if (isNotModified(req, etag, lastModified)) {
+				resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+			resp.setDateHeader("Last-Modified", lastModified);
+			resp.setHeader("Accept-Ranges", "bytes");
+			List<ByteRange> ranges = getRanges(req, length, lastModified, etag);
+			if (gzip != null) {
+				resp.setHeader("Content-Encoding", "gzip");
+				resp.setContentType(getMimeType(file));
+				sendFile(req, resp, Compression.getCompanion(file), gzip.getSize(), gzip.getLastModified());
+			} else if (ranges == null) {
+				sendFile(req, resp, file, length, lastModified);
+			} else if (ranges.isEmpty()) {
+				resp.setHeader("Content-Range", "bytes */" + length);
+				resp.setHeader("Content-Length", "0");
+				resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			} else if (ranges.size() == 1) {
+				ByteRange range = ranges.get(0);
+				resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				resp.setHeader("Content-Range", range.toContentRange(length));
+				fileSender.send(req, resp, file, range.getStart(), range.getLength());
+			} else {
+				fileSender.sendRanges(resp, ranges, length, getMimeType(file),
+						(range, out) -> fileSender.write(file, range.getStart(), range.getLength(), out));
+			}
+		} else if (result.getDownload() != null) {
+			// a file being downloaded by another request
+			InflightDownload download = result.getDownload();
+			String etag = setChecksumHeaders(resp, download.getChecksums(), false);
+			applyCachePolicy(req, resp);
+			if (isNotModified(req, etag, download.getLastModified())) {
+				resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+			resp.setContentType(getMimeType(download.getTarget()));
+			if (download.getLastModified() > 0) {
+				resp.setDateHeader("Last-Modified", download.getLastModified());
+			}
+			// the ranges need the final length, they are read when the bytes are written
+			long length = download.getLength();
+			List<ByteRange> ranges = null;
+			if (length >= 0) {
+				resp.setHeader("Accept-Ranges", "bytes");
+				ranges = getRanges(req, length, download.getLastModified(), etag);
+			}
+			InputStream in = null;
+			try {
+				if (ranges == null) {
+					if (length >= 0) {
+						resp.setHeader("Content-Length", Long.toString(length));
+					}
+					in = download.openStream();
+					fileSender.copy(in, resp.getOutputStream());
+				} else if (ranges.isEmpty()) {
+					resp.setHeader("Content-Range", "bytes */" + length);
+					resp.setHeader("Content-Length", "0");
+					resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				} else if (ranges.size() == 1) {
+					ByteRange range = ranges.get(0);
+					resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					resp.setHeader("Content-Range", range.toContentRange(length));
+					resp.setHeader("Content-Length", Long.toString(range.getLength()));
+					in = download.openStream();
+					FileSender.skip(in, range.getStart());
+					fileSender.copy(in, resp.getOutputStream(), range.getLength());
+				} else {
+					final InputStream stream = download.openStream();
+					in = stream;
+					final long[] position = new long[1];
+					fileSender.sendRanges(resp, ranges, length, getMimeType(download.getTarget()), (range, out) -> {
+						FileSender.skip(stream, range.getStart() - position[0]);
+						fileSender.copy(stream, out, range.getLength());
+						position[0] = range.getEnd() + 1;
+					});
+				}
+			} finally {
+				Io.close(in);
+			}
+		}
+	}
+
+	/**
+	 * Check if a client asks for a listing in JSON, with the format parameter
+	 * or the Accept header.
+	 *
+	 * @param req request
+	 * @return true for a listing in JSON
+	 */
+	private boolean isJsonRequested(final HttpServletRequest req) {
+		String format = req.getParameter("format");
+		if (format != null) {
+			return "json".equals(format);
+		}
+		String accept = req.getHeader("Accept");
+		return accept != null && accept.contains("application/json");
+	}
+
+	/**
+	 * Send a page of a listing in JSON.
+	 *
+	 * @param req     request
+	 * @param resp    response
+	 * @param entries the sorted items of the directory
+	 * @throws IOException if an error occurs
+	 */
+	private void sendJson(final HttpServletRequest req, final HttpServletResponse resp,
+			final List<ListingEntry> entries) throws IOException {
+		int limit = JsonListing.DEFAULT_LIMIT;
+		int from;
+		try {
+			String value = req.getParameter("limit");
+			if (value != null) {
+				limit = Math.min(Integer.parseInt(value), JsonListing.MAX_LIMIT);
+			}
+			from = JsonListing.start(entries, req.getParameter("cursor"));
+		} catch (IllegalArgumentException ex) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+			return;
+		}
+		if (limit <= 0) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid limit " + limit);
+			return;
+		}
+		int to = (int) Math.min(entries.size(), (long) from + limit);
+		String etag = JsonListing.etag(entries, from, to);
+		CachePolicy.applyListing(resp);
+		resp.setHeader("ETag", etag);
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch != null && matches(ifNoneMatch, etag.substring(2))) {
+			resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		resp.setCharacterEncoding("utf-8");
+		resp.setContentType("application/json");
+		JsonListing.write(resp.getWriter(), entries, from, to);
+	}
+
+	/**
+	 * Get the ranges asked by the client.
+	 *
+	 * @param req          request
+	 * @param length       the length of the file
+	 * @param lastModified the last modification date of the file
+	 * @param etag         the entity tag of the file or null
+	 * @return the ranges, an empty list if the ranges cannot be satisfied or
+	 *         null if the whole file must be sent
+	 */
+	private List<ByteRange> getRanges(final HttpServletRequest req, final long length, final long lastModified,
+			final String etag) {
+		String range = req.getHeader("Range");
+		if (range == null) {
+			return null;
+		}
+		String ifRange = req.getHeader("If-Range");
+		if (ifRange != null && (ifRange.startsWith("\"") || ifRange.startsWith("W/"))) {
+			// the weak entity tags never match
+			if (!ifRange.trim().equals(etag)) {
+				return null;
+			}
+		} else if (ifRange != null) {
+			try {
+				// the dates of the headers have a precision of one second
+				if (lastModified / 1000 != req.getDateHeader("If-Range") / 1000) {
+					return null;
+				}
+			} catch (IllegalArgumentException ex) {
+				// not a date
+				return null;
+			}
+		}
+		return ByteRange.parse(range, length);
+	}
+
+	/**
+	 * Send the digests of a file.
+	 *
+	 * @param resp       response
+	 * @param checksums  the digests of the file or null
+	 * @param compressed true if the file is sent compressed
+	 * @return the entity tag of the response or null
+	 */
+	private String setChecksumHeaders(final HttpServletResponse resp, final Checksums checksums,
+			final boolean compressed) {
+		if (checksums == null) {
+			return null;
+		}
+		String etag = checksums.getETag();
+		if (compressed) {
+			// the compressed representation has its own entity tag
+			etag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+		}
+		resp.setHeader("ETag", etag);
+		if (checksums.getMd5() != null) {
+			resp.setHeader("X-Checksum-Md5", checksums.getMd5());
+		}
+		resp.setHeader("X-Checksum-Sha1", checksums.getSha1());
+		if (checksums.getSha256() != null) {
+			resp.setHeader("X-Checksum-Sha256", checksums.getSha256());
+		}
+		return etag;
+	}
+
+	/**
+	 * Send a whole file, from the memory if it is a small file.
+	 *
+	 * @param req          request
+	 * @param resp         response
+	 * @param file         file
+	 * @param length       the length of the file
+	 * @param lastModified the last modification date of the file
+	 * @throws IOException if an error occurs
+	 */
+	private void sendFile(final HttpServletRequest req, final HttpServletResponse resp, final File file,
+			final long length, final long lastModified) throws IOException {
+		ByteBuffer buffer = configManager.getHotCache().get(file, length, lastModified);
+		if (buffer == null) {
+			fileSender.send(req, resp, file, 0, length);
+		} else {
+			fileSender.send(resp, buffer);
+		}
+	}
+
+	/**
+	 * Send the cache headers of the requested file.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 */
+	private void applyCachePolicy(final HttpServletRequest req, final HttpServletResponse resp) {
+		Repository repo = (Repository) req.getAttribute(REPOSITORY_ATTRIBUTE);
+		if (repo != null) {
+			CachePolicy.apply(resp, repo, (String) req.getAttribute(PATH_ATTRIBUTE));
+		}
+	}
+
+	/**
+	 * Get the compressed copy of a file if the client accepts it. The whole
+	 * file is always sent compressed, the ranges apply to the uncompressed
+	 * file.
+	 *
+	 * @param req          request
+	 * @param resp         response
+	 * @param file         file
+	 * @param lastModified the last modification date of the file
+	 * @return the attributes of the compressed copy or null if the file must be
+	 *         sent uncompressed
+	 * @throws IOException if an i/o error occurs
+	 */
+	private PathAttributes getGzipCompanion(final HttpServletRequest req, final HttpServletResponse resp,
+			final File file, final long lastModified) throws IOException {
+		if (configManager.getGzipThreshold() < 0 || !Compression.isText(file.getName())) {
+			return null;
+		}
+		resp.setHeader("Vary", "Accept-Encoding");
+		if (req.getHeader("Range") != null || !Compression.acceptsGzip(req.getHeader("Accept-Encoding"))) {
+			return null;
+		}
+		PathAttributes gzip = configManager.getAttributeCache().get(Compression.getCompanion(file));
+		if (gzip.isExists() && !gzip.isDirectory() && gzip.getLastModified() == lastModified) {
+			return gzip;
+		}
+		return null;
+	}
+
+	/**
+	 * Check the conditional headers of a request.
+	 *
+	 * @param req          request
+	 * @param etag         the entity tag of the file or null
+	 * @param lastModified the last modification date of the file
+	 * @return true if the client has the current version of the file
+	 */
+	private boolean isNotModified(final HttpServletRequest req, final String etag, final long lastModified) {
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			// If-Modified-Since is ignored when If-None-Match is present
+			return etag != null && matches(ifNoneMatch, etag);
+		}
+		Enumeration<String> en = req.getHeaders("If-Modified-Since");
+		if (en.hasMoreElements()) {
+			long date = req.getDateHeader("If-Modified-Since");
+			return lastModified <= date;
+		}
+		return false;
+	}
+
+	/**
+	 * Check if an If-None-Match header matches an entity tag. The weak
+	 * comparison is used.
+	 *
+	 * @param header the If-None-Match header
+	 * @param etag   the entity tag
+	 * @return true if the header matches the entity tag
+	 */
+	private boolean matches(final String header, final String etag) {
+		for (String item : header.split(",")) {
+			String tag = item.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || etag.equals(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the type of a file.
+	 *
+	 * @param file file
+	 * @return the type of the file
+	 */
+	private String getMimeType(final File file) {
+		String type = getServletContext().getMimeType(file.getName());
+		return type == null ? "application/octet-stream" : type;
+	}
+
+	/**
+	 * Read the digests announced by a remote repository in the headers of a
+	 * download, for sending the same checksum headers as a cached file.
+	 *
+	 * @param c the response of the remote repository
+	 * @return the digests or null if the remote repository does not send the
+	 *         SHA-1
+	 */
+	private Checksums getRemoteChecksums(final UpstreamResponse c) {
+		String sha1 = c.getHeader("X-Checksum-Sha1");
+		if (sha1 == null || !HEX_DIGEST.matcher(sha1).matches()) {
+			return null;
+		}
+		Checksums checksums = new Checksums();
+		checksums.setSha1(sha1.toLowerCase(Locale.ENGLISH));
+		String sha256 = c.getHeader("X-Checksum-Sha256");
+		if (sha256 != null && HEX_DIGEST.matcher(sha256).matches()) {
+			checksums.setSha256(sha256.toLowerCase(Locale.ENGLISH));
+		}
+		return checksums;
+	}
+
+	/**
+	 * Prepare the response for sending a file while it is downloaded.
+	 *
+	 * @param req      request
+	 * @param resp     response or null if the file is not requested by the client
+	 * @param download the file being downloaded
+	 * @return the output of the client or null if the file cannot be sent now
+	 * @throws IOException if an error occurs
+	 */
+	private OutputStream tee(final HttpServletRequest req, final HttpServletResponse resp,
+			final InflightDownload download) throws IOException {
+		if (resp == null || resp.isCommitted() || req.getHeader("Range") != null) {
+			// the ranges are sent from the cached file
+			return null;
+		}
+		if (req.getHeader("If-None-Match") != null || isNotModified(req, null, download.getLastModified())) {
+			// may be not modified, the entity tag is known when the file is cached
+			return null;
+		}
+		resp.setContentType(getMimeType(download.getTarget()));
+		setChecksumHeaders(resp, download.getChecksums(), false);
+		if (download.getLength() >= 0) {
+			resp.setHeader("Content-Length", Long.toString(download.getLength()));
+		}
+		if (download.getLastModified() > 0) {
+			resp.setDateHeader("Last-Modified", download.getLastModified());
+		}
+		applyCachePolicy(req, resp);
+		return resp.getOutputStream();
+	}
+
+	/**
+	 * Get remote folder or file. Only one retrieval by repository and path is
+	 * executed at the same time: the concurrent calls for the same resource wait
+	 * for the running retrieval and share its result, the calls for other
+	 * resources are executed in parallel.
+	 *
+	 * @param req        request
+	 * @param resp       response
+	 * @param repo       repository
+	 * @param path       path
+	 * @param nocheck    no check if result has been downloaded before
+	 * @param previous   the previous version of the file or null
+	 * @return true if the resource exists
+	 * @throws IOException if an error occurs
+	 */
+	private ContentResult getRemote(final HttpServletRequest req, final HttpServletResponse resp,
+			final Repository repo, final String path, final boolean nocheck, final File previous)
+			throws IOException {
+		return remoteFlights.execute(repo.getName() + '/' + path,
+				() -> fetchRemote(req, resp, repo, path, nocheck, previous));
+	}
+
+	/**
+	 * Retrieve a remote folder or file. The listing of a remote folder is kept
+	 * in the local folder and its files are retrieved only when they are
+	 * requested.
+	 *
+	 * @param req        request
+	 * @param resp       response
+	 * @param repo       repository
+	 * @param path       path
+	 * @param nocheck    no check if result has been downloaded before
+	 * @param previous   the previous version of the file or null
+	 * @return true if the resource exists
+	 * @throws IOException if an error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	private ContentResult fetchRemote(final HttpServletRequest req, final HttpServletResponse resp,
+			final Repository repo, final String path, final boolean nocheck, final File previous)
+			throws IOException {
+		// the concurrent calls wait for this retrieval but a retrieval may have
+		// concluded between the first lookup of the caller and this one
+		ContentResult result;
+		if (nocheck) {
+			result = new ContentResult();
+		} else {
+			result = getType(req, resp, repo, path, false);
+		}
+		if (!result.isEmpty()) {
+			return result;
+		}
+		if (isVirtual(repo)) {
+			List<Repository> includes = new ArrayList<Repository>();
+			for (String r : repo.getIncludes()) {
+				includes.add(configManager.getRepository(r));
+			}
+			if (repo.isParallelResolution()) {
+				// the members are asked at the same time with HEAD requests and
+				// the resource is downloaded from the first member that has it
+				List<Callable<Boolean>> probes = new ArrayList<Callable<Boolean>>();
+				for (Repository member : includes) {
+					probes.add(() -> findAttributes(member, path).isExists());
+				}
+				List<Boolean> found = resolver.probe(probes);
+				for (int i = found.size() - 1; i >= 0; i--) {
+					if (Boolean.FALSE.equals(found.get(i))) {
+						includes.remove(i);
+					}
+				}
+			}
+			List<Callable<ContentResult>> members = new ArrayList<Callable<ContentResult>>();
+			for (Repository member : includes) {
+				members.add(() -> getRemote(req, resp, member, path, false, null));
+			}
+			return resolver.resolve(members, false);
+		} else if (repo.getRemote() != null) {
+			File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
+			File parent = file.getParentFile();
+			String key = repo.getName() + '/' + path;
+			if (configManager.getNegativeCache().contains(key, configManager.getNotFoundCache())) {
+				return result;
+			}
+			// the markers of the previous versions are replaced by the negative cache
+			File notfound = new File(parent, file.getName() + ".notfound");
+			if (notfound.exists() && notfound.delete()) {
+				configManager.getLogger().log(Level.FINE, "delete file {0}", notfound);
+			}
+
+			UpstreamResponse c = configManager.getUpstreamClient().open(repo.getRemote() + path, "GET",
+					previous == null ? 0 : previous.lastModified());
+			try {
+				int statusCode = c.getStatus();
+				if (statusCode == HttpServletResponse.SC_NOT_MODIFIED) {
+					result.setFile(previous);
+					return result;
+				} else if (statusCode != HttpServletResponse.SC_OK) {
+					configManager.getNegativeCache().add(key);
+					return result;
+				}
+				String contentType = c.getContentType();
+				if (!path.endsWith(".html") && !path.endsWith(".htm") && contentType != null
+						&& contentType.toLowerCase(Locale.ENGLISH).startsWith("text/html")) {
+					if (file.mkdirs()) {
+						configManager.getLogger().log(Level.FINE, "create directory {0}", file);
+					}
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					InputStream in = null;
+					try {
+						in = c.getInputStream();
+						Io.copy(in, out);
+					} finally {
+						Io.close(in);
+					}
+					List<ListingEntry> listing = RemoteListing.parse(new String(out.toByteArray(), "utf-8"));
+					RemoteListing.write(file, listing);
+					configManager.getAttributeCache().invalidate(new File(file, RemoteListing.FILE_NAME));
+					File todo = new File(file, ".todo");
+					if (todo.exists() && todo.delete()) {
+						configManager.getLogger().log(Level.FINER, "remove todo file in {0}", file);
+					}
+					result.setChildren(DirectoryLister.list(file));
+					result.setListing(listing);
+				} else if (file.isDirectory()) {
+					// a local folder cannot be replaced by a file
+					return result;
+				} else {
+					if (parent.mkdirs()) {
+						configManager.getLogger().log(Level.FINE, "create directory {0}", parent);
+					}
+					InflightDownload download = new InflightDownload(file, c.getContentLength(),
+							c.getLastModified());
+					download.setChecksums(getRemoteChecksums(c));
+					InputStream in = null;
+					try {
+						in = c.getInputStream();
+						download.open();
+						ContentResult partial = new ContentResult();
+						partial.setDownload(download);
+						remoteFlights.publish(repo.getName() + '/' + path, partial);
+						OutputStream client = tee(req, resp, download);
+						if (client != null) {
+							req.setAttribute(SENT_ATTRIBUTE, Boolean.TRUE);
+						}
+						// the last bytes are sent to the client after the file is published
+						byte[] buf = new byte[BUFFER_SIZE];
+						byte[] pending = new byte[BUFFER_SIZE];
+						int pendingCount = 0;
+						// the md5 and sha512 sidecars of a remote file come from the remote
+						Checksummer checksummer = new Checksummer(false);
+						int count;
+						while ((count = in.read(buf)) != -1) {
+							download.write(buf, 0, count);
+							checksummer.update(buf, 0, count);
+							client = send(client, pending, pendingCount, file);
+							byte[] tmp = pending;
+							pending = buf;
+							buf = tmp;
+							pendingCount = count;
+						}
+						File blob = getBlob(file);
+						download.complete();
+						scheduleBlobRelease(blob);
+						Checksums checksums = checksummer.finish(0);
+						dedupe(file, checksums);
+						checksums.setLastModified(file.lastModified());
+						writeChecksums(file, checksums);
+						configManager.getAttributeCache().invalidate(file);
+						configManager.getHotCache().invalidate(file);
+						configManager.getMergedMetadataCache().invalidate(file);
+						send(client, pending, pendingCount, file);
+						compress(file);
+					} catch (IOException | RuntimeException ex) {
+						download.fail();
+						throw ex;
+					} finally {
+						Io.close(in);
+					}
+					result.setFile(file);
+				}
+			} finally {
+				c.close();
+			}
+		} else if (path.length() == 0) {
+			result.setChildren(Collections.EMPTY_LIST);
+		}
+		return result;
+	}
+
+	/**
+	 * Save the digests of a file that has just been written. The file is
+	 * served without digests if they cannot be saved.
+	 *
+	 * @param file      file
+	 * @param checksums the digests of the bytes written
+	 */
+	private void writeChecksums(final File file, final Checksums checksums) {
+		try {
+			ChecksumStore.write(file, checksums);
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot save the checksums of " + file, ex);
+		}
+	}
+
+	/**
+	 * Create the compressed copy of a file that has just been written. The
+	 * file is served uncompressed if the copy cannot be created.
+	 *
+	 * @param file file
+	 */
+	private void compress(final File file) {
+		File companion = Compression.getCompanion(file);
+		try {
+			Compression.compress(file, configManager.getGzipThreshold());
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot compress " + file, ex);
+			Compression.delete(file);
+		}
+		configManager.getAttributeCache().invalidate(companion);
+		configManager.getHotCache().invalidate(file);
+	}
+
+	/**
+	 * Send bytes to a client that may have left.
+	 *
+	 * @param client the output of the client or null
+	 * @param buf    bytes
+	 * @param count  number of bytes
+	 * @param file   the file being downloaded
+	 * @return the output of the client or null if the client has left
+	 */
+	private OutputStream send(final OutputStream client, final byte[] buf, final int count, final File file) {
+		if (client != null && count > 0) {
+			try {
+				client.write(buf, 0, count);
+			} catch (IOException ex) {
+				configManager.getLogger().log(Level.FINE, "the client has left, continue to cache {0}", file);
+				return null;
+			}
+		}
+		return client;
+	}
+
+	/**
+	 * Display a list of items.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @param cb   callback
+	 * @throws IOException if an error occurs
+	 * @throws ServletException 
+	 */
+	private void list(final HttpServletRequest req, final HttpServletResponse resp, final ListCallback cb)
+			throws IOException, ServletException {
+		req.setAttribute("cb", cb);
+		String path = req.getPathInfo();
+		if (path == null || path.isEmpty()) {
+			path = "/";
+		}
+		req.setAttribute("title", "Index of " + path);
+		CachePolicy.applyListing(resp);
+		int threshold = configManager.getGzipThreshold();
+		if (threshold < 0) {
+			super.doGet(req, resp);
+			return;
+		}
+		resp.addHeader("Vary", "Accept-Encoding");
+		if (!Compression.acceptsGzip(req.getHeader("Accept-Encoding"))) {
+			super.doGet(req, resp);
+			return;
+		}
+		// the size is estimated before rendering so that the page is streamed
+		if ((long) LISTING_PAGE_SIZE + (long) cb.getRowCount() * LISTING_ROW_SIZE < threshold) {
+			super.doGet(req, resp);
+			return;
+		}
+		resp.setHeader("Content-Encoding", "gzip");
+		GzipResponse gzip = new GzipResponse(resp);
+		super.doGet(req, gzip);
+		gzip.finish();
+	}
+
+	/**
+	 * Get the type of resource.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @param repo repository
+	 * @param path relative path
+	 * @param local true for looking up the local files only
+	 * @return the local resource or null if the resource must be retrieved
+	 *         from a remote location in local mode
+	 * @throws IOException if an i/o error occurs
+	 */
+	@SuppressWarnings("unchecked")
+	private ContentResult getType(final HttpServletRequest req, final HttpServletResponse resp, final Repository repo,
+			final String path, final boolean local) throws IOException {
+		ContentResult result = new ContentResult();
+		if (isVirtual(repo)) {
+			// the parallel lookups cannot write in the response
+			final HttpServletResponse out = repo.isParallelResolution() ? null : resp;
+			List<Callable<ContentResult>> members = new ArrayList<Callable<ContentResult>>();
+			for (String r : repo.getIncludes()) {
+				final Repository member = configManager.getRepository(r);
+				members.add(() -> getType(req, out, member, path, local));
+			}
+			return resolver.resolve(members, repo.isParallelResolution());
+		} else {
+			File file = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
+			PathAttributes attributes = configManager.getAttributeCache().get(file);
+			if (attributes.isExists()) {
+				if (attributes.isDirectory()) {
+					result.setChildren(attributes.getChildren());
+					if (repo.getRemote() != null) {
+						PathAttributes listing = configManager.getAttributeCache()
+								.get(new File(file, RemoteListing.FILE_NAME));
+						if (listing.isExists() && (repo.getArtifactMaxAge() == -1
+								|| (System.currentTimeMillis() - listing.getLastModified()) <= repo.getArtifactMaxAge())) {
+							result.setListing(RemoteListing.read(file));
+						} else if (local) {
+							return null;
+						} else {
+							return refreshListing(req, resp, repo, path, result);
+						}
+					}
+				} else if (repo.getArtifactMaxAge() == -1
+						|| (System.currentTimeMillis() - attributes.getLastModified()) <= repo.getArtifactMaxAge()) {
+					result.setFile(file);
+					result.setAttributes(attributes);
+				} else if (local) {
+					return null;
+				} else {
+					return getRemote(req, resp, repo, path, true, file);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Retrieve the listing of a remote folder. The previous listing is kept if
+	 * the remote folder cannot be listed.
+	 *
+	 * @param req    request
+	 * @param resp   response
+	 * @param repo   repository
+	 * @param path   path of the folder
+	 * @param result the local folder
+	 * @return the folder
+	 */
+	private ContentResult refreshListing(final HttpServletRequest req, final HttpServletResponse resp,
+			final Repository repo, final String path, final ContentResult result) {
+		try {
+			ContentResult remote = getRemote(req, resp, repo, path, true, null);
+			if (remote.getListing() != null) {
+				return remote;
+			}
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot list " + repo.getName() + "/" + path, ex);
+		}
+		File dir = new File(configManager.getRoot(), repo.getName() + File.separatorChar + path);
+		result.setListing(RemoteListing.read(dir));
+		return result;
+	}
+
+	/**
+	 * Check if a repository can retrieve resources from a remote location.
+	 *
+	 * @param repo repository
+	 * @return true if the repository or one of its included repositories is a
+	 *         proxy
+	 */
+	private boolean hasRemote(final Repository repo) {
+		if (repo.getRemote() != null) {
+			return true;
+		} else if (isVirtual(repo)) {
+			for (String r : repo.getIncludes()) {
+				Repository member = configManager.getRepository(r);
+				if (member != null && hasRemote(member)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if a repository is a virtual repository.
+	 *
+	 * @param repo repository
+	 * @return true if the repository is virtual
+	 */
+	private boolean isVirtual(final Repository repo) {
+		return repo.getIncludes() != null && !repo.getIncludes().isEmpty();
+	}
+
+	/**
+	 * Get a repository with the request path.
+	 *
+	 * @param path request path
+	 * @return null or a repository
+	 */
+	private Repository checkPath(final String path) {
+		int n = path.indexOf('/');
+		if (n == -1) {
+			return null;
+		} else {
+			return configManager.getRepository(path.substring(0, n));
+		}
+	}
+
+	/**
+	 * Upload a file. The bytes are written in a temporary file next to the
+	 * target and the temporary file replaces the target when the upload is
+	 * complete, so the readers never see a partial file. The digests are
+	 * computed while the bytes are received: the upload is rejected if they do
+	 * not match the digests sent by the client in the X-Checksum headers or, for
+	 * a checksum file, the digest of the file it describes. The checksum files
+	 * of an uploaded file are generated. The old snapshots are removed in the
+	 * background. A bundle of files is deployed with a PUT on a directory.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @throws ServletException if an error occurs
+	 * @throws IOException      if an error occurs
+	 */
+	@Override
+	protected final void doPut(final HttpServletRequest req, final HttpServletResponse resp)
+			throws ServletException, IOException {
 		String path = req.getPathInfo().substring(1);
 		Repository repo = checkPath(path);
 		if (repo == null) {
 			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
 			return;
 		}
+		if (path.endsWith("/")) {
+			deployBundle(req, resp, repo, path);
+			return;
+		}
 		File file = new File(configManager.getRoot(), path);
 		File parent = file.getParentFile();
 		if (parent.mkdirs()) {
 			configManager.getLogger().log(Level.FINE, "create directory {0}", file);
 		}
+		configManager.getNegativeCache().remove(path);
 
+		// the body is received before taking the lock
+		File part = Files.createTempFile(parent.toPath(), "." + file.getName() + ".", ".upload").toFile();
 		OutputStream fout = null;
+		String extension = Sidecars.getExtension(file.getName());
+		// a checksum file is digested only if the client sends its digests
+		Checksummer checksummer = extension == null || hasChecksumHeaders(req) ? new Checksummer() : null;
 		try {
-			fout = new FileOutputStream(file);
-			Io.copy(req.getInputStream(), fout);
+			fout = new FileOutputStream(part);
+			if (checksummer == null) {
+				fileSender.copy(req.getInputStream(), fout);
+			} else {
+				fileSender.copy(req.getInputStream(), fout, checksummer);
+			}
+			fout.close();
+			Checksums checksums = checksummer == null ? null : checksummer.finish(0);
+			String error = verify(req, checksums, part, file, extension);
+			if (error != null) {
+				resp.sendError(HttpServletResponse.SC_BAD_REQUEST, error);
+				return;
+			}
+			install(path, part, file, checksums);
+			scheduleCleanUp(repo, file);
 		} finally {
 			Io.close(fout);
+			if (part.exists() && !part.delete()) {
+				configManager.getLogger().log(Level.WARNING, "cannot delete {0}", part);
+			}
+		}
+	}
+
+	/**
+	 * Check if a request has a header with a digest of its content.
+	 *
+	 * @param req request
+	 * @return true if the request has a digest header
+	 */
+	private boolean hasChecksumHeaders(final HttpServletRequest req) {
+		for (String ext : Sidecars.EXTENSIONS) {
+			if (req.getHeader(Sidecars.getHeader(ext)) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check the digests of an upload.
+	 *
+	 * @param req       request
+	 * @param checksums the digests of the bytes received or null if the
+	 *                  request has no digest header
+	 * @param part      the bytes received
+	 * @param file      the uploaded file
+	 * @param extension the extension of the checksum file or null if the
+	 *                  uploaded file is not a checksum file
+	 * @return the error or null if the digests match
+	 * @throws IOException if an error occurs
+	 */
+	private String verify(final HttpServletRequest req, final Checksums checksums, final File part,
+			final File file, final String extension) throws IOException {
+		for (String ext : Sidecars.EXTENSIONS) {
+			String header = Sidecars.getHeader(ext);
+			String expected = req.getHeader(header);
+			if (expected != null && !expected.trim().equalsIgnoreCase(Sidecars.getDigest(checksums, ext))) {
+				return header + " does not match the content";
+			}
+		}
+		return extension == null ? null : verifySidecar(part, file, extension);
+	}
+
+	/**
+	 * Check an uploaded checksum file against the digest of the file it
+	 * describes.
+	 *
+	 * @param part      the bytes received
+	 * @param file      the uploaded checksum file
+	 * @param extension the extension of the checksum file
+	 * @return the error or null if the digests match or the described file is
+	 *         unknown
+	 * @throws IOException if an error occurs
+	 */
+	private String verifySidecar(final File part, final File file, final String extension) throws IOException {
+		String name = file.getName();
+		File target = new File(file.getParentFile(), name.substring(0, name.length() - extension.length() - 1));
+		PathAttributes attributes = configManager.getAttributeCache().get(target);
+		if (!attributes.isExists() || attributes.isDirectory()) {
+			return null;
+		}
+		Checksums targetChecksums = configManager.getAttributeCache().getChecksums(target, attributes);
+		String digest = targetChecksums == null ? null : Sidecars.getDigest(targetChecksums, extension);
+		if (digest != null && !digest.equals(Sidecars.read(part))) {
+			return "the " + extension + " does not match " + target.getName();
+		}
+		return null;
+	}
+
+	/**
+	 * Publish an uploaded file and update its companion files. The uploads of
+	 * the same path are serialized.
+	 *
+	 * @param path      the path of the file
+	 * @param part      the bytes received
+	 * @param file      the uploaded file
+	 * @param checksums the digests of the bytes received or null if they are
+	 *                  not computed
+	 * @throws IOException if the file cannot be published
+	 */
+	private void install(final String path, final File part, final File file, final Checksums checksums)
+			throws IOException {
+		Lock lock = uploadLocks.get(path);
+		lock.lock();
+		try {
+			File blob = getBlob(file);
+			publish(part, file);
+			scheduleBlobRelease(blob);
+			if (checksums == null) {
+				ChecksumStore.delete(file);
+			} else {
+				dedupe(file, checksums);
+			}
+			configManager.getAttributeCache().invalidate(file);
+			configManager.getHotCache().invalidate(file);
+			configManager.getMergedMetadataCache().invalidate(file);
+			if (checksums != null) {
+				checksums.setLastModified(file.lastModified());
+				writeChecksums(file, checksums);
+			}
+			compress(file);
+			if (Sidecars.getExtension(file.getName()) == null) {
+				writeSidecars(path, file, checksums);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the old snapshots in the background after an upload of the
+	 * maven-metadata.xml of a snapshot version.
+	 *
+	 * @param repo the repository
+	 * @param file the uploaded file
+	 */
+	private void scheduleCleanUp(final Repository repo, final File file) {
+		File parent = file.getParentFile();
+		if (file.getName().equals(MAVEN_METADATA) && parent.getName().endsWith("-SNAPSHOT")) {
+			// the deploys of the modules of a project clean up a directory once
+			configManager.getCleanUpScheduler().schedule(parent.getPath(),
+					() -> CleanUp.cleanUpSnapshots(file, configManager, repo, this));
+		}
+	}
+
+	/**
+	 * Get the blob of a file that is about to be replaced.
+	 *
+	 * @param file file
+	 * @return the blob or null if the file is not linked to a blob
+	 */
+	private File getBlob(final File file) {
+		return configManager.getBlobStore() == null ? null : ChecksumStore.getBlob(file);
+	}
+
+	/**
+	 * Remove in the background a blob released by the replacement of a file,
+	 * if no other file is linked to it.
+	 *
+	 * @param blob the blob or null
+	 */
+	private void scheduleBlobRelease(final File blob) {
+		BlobStore blobStore = configManager.getBlobStore();
+		if (blob != null && blobStore != null) {
+			configManager.getCleanUpScheduler().schedule(blob.getPath(), () -> blobStore.release(blob));
+		}
+	}
+
+	/**
+	 * Store a file that has just been written once, if the identical files are
+	 * stored once. The file is kept as is if it cannot be linked to its blob.
+	 *
+	 * @param file      file
+	 * @param checksums the digests of the file
+	 */
+	private void dedupe(final File file, final Checksums checksums) {
+		BlobStore blobStore = configManager.getBlobStore();
+		if (blobStore == null) {
+			return;
+		}
+		try {
+			if (blobStore.store(file, checksums)) {
+				configManager.getLogger().log(Level.FINE, "link {0} to its blob", file);
+			}
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot store the blob of " + file, ex);
+		}
+	}
+
+	/**
+	 * Deploy a zip, tar or tar.gz bundle of a repository layout in a
+	 * directory. The files are extracted in a hidden staging directory of the
+	 * repository and are published only if all the checksum files of the
+	 * bundle match. The artifacts are published before their checksum files
+	 * and the maven-metadata.xml files are published last, so a client never
+	 * sees a metadata that references a missing file. The old snapshots are
+	 * removed once after the bundle is published. The paths of the published
+	 * files are sent in a text/plain response, with a 500 status if the
+	 * publication stopped on an error.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @param repo the repository
+	 * @param base the directory of the bundle, ending with a slash
+	 * @throws IOException if an error occurs
+	 */
+	private void deployBundle(final HttpServletRequest req, final HttpServletResponse resp, final Repository repo,
+			final String base) throws IOException {
+		if (RepositoryPaths.normalize(base.substring(0, base.length() - 1)) == null) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		// the staging directory is hidden and is on the file system of the
+		// repository, so the files are moved atomically
+		File root = new File(configManager.getRoot(), repo.getName());
+		if (root.mkdirs()) {
+			configManager.getLogger().log(Level.FINE, "create directory {0}", root);
+		}
+		File staging = Files.createTempDirectory(root.toPath(), ".bundle-").toFile();
+		try {
+			Map<String, BundleEntry> entries;
+			try {
+				entries = new BundleExtractor(staging, configManager.getBundleExecutor(), BATCH_PARALLELISM,
+						MAX_BUNDLE_ENTRIES, MAX_BUNDLE_BYTES).extract(req.getInputStream());
+			} catch (IllegalArgumentException ex) {
+				resp.sendError(HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+				return;
+			}
+			String error = verifyBundle(base, entries);
+			if (error != null) {
+				resp.sendError(HttpServletResponse.SC_BAD_REQUEST, error);
+				return;
+			}
+			List<List<BundleEntry>> groups = new ArrayList<List<BundleEntry>>();
+			for (int i = 0; i < 4; i++) {
+				groups.add(new ArrayList<BundleEntry>());
+			}
+			for (BundleEntry entry : entries.values()) {
+				groups.get(getPublicationRank(entry.getPath())).add(entry);
+			}
+			List<String> published = Collections.synchronizedList(new ArrayList<String>(entries.size()));
+			try {
+				publishBundle(base, groups, published);
+			} catch (IOException ex) {
+				// the files already published stay, the client is told which ones
+				configManager.getLogger().log(Level.WARNING, "cannot deploy the bundle in " + base, ex);
+				resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			}
+			resp.setContentType("text/plain");
+			resp.setCharacterEncoding("UTF-8");
+			PrintWriter writer = resp.getWriter();
+			for (String path : published) {
+				scheduleCleanUp(repo, new File(configManager.getRoot(), path));
+				writer.println(path);
+			}
+		} finally {
+			if (!Io.delete(staging)) {
+				configManager.getLogger().log(Level.WARNING, "cannot delete {0}", staging);
+			}
+		}
+	}
+
+	/**
+	 * Publish the files of a bundle, one group after the other.
+	 *
+	 * @param base      the directory of the bundle
+	 * @param groups    the files of the bundle by publication rank
+	 * @param published the paths of the files published, in publication order
+	 * @throws IOException if a file cannot be published, the next files are
+	 *                     not published
+	 */
+	private void publishBundle(final String base, final List<List<BundleEntry>> groups,
+			final List<String> published) throws IOException {
+		for (List<BundleEntry> group : groups) {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(group.size());
+			for (BundleEntry entry : group) {
+				tasks.add(() -> {
+					String path = base + entry.getPath();
+					File file = new File(configManager.getRoot(), path);
+					File parent = file.getParentFile();
+					if (!parent.mkdirs() && !parent.isDirectory()) {
+						throw new IOException("cannot create " + parent);
+					}
+					configManager.getNegativeCache().remove(path);
+					install(path, entry.getFile(), file, entry.getChecksums());
+					published.add(path);
+					return null;
+				});
+			}
+			ParallelTasks.run(configManager.getBundleExecutor(), tasks, BATCH_PARALLELISM);
+		}
+	}
+
+	/**
+	 * Check the checksum files of a bundle against the digests of the files
+	 * they describe, in the bundle or in the repository.
+	 *
+	 * @param base    the directory of the bundle
+	 * @param entries the files of the bundle
+	 * @return the error or null if the digests match
+	 * @throws IOException if an error occurs
+	 */
+	private String verifyBundle(final String base, final Map<String, BundleEntry> entries) throws IOException {
+		for (BundleEntry entry : entries.values()) {
+			String extension = Sidecars.getExtension(entry.getPath());
+			if (extension == null) {
+				continue;
+			}
+			String targetPath = entry.getPath().substring(0, entry.getPath().length() - extension.length() - 1);
+			BundleEntry target = entries.get(targetPath);
+			if (target == null) {
+				String error = verifySidecar(entry.getFile(), new File(configManager.getRoot(), base + entry.getPath()),
+						extension);
+				if (error != null) {
+					return error;
+				}
+			} else if (target.getChecksums() != null
+					&& !Sidecars.getDigest(target.getChecksums(), extension).equals(Sidecars.read(entry.getFile()))) {
+				return "the " + extension + " does not match " + targetPath;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the publication order of a file of a bundle: the artifacts, their
+	 * checksum files, the maven-metadata.xml files then their checksum files.
+	 *
+	 * @param path the path of the file
+	 * @return the rank of the file, from 0 to 3
+	 */
+	private int getPublicationRank(final String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		String extension = Sidecars.getExtension(name);
+		if (extension != null) {
+			name = name.substring(0, name.length() - extension.length() - 1);
+		}
+		return (name.equals(MAVEN_METADATA) ? 2 : 0) + (extension == null ? 0 : 1);
+	}
+
+	/**
+	 * Generate the checksum files of a file that has just been uploaded. The
+	 * file is served without checksum files if they cannot be written.
+	 *
+	 * @param path      the path of the file
+	 * @param file      file
+	 * @param checksums the digests of the file
+	 */
+	private void writeSidecars(final String path, final File file, final Checksums checksums) {
+		try {
+			for (File sidecar : Sidecars.write(file, checksums)) {
+				configManager.getNegativeCache().remove(path + sidecar.getName().substring(file.getName().length()));
+				configManager.getAttributeCache().invalidate(sidecar);
+				compress(sidecar);
+			}
+		} catch (IOException ex) {
+			configManager.getLogger().log(Level.WARNING, "cannot write the checksum files of " + file, ex);
+		}
+	}
+
+	/**
+	 * Replace a file with a temporary file of the same directory.
+	 *
+	 * @param part temporary file
+	 * @param file target
+	 * @throws IOException if an error occurs
+	 */
+	private void publish(final File part, final File file) throws IOException {
+		try {
+			Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(part.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Resolve several files of a repository in one request. The body contains
+	 * one path or Maven coordinates by line, the files are sent in a
+	 * multipart/mixed response in the order of the request. Each part has the
+	 * path of the file in the Content-Location header and the status of the
+	 * file in the X-Status header.
+	 *
+	 * @param req  request
+	 * @param resp response
+	 * @throws ServletException if an error occurs
+	 * @throws IOException      if an error occurs
+	 */
+	@Override
+	protected final void doPost(final HttpServletRequest req, final HttpServletResponse resp)
+			throws ServletException, IOException {
+		String path = req.getPathInfo();
+		Repository repo = path == null || path.isEmpty() ? null : checkPath(path.substring(1));
+		if (repo == null || !path.equals("/" + repo.getName() + "/")) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		List<String> items;
+		try {
+			items = BatchRequest.parse(req.getReader(), MAX_BATCH_ITEMS);
+		} catch (IllegalArgumentException ex) {
+			resp.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, ex.getMessage());
+			return;
+		}
+		List<FutureTask<ContentResult>> tasks = new ArrayList<FutureTask<ContentResult>>(items.size());
+		for (String item : items) {
+			final String itemPath = BatchRequest.toPath(item);
+			tasks.add(itemPath == null ? null : new FutureTask<ContentResult>(() -> {
+				ContentResult result = getType(req, null, repo, itemPath, false);
+				if (result.isEmpty()) {
+					result = getRemote(req, null, repo, itemPath, false, null);
+				}
+				return result;
+			}));
+		}
+		String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong())
+				+ Long.toHexString(System.nanoTime());
+		resp.setContentType("multipart/mixed; boundary=" + boundary);
+		OutputStream out = resp.getOutputStream();
+		int submitted = 0;
+		try {
+			for (int i = 0; i < items.size(); i++) {
+				// a bounded window of items is resolved ahead of the item sent
+				for (; submitted < items.size() && submitted <= i + BATCH_PARALLELISM; submitted++) {
+					submit(tasks.get(submitted));
+				}
+				writePart(out, boundary, items.get(i), tasks.get(i));
+			}
+		} finally {
+			// the items not sent are not needed anymore if the client has left
+			for (FutureTask<ContentResult> task : tasks) {
+				if (task != null) {
+					task.cancel(false);
+				}
+			}
+		}
+		out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Start the resolution of an item of a batch. The item is resolved by the
+	 * current thread if the remote retrievals are saturated.
+	 *
+	 * @param task the resolution or null if the item is invalid
+	 */
+	private void submit(final FutureTask<ContentResult> task) {
+		if (task == null) {
+			return;
+		}
+		try {
+			configManager.getFetchExecutor().execute(task);
+		} catch (RejectedExecutionException ex) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Write an item of a batch.
+	 *
+	 * @param out      the output
+	 * @param boundary the boundary of the parts
+	 * @param item     the item asked
+	 * @param task     the resolution of the item or null if the item is
+	 *                 invalid
+	 * @throws IOException if an error occurs
+	 */
+	private void writePart(final OutputStream out, final String boundary, final String item,
+			final FutureTask<ContentResult> task) throws IOException {
+		ContentResult result = null;
+		int status = HttpServletResponse.SC_BAD_REQUEST;
+		if (task != null) {
+			try {
+				result = task.get();
+				status = result != null && (result.getFile() != null || result.getDownload() != null)
+						? HttpServletResponse.SC_OK
+						: HttpServletResponse.SC_NOT_FOUND;
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(ex.getMessage());
+			} catch (ExecutionException ex) {
+				configManager.getLogger().log(Level.WARNING, "cannot resolve " + item, ex.getCause());
+				status = HttpServletResponse.SC_BAD_GATEWAY;
+			}
+		}
+		// the file is opened first so that the length sent is the length of the opened file
+		FileChannel channel = null;
+		if (status == HttpServletResponse.SC_OK && result.getFile() != null) {
+			try {
+				channel = FileChannel.open(result.getFile().toPath(), StandardOpenOption.READ);
+			} catch (NoSuchFileException ex) {
+				status = HttpServletResponse.SC_NOT_FOUND;
+			}
+		}
+		StringBuilder headers = new StringBuilder();
+		headers.append("\r\n--").append(boundary).append("\r\nContent-Location: ").append(item)
+				.append("\r\nX-Status: ").append(status).append("\r\n");
+		if (status != HttpServletResponse.SC_OK) {
+			headers.append("Content-Length: 0\r\n\r\n");
+			out.write(headers.toString().getBytes(StandardCharsets.UTF_8));
+		} else if (channel != null) {
+			try {
+				File file = result.getFile();
+				long size = channel.size();
+				PathAttributes attributes = result.getAttributes() == null
+						? configManager.getAttributeCache().get(file)
+						: result.getAttributes();
+				if (attributes.getSize() != size) {
+					// the file has been replaced since its attributes were read
+					configManager.getAttributeCache().invalidate(file);
+					attributes = configManager.getAttributeCache().get(file);
+				}
+				headers.append("Content-Type: ").append(getMimeType(file)).append("\r\nContent-Length: ")
+						.append(size).append("\r\nLast-Modified: ")
+						.append(DateTimeFormatter.RFC_1123_DATE_TIME.format(
+								Instant.ofEpochMilli(attributes.getLastModified()).atZone(ZoneOffset.UTC)))
+						.append("\r\n");
+				Checksums checksums = attributes.getSize() == size
+						? configManager.getAttributeCache().getChecksums(file, attributes)
+						: null;
+				if (checksums != null) {
+					headers.append("ETag: ").append(checksums.getETag()).append("\r\nX-Checksum-Sha1: ")
+							.append(checksums.getSha1()).append("\r\n");
+				}
+				out.write(headers.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+				fileSender.write(channel, 0, size, out);
+			} finally {
+				Io.close(channel);
+			}
+		} else {
+			InflightDownload download = result.getDownload();
+			headers.append("Content-Type: ").append(getMimeType(download.getTarget())).append("\r\n");
+			if (download.getLength() >= 0) {
+				headers.append("Content-Length: ").append(download.getLength()).append("\r\n");
+			}
+			out.write(headers.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+			InputStream in = download.openStream();
+			try {
+				fileSender.copy(in, out);
+			} finally {
+				Io.close(in);
+			}
+		}
+	}
+
+	/**
+	 * A request used outside of the thread of the container. The paths are
+	 * copied because the container may reset them when the thread of the
+	 * container leaves the servlet.
+	 */
+	private static final class AsyncRequest extends HttpServletRequestWrapper {
+
+		/**
+		 * The servlet context.
+		 */
+		private final ServletContext servletContext;
+		/**
+		 * The context path.
+		 */
+		private final String contextPath;
+		/**
+		 * The servlet path.
+		 */
+		private final String servletPath;
+		/**
+		 * The path info.
+		 */
+		private final String pathInfo;
+
+		/**
+		 * Create an AsyncRequest.
+		 *
+		 * @param req request
+		 */
+		AsyncRequest(final HttpServletRequest req) {
+			super(req);
+			servletContext = req.getServletContext();
+			contextPath = req.getContextPath();
+			servletPath = req.getServletPath();
+			pathInfo = req.getPathInfo();
+		}
+
+		@Override
+		public ServletContext getServletContext() {
+			return servletContext;
+		}
+
+		@Override
+		public String getContextPath() {
+			return contextPath;
 		}
-		if (file.getName().equals("maven-metadata.xml") && parent.getName().endsWith("-SNAPSHOT")) {
-			CleanUp.cleanUpSnapshots(file, configManager, repo, this);
+
+		@Override
+		public String getServletPath() {
+			return servletPath;
+		}
+
+		@Override
+		public String getPathInfo() {
+			return pathInfo;
+		}
+	}
+
+	/**
+	 * A response whose text is compressed while it is written.
+	 */
+	private static final class GzipResponse extends HttpServletResponseWrapper {
+
+		/**
+		 * The compressed output.
+		 */
+		private GZIPOutputStream gzip;
+		/**
+		 * The writer of the text.
+		 */
+		private PrintWriter writer;
+
+		/**
+		 * Create a GzipResponse.
+		 *
+		 * @param resp response
+		 */
+		GzipResponse(final HttpServletResponse resp) {
+			super(resp);
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				gzip = new GZIPOutputStream(getResponse().getOutputStream(), BUFFER_SIZE);
+				writer = new PrintWriter(new OutputStreamWriter(gzip, getCharacterEncoding()));
+			}
+			return writer;
+		}
+
+		/**
+		 * Write the end of the compressed text.
+		 *
+		 * @throws IOException if an i/o error occurs
+		 */
+		void finish() throws IOException {
+			if (writer != null) {
+				writer.flush();
+				gzip.finish();
+			}
 		}
 	}
 
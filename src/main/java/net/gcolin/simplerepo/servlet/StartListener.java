@@ -45,6 +45,7 @@ public class StartListener
 
   @Override
   public void contextDestroyed(ServletContextEvent sce) {
+    configManager.close();
     JmxUtil.unpublish(configManager.getConfigurationJmxName());
     for (Repository repository : configManager.getConfiguration().getRepositories()) {
       JmxUtil.unpublish(configManager.getRepositoryJmxName(repository));
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read the items of a batch resolution. Each line is a path in the repository
+ * or Maven coordinates
+ * (<code>groupId:artifactId[:packaging[:classifier]]:version</code>). The
+ * empty lines and the lines starting with # are ignored.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class BatchRequest {
+
+    /**
+     * Utility class.
+     */
+    private BatchRequest() {
+    }
+
+    /**
+     * Read the items.
+     *
+     * @param reader   the body of the request
+     * @param maxItems the maximum number of items
+     * @return the items
+     * @throws IOException              if an i/o error occurs
+     * @throws IllegalArgumentException if there are too many items
+     */
+    public static List<String> parse(final BufferedReader reader, final int maxItems) throws IOException {
+        List<String> items = new ArrayList<String>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String item = line.trim();
+            if (item.isEmpty() || item.startsWith("#")) {
+                continue;
+            }
+            if (items.size() == maxItems) {
+                throw new IllegalArgumentException("more than " + maxItems + " items");
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Get the path of an item.
+     *
+     * @param item a path or Maven coordinates
+     * @return the path in the repository or null if the item is invalid or
+     *         designates an internal file
+     */
+    public static String toPath(final String item) {
+        String path = item;
+        if (path.indexOf('/') == -1 && path.indexOf(':') != -1) {
+            path = toPath(path.split(":", -1));
+            if (path == null) {
+                return null;
+            }
+        }
+        return RepositoryPaths.normalize(path);
+    }
+
+    /**
+     * Get the path of Maven coordinates.
+     *
+     * @param parts the parts of the coordinates
+     * @return the path or null if the coordinates are invalid
+     */
+    private static String toPath(final String[] parts) {
+        if (parts.length < 3 || parts.length > 5) {
+            return null;
+        }
+        for (String part : parts) {
+            if (part.isEmpty()) {
+                return null;
+            }
+        }
+        String groupId = parts[0];
+        String artifactId = parts[1];
+        String version = parts[parts.length - 1];
+        String packaging = parts.length > 3 ? parts[2] : "jar";
+        String classifier = parts.length > 4 ? "-" + parts[3] : "";
+        return groupId.replace('.', '/') + '/' + artifactId + '/' + version + '/' + artifactId + '-' + version
+                + classifier + '.' + packaging;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.gcolin.simplerepo.model.Checksums;
+
+/**
+ * Store the bodies of the files once, in a directory of blobs named by their
+ * SHA-256. A file of a repository with the same content as a blob is replaced
+ * by a hard link to the blob, so the identical files share their disk blocks
+ * and their pages in the page cache. The files are never modified in place,
+ * so a blob never changes while it is linked. A blob without other link is
+ * not used anymore and is removed by {@link #collect()}.
+ *
+ * <p>
+ * The links of a blob share its last modification date, so a file is linked
+ * only if it has the date of the blob, as the files downloaded from the same
+ * remote file. The date of a blob is never changed, it would change the date
+ * of all its links.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BlobStore {
+
+    /**
+     * The name of the directory of the blobs in the root folder.
+     */
+    public static final String DIRECTORY = ".blobs";
+    /**
+     * The minimum size of a file stored as a blob. A smaller file does not
+     * use more than one block.
+     */
+    private static final long MIN_SIZE = 4096;
+    /**
+     * The maximum number of attempts when a blob is created or removed at the
+     * same time.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * The directory of the blobs.
+     */
+    private final File directory;
+    /**
+     * The number of files replaced by a link to an existing blob.
+     */
+    private final AtomicLong links = new AtomicLong();
+    /**
+     * The number of bytes saved by the links.
+     */
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    /**
+     * Create a BlobStore.
+     *
+     * @param directory the directory of the blobs
+     */
+    public BlobStore(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Get the blob of a content.
+     *
+     * @param sha256 the SHA-256 of the content
+     * @return the blob
+     */
+    public File getBlob(final String sha256) {
+        return new File(new File(directory, sha256.substring(0, 2)), sha256);
+    }
+
+    /**
+     * Store a file that has just been written. The file is replaced by a link
+     * to the blob of its content if the blob exists, or becomes the blob
+     * otherwise. The small files, the text files, which have a compressed
+     * copy bound to their date, and the files whose date differs from the
+     * date of the blob are not stored.
+     *
+     * @param file      the file
+     * @param checksums the digests of the file, the blob is set if the file is
+     *                  stored
+     * @return true if the file is replaced by a link to an existing blob
+     * @throws IOException if an I/O error occurs or the file system does not
+     *                     support the hard links
+     */
+    public boolean store(final File file, final Checksums checksums) throws IOException {
+        if (checksums.getSha256() == null || checksums.getSize() < MIN_SIZE
+                || Compression.isText(file.getName())) {
+            return false;
+        }
+        File blob = getBlob(checksums.getSha256());
+        File parent = blob.getParentFile();
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            // the directory can be removed by a collection
+            if (!parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("cannot create " + parent);
+            }
+            try {
+                if (!blob.exists()) {
+                    Files.createLink(blob.toPath(), file.toPath());
+                    checksums.setBlob(blob.getPath());
+                    return false;
+                }
+                if (Files.isSameFile(blob.toPath(), file.toPath())) {
+                    checksums.setBlob(blob.getPath());
+                    return false;
+                }
+                if (blob.length() != checksums.getSize()) {
+                    // the blob has been modified outside of the server
+                    Files.delete(blob.toPath());
+                    continue;
+                }
+                if (blob.lastModified() != file.lastModified()) {
+                    return false;
+                }
+                link(blob, file);
+                checksums.setBlob(blob.getPath());
+                links.incrementAndGet();
+                savedBytes.addAndGet(checksums.getSize());
+                return true;
+            } catch (FileAlreadyExistsException | NoSuchFileException ex) {
+                // the blob is created or collected at the same time
+                continue;
+            } catch (UnsupportedOperationException ex) {
+                throw new IOException("the hard links are not supported", ex);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace a file by a link to a blob.
+     *
+     * @param blob the blob
+     * @param file the file
+     * @throws IOException if an I/O error occurs
+     */
+    private void link(final File blob, final File file) throws IOException {
+        File tmp = new File(file.getParentFile(),
+                "." + file.getName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".link");
+        Files.createLink(tmp.toPath(), blob.toPath());
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Remove the blobs that are not linked by a file of a repository anymore.
+     * A blob linked again during the collection keeps its content in the new
+     * link and is created again by the next store.
+     *
+     * @return the number of bytes deleted
+     * @throws IOException if the file system does not give the number of
+     *                     links of a file
+     */
+    public long collect() throws IOException {
+        long reclaimed = 0;
+        File[] parents = directory.listFiles();
+        if (parents == null) {
+            return 0;
+        }
+        for (File parent : parents) {
+            File[] blobs = parent.listFiles();
+            if (blobs == null) {
+                continue;
+            }
+            for (File blob : blobs) {
+                reclaimed += release(blob);
+            }
+            // removed only if empty
+            parent.delete();
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Remove a blob if it is not linked by a file of a repository anymore.
+     *
+     * @param blob the blob
+     * @return the number of bytes deleted
+     * @throws IOException if the file system does not give the number of
+     *                     links of a file
+     */
+    public long release(final File blob) throws IOException {
+        try {
+            Number count = (Number) Files.getAttribute(blob.toPath(), "unix:nlink");
+            long size = blob.length();
+            if (count.intValue() <= 1 && blob.delete()) {
+                return size;
+            }
+        } catch (NoSuchFileException ex) {
+            return 0;
+        } catch (UnsupportedOperationException | IllegalArgumentException ex) {
+            throw new IOException("the number of links of a file is not supported", ex);
+        }
+        return 0;
+    }
+
+    /**
+     * Get the directory of the blobs.
+     *
+     * @return the directory of the blobs
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the number of files replaced by a link to an existing blob.
+     *
+     * @return the number of files
+     */
+    public long getLinks() {
+        return links.get();
+    }
+
+    /**
+     * Get the number of bytes saved by the links.
+     *
+     * @return the number of bytes
+     */
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import net.gcolin.simplerepo.model.BundleEntry;
+
+/**
+ * Extract a zip, tar or tar.gz bundle in a staging directory. The files of a
+ * zip are extracted in parallel, the files of a tar are extracted while the
+ * stream is read. The digests of the files are computed during the
+ * extraction, except for the checksum files.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BundleExtractor {
+
+    /**
+     * The size of the buffers.
+     */
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * The staging directory.
+     */
+    private final File staging;
+    /**
+     * The executor of the parallel extractions.
+     */
+    private final Executor executor;
+    /**
+     * The maximum number of files extracted at the same time.
+     */
+    private final int parallelism;
+    /**
+     * The maximum number of files.
+     */
+    private final int maxEntries;
+    /**
+     * The maximum number of bytes extracted.
+     */
+    private final long maxBytes;
+    /**
+     * The number of bytes extracted.
+     */
+    private final AtomicLong extracted = new AtomicLong();
+
+    /**
+     * Create a BundleExtractor.
+     *
+     * @param staging     the staging directory
+     * @param executor    the executor of the parallel extractions
+     * @param parallelism the maximum number of files extracted at the same
+     *                    time
+     * @param maxEntries  the maximum number of files
+     * @param maxBytes    the maximum number of bytes extracted and of bytes
+     *                    of a spooled zip
+     */
+    public BundleExtractor(final File staging, final Executor executor, final int parallelism,
+            final int maxEntries, final long maxBytes) {
+        this.staging = staging;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Extract a bundle.
+     *
+     * @param stream the bundle
+     * @return the files by path, in the order of the bundle
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the bundle is invalid
+     */
+    public Map<String, BundleEntry> extract(final InputStream stream) throws IOException {
+        InputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+        byte[] magic = peek(in, 2);
+        if (magic.length == 2 && magic[0] == (byte) 0x1f && magic[1] == (byte) 0x8b) {
+            in = new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        magic = peek(in, TarReader.BLOCK_SIZE);
+        try {
+            if (magic.length >= 4 && magic[0] == 'P' && magic[1] == 'K') {
+                return extractZip(in);
+            } else if (TarReader.isTar(magic, magic.length)) {
+                return extractTar(in);
+            }
+        } catch (ZipException | EOFException ex) {
+            throw new IllegalArgumentException("invalid bundle: " + ex.getMessage(), ex);
+        }
+        throw new IllegalArgumentException("the bundle is not a zip or a tar");
+    }
+
+    /**
+     * Read the first bytes of a stream without consuming them.
+     *
+     * @param in    a stream that supports mark
+     * @param count the number of bytes
+     * @return the bytes read, less than count if the stream is shorter
+     * @throws IOException if an I/O error occurs
+     */
+    private byte[] peek(final InputStream in, final int count) throws IOException {
+        byte[] buf = new byte[count];
+        in.mark(count);
+        int n = 0;
+        while (n < count) {
+            int c = in.read(buf, n, count - n);
+            if (c == -1) {
+                break;
+            }
+            n += c;
+        }
+        in.reset();
+        byte[] result = new byte[n];
+        System.arraycopy(buf, 0, result, 0, n);
+        return result;
+    }
+
+    /**
+     * Extract a zip. The zip is spooled next to the staging directory, so no
+     * entry can replace it, for reading its entries in parallel.
+     *
+     * @param in the zip
+     * @return the files by path
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<String, BundleEntry> extractZip(final InputStream in) throws IOException {
+        File spool = Files.createTempFile(staging.getParentFile().toPath(), ".bundle-", ".zip").toFile();
+        try {
+            OutputStream out = new FileOutputStream(spool);
+            try {
+                spool(in, out);
+            } finally {
+                Io.close(out);
+            }
+            ZipFile zip = new ZipFile(spool);
+            try {
+                Map<String, BundleEntry> entries = new LinkedHashMap<String, BundleEntry>();
+                List<ZipEntry> zipEntries = new ArrayList<ZipEntry>();
+                Enumeration<? extends ZipEntry> en = zip.entries();
+                while (en.hasMoreElements()) {
+                    ZipEntry zipEntry = en.nextElement();
+                    if (!zipEntry.isDirectory()) {
+                        zipEntries.add(zipEntry);
+                        entries.put(zipEntry.getName(), add(entries, zipEntry.getName()));
+                    }
+                }
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(zipEntries.size());
+                for (ZipEntry zipEntry : zipEntries) {
+                    BundleEntry entry = entries.get(zipEntry.getName());
+                    tasks.add(() -> {
+                        InputStream zin = zip.getInputStream(zipEntry);
+                        try {
+                            write(entry, zin);
+                        } finally {
+                            Io.close(zin);
+                        }
+                        return null;
+                    });
+                }
+                ParallelTasks.run(executor, tasks, parallelism);
+                return rekey(entries);
+            } finally {
+                Io.close(zip);
+            }
+        } finally {
+            if (!spool.delete()) {
+                spool.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Extract a tar.
+     *
+     * @param in the tar
+     * @return the files by path
+     * @throws IOException if an I/O error occurs
+     */
+    private Map<String, BundleEntry> extractTar(final InputStream in) throws IOException {
+        Map<String, BundleEntry> entries = new LinkedHashMap<String, BundleEntry>();
+        TarReader reader = new TarReader(in);
+        String name;
+        while ((name = reader.next()) != null) {
+            BundleEntry entry = add(entries, name);
+            entries.put(name, entry);
+            write(entry, reader.getInputStream());
+        }
+        return rekey(entries);
+    }
+
+    /**
+     * Create an entry.
+     *
+     * @param entries the entries already found
+     * @param name    the name of the entry in the bundle
+     * @return the entry
+     */
+    private BundleEntry add(final Map<String, BundleEntry> entries, final String name) {
+        String path = RepositoryPaths.normalize(name);
+        if (path == null) {
+            throw new IllegalArgumentException("invalid path in the bundle: " + name);
+        }
+        if (entries.size() >= maxEntries) {
+            throw new IllegalArgumentException("the bundle has more than " + maxEntries + " files");
+        }
+        if (entries.containsKey(name)) {
+            throw new IllegalArgumentException("duplicate path in the bundle: " + name);
+        }
+        BundleEntry entry = new BundleEntry();
+        entry.setPath(path);
+        entry.setFile(new File(staging, path));
+        return entry;
+    }
+
+    /**
+     * Index the entries by normalized path.
+     *
+     * @param entries the entries by name
+     * @return the entries by path
+     */
+    private Map<String, BundleEntry> rekey(final Map<String, BundleEntry> entries) {
+        Map<String, BundleEntry> result = new LinkedHashMap<String, BundleEntry>();
+        for (BundleEntry entry : entries.values()) {
+            if (result.put(entry.getPath(), entry) != null) {
+                throw new IllegalArgumentException("duplicate path in the bundle: " + entry.getPath());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Write a file in the staging directory.
+     *
+     * @param entry the entry
+     * @param in    the content of the entry
+     * @throws IOException if an I/O error occurs
+     */
+    private void write(final BundleEntry entry, final InputStream in) throws IOException {
+        File parent = entry.getFile().getParentFile();
+        // the directory can be created by another extraction at the same time
+        if (!parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("cannot create " + parent);
+        }
+        Checksummer checksummer = Sidecars.getExtension(entry.getPath()) == null ? new Checksummer() : null;
+        OutputStream out = new FileOutputStream(entry.getFile());
+        try {
+            byte[] buf = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                count(count);
+                out.write(buf, 0, count);
+                if (checksummer != null) {
+                    checksummer.update(buf, 0, count);
+                }
+            }
+        } finally {
+            Io.close(out);
+        }
+        if (checksummer != null) {
+            entry.setChecksums(checksummer.finish(0));
+        }
+    }
+
+    /**
+     * Spool a zip.
+     *
+     * @param in  the zip
+     * @param out the spooled zip
+     * @throws IOException              if an I/O error occurs
+     * @throws IllegalArgumentException if the zip is too large
+     */
+    private void spool(final InputStream in, final OutputStream out) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        long total = 0;
+        int count;
+        while ((count = in.read(buf)) != -1) {
+            total += count;
+            if (total > maxBytes) {
+                throw new IllegalArgumentException("the bundle has more than " + maxBytes + " bytes");
+            }
+            out.write(buf, 0, count);
+        }
+    }
+
+    /**
+     * Count bytes extracted.
+     *
+     * @param count the number of bytes
+     * @throws IllegalArgumentException if the bundle is too large
+     */
+    private void count(final int count) {
+        if (extracted.addAndGet(count) > maxBytes) {
+            throw new IllegalArgumentException("the bundle has more than " + maxBytes + " bytes");
+        }
+    }
+}
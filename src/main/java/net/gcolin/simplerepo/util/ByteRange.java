@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A range of bytes asked with the Range header.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class ByteRange implements Comparable<ByteRange> {
+
+    /**
+     * The maximum number of ranges accepted in a header. The headers with more
+     * ranges are ignored.
+     */
+    public static final int MAX_RANGES = 32;
+
+    /**
+     * The first byte.
+     */
+    private final long start;
+    /**
+     * The last byte, inclusive.
+     */
+    private final long end;
+
+    /**
+     * Create a ByteRange.
+     *
+     * @param start the first byte
+     * @param end   the last byte, inclusive
+     */
+    public ByteRange(final long start, final long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parse a Range header. The overlapping and adjacent ranges are merged and
+     * the ranges are sorted.
+     *
+     * @param header the Range header
+     * @param length the length of the content
+     * @return the ranges, an empty list if no range can be satisfied or null
+     *         if the header is invalid and must be ignored
+     */
+    public static List<ByteRange> parse(final String header, final long length) {
+        if (header == null || !header.toLowerCase(Locale.ENGLISH).startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = header.substring("bytes=".length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<ByteRange>();
+        for (String item : specs) {
+            String spec = item.trim();
+            int dash = spec.indexOf('-');
+            if (dash == -1) {
+                return null;
+            }
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix < 0) {
+                        return null;
+                    } else if (suffix > 0 && length > 0) {
+                        ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+                    }
+                } else {
+                    long first = Long.parseLong(spec.substring(0, dash).trim());
+                    String last = spec.substring(dash + 1).trim();
+                    long lastByte = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                    if (first < 0 || lastByte < first) {
+                        return null;
+                    } else if (first < length) {
+                        ranges.add(new ByteRange(first, Math.min(lastByte, length - 1)));
+                    }
+                }
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+        return coalesce(ranges);
+    }
+
+    /**
+     * Merge the overlapping and adjacent ranges.
+     *
+     * @param ranges the ranges
+     * @return the sorted and merged ranges
+     */
+    private static List<ByteRange> coalesce(final List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges);
+        List<ByteRange> merged = new ArrayList<ByteRange>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * Get the first byte.
+     *
+     * @return the first byte
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Get the last byte.
+     *
+     * @return the last byte, inclusive
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Get the number of bytes.
+     *
+     * @return the number of bytes
+     */
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Format the range as a Content-Range value.
+     *
+     * @param length the length of the content
+     * @return the Content-Range value
+     */
+    public String toContentRange(final long length) {
+        return "bytes " + start + "-" + end + "/" + length;
+    }
+
+    @Override
+    public int compareTo(final ByteRange other) {
+        return Long.compare(start, other.start);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof ByteRange)) {
+            return false;
+        }
+        ByteRange other = (ByteRange) obj;
+        return start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(end);
+    }
+}
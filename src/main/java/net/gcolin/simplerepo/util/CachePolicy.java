@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import net.gcolin.simplerepo.model.Repository;
+
+/**
+ * Tell the clients and the proxies how long they can keep a resource. The
+ * released artifacts never change, the metadata and the snapshots change and
+ * the listings are always revalidated.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class CachePolicy {
+
+    /**
+     * The max-age of the released artifacts when the repository does not
+     * define one.
+     */
+    public static final long DEFAULT_RELEASE_MAX_AGE = TimeUnit.DAYS.toMillis(365L);
+    /**
+     * The max-age of the metadata and the snapshots when neither the
+     * repository nor its artifact max age define one.
+     */
+    public static final long DEFAULT_METADATA_MAX_AGE = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Utility class.
+     */
+    private CachePolicy() {
+    }
+
+    /**
+     * Get the max-age of the released artifacts of a repository.
+     *
+     * @param repo repository
+     * @return the max-age in milliseconds
+     */
+    public static long getReleaseMaxAge(final Repository repo) {
+        return repo.getReleaseMaxAge() >= 0 ? repo.getReleaseMaxAge() : DEFAULT_RELEASE_MAX_AGE;
+    }
+
+    /**
+     * Get the max-age of the metadata and the snapshots of a repository. The
+     * artifact max age is used by default because the repository checks its
+     * remote repository with this delay.
+     *
+     * @param repo repository
+     * @return the max-age in milliseconds
+     */
+    public static long getMetadataMaxAge(final Repository repo) {
+        if (repo.getMetadataMaxAge() >= 0) {
+            return repo.getMetadataMaxAge();
+        } else if (repo.getArtifactMaxAge() >= 0) {
+            return repo.getArtifactMaxAge();
+        }
+        return DEFAULT_METADATA_MAX_AGE;
+    }
+
+    /**
+     * Check if a resource changes over time.
+     *
+     * @param path the path of the resource
+     * @return true for the metadata and the snapshots
+     */
+    public static boolean isMutable(final String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return name.startsWith("maven-metadata") || path.contains("-SNAPSHOT/");
+    }
+
+    /**
+     * Get the Cache-Control header of a file.
+     *
+     * @param repo the requested repository
+     * @param path the path of the file in the repository
+     * @return the Cache-Control header
+     */
+    public static String getCacheControl(final Repository repo, final String path) {
+        if (isMutable(path)) {
+            return getCacheControl(getMetadataMaxAge(repo), false);
+        }
+        return getCacheControl(getReleaseMaxAge(repo), true);
+    }
+
+    /**
+     * Send the Cache-Control and Expires headers of a file.
+     *
+     * @param resp response
+     * @param repo the requested repository
+     * @param path the path of the file in the repository
+     */
+    public static void apply(final HttpServletResponse resp, final Repository repo, final String path) {
+        long maxAge = isMutable(path) ? getMetadataMaxAge(repo) : getReleaseMaxAge(repo);
+        resp.setHeader("Cache-Control", getCacheControl(repo, path));
+        resp.setDateHeader("Expires", System.currentTimeMillis() + maxAge);
+    }
+
+    /**
+     * Send the Cache-Control and Expires headers of a listing.
+     *
+     * @param resp response
+     */
+    public static void applyListing(final HttpServletResponse resp) {
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setDateHeader("Expires", System.currentTimeMillis());
+    }
+
+    /**
+     * Format a Cache-Control header.
+     *
+     * @param maxAge    the max-age in milliseconds
+     * @param immutable true if the resource never changes
+     * @return the Cache-Control header
+     */
+    private static String getCacheControl(final long maxAge, final boolean immutable) {
+        if (maxAge == 0) {
+            return "no-cache";
+        }
+        String value = "max-age=" + TimeUnit.MILLISECONDS.toSeconds(maxAge);
+        return immutable ? value + ", immutable" : value;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+import net.gcolin.simplerepo.model.Checksums;
+
+/**
+ * Keep the digests of a file in a hidden file next to it.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class ChecksumStore {
+
+    /**
+     * Utility class.
+     */
+    private ChecksumStore() {
+    }
+
+    /**
+     * Get the file that contains the digests of a file.
+     *
+     * @param file file
+     * @return the metadata file
+     */
+    public static File getMetaFile(final File file) {
+        return new File(file.getParentFile(), "." + file.getName() + ".meta");
+    }
+
+    /**
+     * Read the digests of a file. The digests are ignored if the file has
+     * changed since they were computed.
+     *
+     * @param file         file
+     * @param size         the current size of the file
+     * @param lastModified the current last modification date of the file
+     * @return the digests or null
+     */
+    public static Checksums read(final File file, final long size, final long lastModified) {
+        File meta = getMetaFile(file);
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(meta)) {
+            props.load(in);
+        } catch (IOException ex) {
+            return null;
+        }
+        Checksums checksums = new Checksums();
+        checksums.setMd5(props.getProperty("md5"));
+        checksums.setSha1(props.getProperty("sha1"));
+        checksums.setSha256(props.getProperty("sha256"));
+        checksums.setSha512(props.getProperty("sha512"));
+        checksums.setBlob(props.getProperty("blob"));
+        try {
+            checksums.setSize(Long.parseLong(props.getProperty("size", "-1")));
+            checksums.setLastModified(Long.parseLong(props.getProperty("lastModified", "-1")));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (checksums.getSha1() == null || checksums.getSize() != size
+                || checksums.getLastModified() != lastModified) {
+            return null;
+        }
+        return checksums;
+    }
+
+    /**
+     * Get the blob a file is linked to.
+     *
+     * @param file file
+     * @return the blob or null if the file is not linked to a blob
+     */
+    public static File getBlob(final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Checksums checksums = read(file, file.length(), file.lastModified());
+        return checksums == null || checksums.getBlob() == null ? null : new File(checksums.getBlob());
+    }
+
+    /**
+     * Write the digests of a file.
+     *
+     * @param file      file
+     * @param checksums the digests
+     * @throws IOException if an i/o error occurs
+     */
+    public static void write(final File file, final Checksums checksums) throws IOException {
+        File meta = getMetaFile(file);
+        // the digests of the same file can be written at the same time
+        File tmp = new File(meta.getParentFile(),
+                meta.getName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".part");
+        Properties props = new Properties();
+        if (checksums.getMd5() != null) {
+            props.setProperty("md5", checksums.getMd5());
+        }
+        props.setProperty("sha1", checksums.getSha1());
+        props.setProperty("sha256", checksums.getSha256());
+        if (checksums.getSha512() != null) {
+            props.setProperty("sha512", checksums.getSha512());
+        }
+        props.setProperty("size", Long.toString(checksums.getSize()));
+        props.setProperty("lastModified", Long.toString(checksums.getLastModified()));
+        if (checksums.getBlob() != null) {
+            props.setProperty("blob", checksums.getBlob());
+        }
+        try {
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                props.store(out, null);
+            }
+            try {
+                Files.move(tmp.toPath(), meta.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), meta.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Remove the digests of a file.
+     *
+     * @param file file
+     */
+    public static void delete(final File file) {
+        File meta = getMetaFile(file);
+        if (meta.exists() && !meta.delete()) {
+            meta.deleteOnExit();
+        }
+    }
+}
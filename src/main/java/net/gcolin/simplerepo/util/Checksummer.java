@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import net.gcolin.simplerepo.model.Checksums;
+
+/**
+ * Compute the digests of a file while it is written.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class Checksummer {
+
+    /**
+     * The hexadecimal digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * The MD5 digest, null if it is not computed.
+     */
+    private final MessageDigest md5;
+    /**
+     * The SHA-1 digest.
+     */
+    private final MessageDigest sha1;
+    /**
+     * The SHA-256 digest.
+     */
+    private final MessageDigest sha256;
+    /**
+     * The SHA-512 digest, null if it is not computed.
+     */
+    private final MessageDigest sha512;
+    /**
+     * The number of bytes digested.
+     */
+    private long size;
+
+    /**
+     * Create a Checksummer computing all the digests.
+     */
+    public Checksummer() {
+        this(true);
+    }
+
+    /**
+     * Create a Checksummer.
+     *
+     * @param all true for computing all the digests, false for computing only
+     *            the SHA-1 and the SHA-256 that identify the file
+     */
+    public Checksummer(final boolean all) {
+        try {
+            md5 = all ? MessageDigest.getInstance("MD5") : null;
+            sha1 = MessageDigest.getInstance("SHA-1");
+            sha256 = MessageDigest.getInstance("SHA-256");
+            sha512 = all ? MessageDigest.getInstance("SHA-512") : null;
+        } catch (NoSuchAlgorithmException ex) {
+            // MD5, SHA-1 and SHA-256 are required by the Java platform, SHA-512
+            // is provided by all the implementations
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Digest bytes.
+     *
+     * @param buf   bytes
+     * @param off   offset
+     * @param count number of bytes
+     */
+    public void update(final byte[] buf, final int off, final int count) {
+        if (md5 != null) {
+            md5.update(buf, off, count);
+            sha512.update(buf, off, count);
+        }
+        sha1.update(buf, off, count);
+        sha256.update(buf, off, count);
+        size += count;
+    }
+
+    /**
+     * Finish the digests.
+     *
+     * @param lastModified the last modification date of the file
+     * @return the digests
+     */
+    public Checksums finish(final long lastModified) {
+        Checksums checksums = new Checksums();
+        if (md5 != null) {
+            checksums.setMd5(toHex(md5.digest()));
+            checksums.setSha512(toHex(sha512.digest()));
+        }
+        checksums.setSha1(toHex(sha1.digest()));
+        checksums.setSha256(toHex(sha256.digest()));
+        checksums.setSize(size);
+        checksums.setLastModified(lastModified);
+        return checksums;
+    }
+
+    /**
+     * Convert bytes to hexadecimal.
+     *
+     * @param bytes bytes
+     * @return the hexadecimal value
+     */
+    public static String toHex(final byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Execute the clean up tasks in the background. The tasks are identified by a
+ * key (the directory to clean up): a task waits until no task with the same key
+ * has been requested during a delay, the requests received in the meantime
+ * replace it, and two tasks with the same key are never executed at the same
+ * time. A task requested continuously is executed anyway after
+ * {@link #MAX_DELAY_FACTOR} times the delay since its first request.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class CleanUpScheduler {
+
+    /**
+     * The maximum wait of a task, in delays since its first request.
+     */
+    public static final int MAX_DELAY_FACTOR = 10;
+    /**
+     * The executor of the tasks.
+     */
+    private final ScheduledThreadPoolExecutor executor;
+    /**
+     * The logger.
+     */
+    private final Logger logger;
+    /**
+     * The tasks waiting, by key.
+     */
+    private final Map<String, Pending> pending = new HashMap<String, Pending>();
+    /**
+     * The time in milliseconds without requests before executing a task.
+     */
+    private volatile long delay;
+    /**
+     * The number of requests.
+     */
+    private final AtomicLong requests = new AtomicLong();
+    /**
+     * The number of tasks executed.
+     */
+    private final AtomicLong runs = new AtomicLong();
+    /**
+     * The number of tasks failed.
+     */
+    private final AtomicLong failures = new AtomicLong();
+    /**
+     * The total execution time in milliseconds.
+     */
+    private final AtomicLong runTime = new AtomicLong();
+    /**
+     * The number of bytes deleted.
+     */
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+
+    /**
+     * Create a CleanUpScheduler.
+     *
+     * @param threads the maximum number of tasks executed at the same time
+     * @param delay   the time in milliseconds without requests before
+     *                executing a task
+     * @param logger  the logger
+     */
+    public CleanUpScheduler(final int threads, final long delay, final Logger logger) {
+        executor = new ScheduledThreadPoolExecutor(threads, new NamedThreadFactory("simplerepo-cleanup"));
+        this.delay = delay;
+        this.logger = logger;
+    }
+
+    /**
+     * Request a task. The task replaces the task with the same key that is not
+     * started yet.
+     *
+     * @param key  key
+     * @param task the task that returns the number of bytes deleted
+     */
+    public void schedule(final String key, final Callable<Long> task) {
+        requests.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long current = delay;
+        long deadline = now + current;
+        long latest = now + current * MAX_DELAY_FACTOR;
+        synchronized (pending) {
+            Pending p = pending.get(key);
+            if (p == null) {
+                pending.put(key, new Pending(task, deadline, latest));
+                submit(key, current);
+            } else if (p.active) {
+                // executed after the running task
+                if (p.next == null) {
+                    p.next = new Pending(task, deadline, latest);
+                } else {
+                    p.next.task = task;
+                    p.next.deadline = Math.min(deadline, p.next.latest);
+                }
+            } else {
+                // the timer checks the new deadline when it fires
+                p.task = task;
+                p.deadline = Math.min(deadline, p.latest);
+            }
+        }
+    }
+
+    /**
+     * Start the timer of a task.
+     *
+     * @param key   key
+     * @param after the time in milliseconds before checking the task
+     */
+    private void submit(final String key, final long after) {
+        try {
+            executor.schedule(() -> fire(key), after, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // the scheduler is closed
+            pending.remove(key);
+        }
+    }
+
+    /**
+     * Execute a task if its delay is elapsed.
+     *
+     * @param key key
+     */
+    private void fire(final String key) {
+        Pending p;
+        synchronized (pending) {
+            p = pending.get(key);
+            if (p == null) {
+                return;
+            }
+            long remaining = p.deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                submit(key, remaining);
+                return;
+            }
+            p.active = true;
+        }
+        Callable<Long> task = p.task;
+        long start = System.currentTimeMillis();
+        try {
+            Long bytes = task.call();
+            if (bytes != null) {
+                reclaimedBytes.addAndGet(bytes);
+            }
+        } catch (Exception ex) {
+            failures.incrementAndGet();
+            logger.log(Level.WARNING, "cannot clean up " + key, ex);
+        } finally {
+            runTime.addAndGet(System.currentTimeMillis() - start);
+            runs.incrementAndGet();
+            synchronized (pending) {
+                if (p.next == null) {
+                    pending.remove(key);
+                } else {
+                    // requested while running, executed after its own delay
+                    Pending next = p.next;
+                    pending.put(key, next);
+                    submit(key, Math.max(0, next.deadline - System.currentTimeMillis()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Change the time without requests before executing a task.
+     *
+     * @param delay the time in milliseconds
+     */
+    public void setDelay(final long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * Get the number of tasks waiting or running.
+     *
+     * @return the number of tasks
+     */
+    public int getQueueSize() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Get the number of requests.
+     *
+     * @return the number of requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of tasks executed.
+     *
+     * @return the number of tasks
+     */
+    public long getRuns() {
+        return runs.get();
+    }
+
+    /**
+     * Get the number of tasks failed.
+     *
+     * @return the number of tasks
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Get the total execution time of the tasks.
+     *
+     * @return the time in milliseconds
+     */
+    public long getRunTime() {
+        return runTime.get();
+    }
+
+    /**
+     * Get the number of bytes deleted by the tasks.
+     *
+     * @return the number of bytes
+     */
+    public long getReclaimedBytes() {
+        return reclaimedBytes.get();
+    }
+
+    /**
+     * Stop the scheduler. The tasks not started are dropped.
+     */
+    public void close() {
+        executor.shutdownNow();
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+
+    /**
+     * A task waiting.
+     */
+    private static final class Pending {
+
+        /**
+         * The last task requested.
+         */
+        private Callable<Long> task;
+        /**
+         * The time when the task can be executed.
+         */
+        private long deadline;
+        /**
+         * The time when the task is executed even if it is requested again.
+         */
+        private final long latest;
+        /**
+         * True if the task is running.
+         */
+        private boolean active;
+        /**
+         * The task requested while this task is running.
+         */
+        private Pending next;
+
+        /**
+         * Create a Pending.
+         *
+         * @param task     the task
+         * @param deadline the time when the task can be executed
+         * @param latest   the time when the task is executed even if it is
+         *                 requested again
+         */
+        Pending(final Callable<Long> task, final long deadline, final long latest) {
+            this.task = task;
+            this.deadline = deadline;
+            this.latest = latest;
+        }
+    }
+}
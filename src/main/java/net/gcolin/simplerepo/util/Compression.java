@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compress the text resources. A compressed copy of a text file is kept in a
+ * hidden file next to it and is valid while it has the date of the file.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class Compression {
+
+    /**
+     * The extensions of the text files.
+     */
+    private static final String[] TEXT_EXTENSIONS = {".xml", ".pom", ".md5", ".sha1", ".sha256", ".sha512", ".asc",
+        ".txt", ".json", ".html", ".htm", ".properties"};
+
+    /**
+     * Utility class.
+     */
+    private Compression() {
+    }
+
+    /**
+     * Check if a client accepts the gzip encoding.
+     *
+     * @param acceptEncoding the Accept-Encoding header or null
+     * @return true if the client accepts gzip
+     */
+    public static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.split(";");
+            String coding = parts[0].trim();
+            if ("gzip".equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(param.substring(2)) > 0;
+                        } catch (NumberFormatException ex) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if a file contains text.
+     *
+     * @param name the name of the file
+     * @return true if the file is worth compressing
+     */
+    public static boolean isText(final String name) {
+        String lower = name.toLowerCase(Locale.ENGLISH);
+        for (String ext : TEXT_EXTENSIONS) {
+            if (lower.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the compressed copy of a file.
+     *
+     * @param file file
+     * @return the compressed copy
+     */
+    public static File getCompanion(final File file) {
+        return new File(file.getParentFile(), "." + file.getName() + ".gz");
+    }
+
+    /**
+     * Create the compressed copy of a file, if the file is a text file of at
+     * least a size. The previous copy is removed otherwise.
+     *
+     * @param file      file
+     * @param threshold the minimum size in bytes or -1
+     * @throws IOException if an i/o error occurs
+     */
+    public static void compress(final File file, final int threshold) throws IOException {
+        long lastModified = file.lastModified();
+        if (threshold < 0 || !isText(file.getName()) || file.length() < threshold) {
+            delete(file);
+            return;
+        }
+        File companion = getCompanion(file);
+        File tmp = new File(companion.getParentFile(), companion.getName() + ".part");
+        try (InputStream in = new FileInputStream(file);
+                OutputStream out = new GZIPOutputStream(new FileOutputStream(tmp))) {
+            Io.copy(in, out);
+        }
+        if (!tmp.setLastModified(lastModified)) {
+            throw new IOException("cannot set the last modification date of " + tmp);
+        }
+        try {
+            Files.move(tmp.toPath(), companion.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), companion.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Remove the compressed copy of a file.
+     *
+     * @param file file
+     */
+    public static void delete(final File file) {
+        File companion = getCompanion(file);
+        if (companion.exists() && !companion.delete()) {
+            companion.deleteOnExit();
+        }
+    }
+}
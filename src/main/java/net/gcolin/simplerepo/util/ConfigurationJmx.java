@@ -18,6 +18,8 @@
  */
 package net.gcolin.simplerepo.util;
 
+import java.io.IOException;
+
 /**
  * Configuration JMX API.
  *
@@ -61,4 +63,353 @@ public interface ConfigurationJmx {
      */
     void setNotFoundCache(long notfoundcache);
 
+    /**
+     * Get the maximum number of remote retrievals executed at the same time.
+     *
+     * @return the maximum number of remote retrievals
+     */
+    int getFetchThreads();
+
+    /**
+     * Set the maximum number of remote retrievals executed at the same time.
+     * The retrievals that exceed this number wait in a bounded queue.
+     *
+     * @param fetchThreads the maximum number of remote retrievals
+     */
+    void setFetchThreads(int fetchThreads);
+
+    /**
+     * Get the maximum number of remote retrievals waiting for a thread.
+     *
+     * @return the maximum number of waiting remote retrievals
+     */
+    int getFetchQueueSize();
+
+    /**
+     * Set the maximum number of remote retrievals waiting for a thread. The
+     * retrievals beyond this number are answered with a 503 status.
+     *
+     * @param size the maximum number of waiting remote retrievals
+     */
+    void setFetchQueueSize(int size);
+
+    /**
+     * Get the connection timeout to a remote repository.
+     *
+     * @return the connection timeout in milliseconds
+     */
+    long getConnectTimeout();
+
+    /**
+     * Set the connection timeout to a remote repository.
+     *
+     * @param connectTimeout the connection timeout in milliseconds
+     */
+    void setConnectTimeout(long connectTimeout);
+
+    /**
+     * Get the read timeout of a remote repository.
+     *
+     * @return the read timeout in milliseconds
+     */
+    long getReadTimeout();
+
+    /**
+     * Set the read timeout of a remote repository.
+     *
+     * @param readTimeout the read timeout in milliseconds
+     */
+    void setReadTimeout(long readTimeout);
+
+    /**
+     * Get the default maximum number of connections to a remote server.
+     *
+     * @return the maximum number of connections to a remote server
+     */
+    int getMaxConnectionsPerRemote();
+
+    /**
+     * Set the default maximum number of connections to a remote server. The
+     * servers already contacted keep their value, which can be changed through
+     * their own JMX bean.
+     *
+     * @param maxConnections the maximum number of connections to a remote
+     * server
+     */
+    void setMaxConnectionsPerRemote(int maxConnections);
+
+    /**
+     * Get the maximum number of remote resources not found kept in memory.
+     *
+     * @return the maximum number of remote resources not found
+     */
+    int getNotFoundCacheSize();
+
+    /**
+     * Set the maximum number of remote resources not found kept in memory. The
+     * oldest entries are evicted first.
+     *
+     * @param size the maximum number of remote resources not found
+     */
+    void setNotFoundCacheSize(int size);
+
+    /**
+     * Check if the remote resources not found are saved when the server stops
+     * and loaded when it starts.
+     *
+     * @return true if the remote resources not found are saved
+     */
+    boolean isNotFoundSnapshot();
+
+    /**
+     * Set if the remote resources not found are saved when the server stops
+     * and loaded when it starts.
+     *
+     * @param snapshot true for saving the remote resources not found
+     */
+    void setNotFoundSnapshot(boolean snapshot);
+
+    /**
+     * Get the number of remote resources not found kept in memory.
+     *
+     * @return the number of remote resources not found
+     */
+    int getNotFoundEntries();
+
+    /**
+     * Get the number of lookups answered by the not found cache.
+     *
+     * @return the number of hits
+     */
+    long getNotFoundHits();
+
+    /**
+     * Get the number of lookups not answered by the not found cache.
+     *
+     * @return the number of misses
+     */
+    long getNotFoundMisses();
+
+    /**
+     * Forget the remote resources not found, so they are asked again.
+     */
+    void flushNotFoundCache();
+
+    /**
+     * Get the time during which the attributes of a local file are reused.
+     *
+     * @return the time in milliseconds
+     */
+    long getAttributeCacheTtl();
+
+    /**
+     * Set the time during which the attributes of a local file are reused. The
+     * server invalidates the files it writes, so this time only delays the
+     * changes made outside of the server. 0 disables the cache.
+     *
+     * @param ttl the time in milliseconds
+     */
+    void setAttributeCacheTtl(long ttl);
+
+    /**
+     * Get the maximum number of local files whose attributes are kept in
+     * memory.
+     *
+     * @return the maximum number of local files
+     */
+    int getAttributeCacheSize();
+
+    /**
+     * Set the maximum number of local files whose attributes are kept in
+     * memory.
+     *
+     * @param size the maximum number of local files
+     */
+    void setAttributeCacheSize(int size);
+
+    /**
+     * Get the minimum size of the text resources sent compressed to the
+     * clients that accept gzip.
+     *
+     * @return the size in bytes or -1 if the compression is disabled
+     */
+    int getGzipThreshold();
+
+    /**
+     * Set the minimum size of the text resources sent compressed to the
+     * clients that accept gzip. The compressed copies of the files are created
+     * when the files are deployed or downloaded.
+     *
+     * @param threshold the size in bytes or -1 for disabling the compression
+     */
+    void setGzipThreshold(int threshold);
+
+    /**
+     * Get the maximum number of bytes of the small files kept in memory.
+     *
+     * @return the number of bytes
+     */
+    long getHotCacheSize();
+
+    /**
+     * Set the maximum number of bytes of the small files kept in memory. The
+     * least recently used files are evicted first. 0 disables the cache.
+     *
+     * @param size the number of bytes
+     */
+    void setHotCacheSize(long size);
+
+    /**
+     * Get the maximum size of a file kept in memory.
+     *
+     * @return the size in bytes
+     */
+    int getHotCacheMaxFileSize();
+
+    /**
+     * Set the maximum size of a file kept in memory.
+     *
+     * @param size the size in bytes
+     */
+    void setHotCacheMaxFileSize(int size);
+
+    /**
+     * Get the number of bytes of the files kept in memory.
+     *
+     * @return the number of bytes
+     */
+    long getHotCacheBytes();
+
+    /**
+     * Get the number of files kept in memory.
+     *
+     * @return the number of files
+     */
+    int getHotCacheEntries();
+
+    /**
+     * Get the number of files sent from the memory.
+     *
+     * @return the number of hits
+     */
+    long getHotCacheHits();
+
+    /**
+     * Get the number of small files read from the disk.
+     *
+     * @return the number of misses
+     */
+    long getHotCacheMisses();
+
+    /**
+     * Get the part of the small files sent from the memory.
+     *
+     * @return the hit ratio between 0 and 1
+     */
+    double getHotCacheHitRatio();
+
+    /**
+     * Forget the files kept in memory.
+     */
+    void flushHotCache();
+
+    /**
+     * Get the time without deploy in a snapshot directory before removing its
+     * old snapshots.
+     *
+     * @return the time in milliseconds
+     */
+    long getCleanUpDelay();
+
+    /**
+     * Set the time without deploy in a snapshot directory before removing its
+     * old snapshots. The deploys received during this time are cleaned up
+     * once.
+     *
+     * @param delay the time in milliseconds
+     */
+    void setCleanUpDelay(long delay);
+
+    /**
+     * Get the number of snapshot directories waiting for a clean up or being
+     * cleaned up.
+     *
+     * @return the number of directories
+     */
+    int getCleanUpQueueSize();
+
+    /**
+     * Get the number of clean ups requested by the deploys.
+     *
+     * @return the number of requests
+     */
+    long getCleanUpRequests();
+
+    /**
+     * Get the number of clean ups executed.
+     *
+     * @return the number of clean ups
+     */
+    long getCleanUpRuns();
+
+    /**
+     * Get the number of clean ups failed.
+     *
+     * @return the number of clean ups
+     */
+    long getCleanUpFailures();
+
+    /**
+     * Get the total execution time of the clean ups.
+     *
+     * @return the time in milliseconds
+     */
+    long getCleanUpTime();
+
+    /**
+     * Get the number of bytes deleted by the clean ups.
+     *
+     * @return the number of bytes
+     */
+    long getCleanUpReclaimedBytes();
+
+    /**
+     * Check if the identical files are stored once, as hard links to blobs
+     * named by their SHA-256.
+     *
+     * @return true if the files are linked to blobs
+     */
+    boolean isBlobStore();
+
+    /**
+     * Set if the identical files are stored once. The files written before are
+     * not changed.
+     *
+     * @param blobStore true for linking the new files to blobs
+     */
+    void setBlobStore(boolean blobStore);
+
+    /**
+     * Get the number of files replaced by a link to an existing blob.
+     *
+     * @return the number of files
+     */
+    long getBlobLinks();
+
+    /**
+     * Get the number of bytes saved by the links to existing blobs.
+     *
+     * @return the number of bytes
+     */
+    long getBlobSavedBytes();
+
+    /**
+     * Remove the blobs that are not linked by a file anymore.
+     *
+     * @return the number of bytes deleted
+     * @throws IOException if the file system does not give the number of links
+     *                     of a file
+     */
+    long collectBlobs() throws IOException;
+
 }
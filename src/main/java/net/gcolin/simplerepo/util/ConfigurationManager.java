@@ -30,11 +30,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.ObjectName;
+
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -51,6 +57,28 @@ import net.gcolin.simplerepo.model.Repository;
  */
 public class ConfigurationManager implements ConfigurationJmx {
 
+	/**
+	 * The file where the remote resources not found are saved.
+	 */
+	private static final String NOT_FOUND_SNAPSHOT = "notfound.cache";
+	/**
+	 * The maximum number of snapshot clean ups executed at the same time.
+	 */
+	private static final int CLEANUP_THREADS = 2;
+	/**
+	 * The number of threads extracting and publishing the bundles.
+	 */
+	private static final int BUNDLE_THREADS = 8;
+	/**
+	 * The maximum number of bundle files waiting for a thread.
+	 */
+	private static final int BUNDLE_QUEUE_SIZE = 100;
+	/**
+	 * The maximum number of maven-metadata.xml kept for the virtual
+	 * repositories.
+	 */
+	private static final int MERGED_METADATA_ENTRIES = 1000;
+
 	private Set<String> reserved = new HashSet<String>();
 	/**
 	 * The Configuration.
@@ -77,6 +105,62 @@ public class ConfigurationManager implements ConfigurationJmx {
 
 	private Logger logger = Logger.getLogger("simplerepo");
 
+	/**
+	 * The executor of the remote retrievals.
+	 */
+	private ThreadPoolExecutor fetchExecutor;
+
+	/**
+	 * The executor of the remote retrievals that rejects the retrievals when
+	 * too many of them are waiting.
+	 */
+	private final Executor boundedFetchExecutor = task -> {
+		if (fetchExecutor.getQueue().size() >= config.getFetchQueueSize()) {
+			throw new RejectedExecutionException("too many remote retrievals are waiting");
+		}
+		fetchExecutor.execute(task);
+	};
+
+	/**
+	 * The executor of the extractions and publications of the bundles.
+	 */
+	private ThreadPoolExecutor bundleExecutor;
+
+	/**
+	 * The client of the remote repositories.
+	 */
+	private UpstreamClient upstreamClient = new UpstreamClient(this);
+
+	/**
+	 * The remote resources not found.
+	 */
+	private NegativeCache negativeCache;
+
+	/**
+	 * The attributes of the local files.
+	 */
+	private PathAttributeCache attributeCache;
+
+	/**
+	 * The contents of the small files.
+	 */
+	private HotCache hotCache;
+
+	/**
+	 * The clean up of the old snapshots.
+	 */
+	private CleanUpScheduler cleanUpScheduler;
+
+	/**
+	 * The maven-metadata.xml merged for the virtual repositories.
+	 */
+	private MergedMetadataCache mergedMetadataCache;
+
+	/**
+	 * The blobs of the files stored once.
+	 */
+	private BlobStore blobStore;
+
 	/**
 	 * Create a ConfigurationManager.
 	 *
@@ -84,6 +168,7 @@ public class ConfigurationManager implements ConfigurationJmx {
 	 */
 	public ConfigurationManager(String contextName) {
 		reserved.add("config.xml");
+		reserved.add(NOT_FOUND_SNAPSHOT);
 		this.contextName = contextName;
 		String rootPath = System.getProperty("simplerepo.root");
 		if (rootPath == null) {
@@ -105,6 +190,59 @@ public class ConfigurationManager implements ConfigurationJmx {
 				config = new Configuration();
 				config.setMaxSnapshots(((Long) o.get("maxSnapshots")).intValue());
 				config.setNotFoundCache((Long) o.get("notFoundCache"));
+				Long fetchThreads = (Long) o.get("fetchThreads");
+				if (fetchThreads != null) {
+					config.setFetchThreads(fetchThreads.intValue());
+				}
+				Long fetchQueueSize = (Long) o.get("fetchQueueSize");
+				if (fetchQueueSize != null) {
+					config.setFetchQueueSize(fetchQueueSize.intValue());
+				}
+				Long connectTimeout = (Long) o.get("connectTimeout");
+				if (connectTimeout != null) {
+					config.setConnectTimeout(connectTimeout);
+				}
+				Long readTimeout = (Long) o.get("readTimeout");
+				if (readTimeout != null) {
+					config.setReadTimeout(readTimeout);
+				}
+				Long maxConnections = (Long) o.get("maxConnectionsPerRemote");
+				if (maxConnections != null) {
+					config.setMaxConnectionsPerRemote(maxConnections.intValue());
+				}
+				Long notFoundCacheSize = (Long) o.get("notFoundCacheSize");
+				if (notFoundCacheSize != null) {
+					config.setNotFoundCacheSize(notFoundCacheSize.intValue());
+				}
+				Boolean notFoundSnapshot = (Boolean) o.get("notFoundSnapshot");
+				if (notFoundSnapshot != null) {
+					config.setNotFoundSnapshot(notFoundSnapshot);
+				}
+				Long attributeCacheTtl = (Long) o.get("attributeCacheTtl");
+				if (attributeCacheTtl != null) {
+					config.setAttributeCacheTtl(attributeCacheTtl);
+				}
+				Long attributeCacheSize = (Long) o.get("attributeCacheSize");
+				if (attributeCacheSize != null) {
+					config.setAttributeCacheSize(attributeCacheSize.intValue());
+				}
+				Long gzipThreshold = (Long) o.get("gzipThreshold");
+				if (gzipThreshold != null) {
+					config.setGzipThreshold(gzipThreshold.intValue());
+				}
+				Long hotCacheSize = (Long) o.get("hotCacheSize");
+				if (hotCacheSize != null) {
+					config.setHotCacheSize(hotCacheSize);
+				}
+				Long hotCacheMaxFileSize = (Long) o.get("hotCacheMaxFileSize");
+				if (hotCacheMaxFileSize != null) {
+					config.setHotCacheMaxFileSize(hotCacheMaxFileSize.intValue());
+				}
+				Long cleanUpDelay = (Long) o.get("cleanUpDelay");
+				if (cleanUpDelay != null) {
+					config.setCleanUpDelay(cleanUpDelay);
+				}
+				config.setBlobStore(Boolean.TRUE.equals(o.get("blobStore")));
 				JSONArray repos = (JSONArray) o.get("repositories");
 				for (Object repo : repos) {
 					JSONObject r = (JSONObject) repo;
@@ -112,6 +250,15 @@ public class ConfigurationManager implements ConfigurationJmx {
 					repository.setName((String) r.get("name"));
 					repository.setRemote((String) r.get("remote"));
 					repository.setArtifactMaxAge((Long) r.get("artifactMaxAge"));
+					repository.setParallelResolution(Boolean.TRUE.equals(r.get("parallelResolution")));
+					Long releaseMaxAge = (Long) r.get("releaseMaxAge");
+					if (releaseMaxAge != null) {
+						repository.setReleaseMaxAge(releaseMaxAge);
+					}
+					Long metadataMaxAge = (Long) r.get("metadataMaxAge");
+					if (metadataMaxAge != null) {
+						repository.setMetadataMaxAge(metadataMaxAge);
+					}
 					JSONArray includes = (JSONArray) r.get("includes");
 					if (includes != null) {
 						repository.setIncludes(new ArrayList<String>());
@@ -132,6 +279,127 @@ public class ConfigurationManager implements ConfigurationJmx {
 			handle(repo);
 		}
 		loadMap();
+		fetchExecutor = new ThreadPoolExecutor(config.getFetchThreads(), config.getFetchThreads(), 1L,
+				TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>(),
+				new NamedThreadFactory("simplerepo-fetch"));
+		fetchExecutor.allowCoreThreadTimeOut(true);
+		bundleExecutor = new ThreadPoolExecutor(BUNDLE_THREADS, BUNDLE_THREADS, 1L, TimeUnit.MINUTES,
+				new LinkedBlockingQueue<Runnable>(BUNDLE_QUEUE_SIZE), new NamedThreadFactory("simplerepo-bundle"));
+		bundleExecutor.allowCoreThreadTimeOut(true);
+		negativeCache = new NegativeCache(config.getNotFoundCacheSize());
+		attributeCache = new PathAttributeCache(config.getAttributeCacheSize(), config.getAttributeCacheTtl());
+		hotCache = new HotCache(config.getHotCacheSize(), config.getHotCacheMaxFileSize());
+		mergedMetadataCache = new MergedMetadataCache(attributeCache, MERGED_METADATA_ENTRIES);
+		cleanUpScheduler = new CleanUpScheduler(CLEANUP_THREADS, config.getCleanUpDelay(), logger);
+		blobStore = new BlobStore(new File(root, BlobStore.DIRECTORY));
+		if (config.isNotFoundSnapshot()) {
+			File snapshot = new File(root, NOT_FOUND_SNAPSHOT);
+			try {
+				negativeCache.load(snapshot, config.getNotFoundCache());
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "cannot load " + snapshot, e);
+			}
+		}
+	}
+
+	/**
+	 * Stop the background tasks.
+	 */
+	public void close() {
+		fetchExecutor.shutdownNow();
+		bundleExecutor.shutdownNow();
+		cleanUpScheduler.close();
+		upstreamClient.close();
+		if (config.isNotFoundSnapshot()) {
+			File snapshot = new File(root, NOT_FOUND_SNAPSHOT);
+			try {
+				negativeCache.save(snapshot);
+			} catch (IOException e) {
+				logger.log(Level.WARNING, "cannot save " + snapshot, e);
+			}
+		}
+	}
+
+	/**
+	 * Get the remote resources not found.
+	 *
+	 * @return the remote resources not found
+	 */
+	public NegativeCache getNegativeCache() {
+		return negativeCache;
+	}
+
+	/**
+	 * Get the attributes of the local files.
+	 *
+	 * @return the attributes of the local files
+	 */
+	public PathAttributeCache getAttributeCache() {
+		return attributeCache;
+	}
+
+	/**
+	 * Get the contents of the small files.
+	 *
+	 * @return the contents of the small files
+	 */
+	public HotCache getHotCache() {
+		return hotCache;
+	}
+
+	/**
+	 * Get the clean up of the old snapshots.
+	 *
+	 * @return the clean up of the old snapshots
+	 */
+	public CleanUpScheduler getCleanUpScheduler() {
+		return cleanUpScheduler;
+	}
+
+	/**
+	 * Get the maven-metadata.xml merged for the virtual repositories.
+	 *
+	 * @return the maven-metadata.xml merged for the virtual repositories
+	 */
+	public MergedMetadataCache getMergedMetadataCache() {
+		return mergedMetadataCache;
+	}
+
+	/**
+	 * Get the blobs of the files stored once.
+	 *
+	 * @return the blobs or null if the identical files are not stored once
+	 */
+	public BlobStore getBlobStore() {
+		return config.isBlobStore() ? blobStore : null;
+	}
+
+	/**
+	 * Get the client of the remote repositories.
+	 *
+	 * @return the client of the remote repositories
+	 */
+	public UpstreamClient getUpstreamClient() {
+		return upstreamClient;
+	}
+
+	/**
+	 * Get the executor of the remote retrievals.
+	 *
+	 * @return the executor of the remote retrievals
+	 */
+	public Executor getFetchExecutor() {
+		return boundedFetchExecutor;
+	}
+
+	/**
+	 * Get the executor of the extractions and publications of the bundles.
+	 * The tasks rejected when it is saturated are run by the caller.
+	 *
+	 * @return the executor of the bundles
+	 */
+	public Executor getBundleExecutor() {
+		return bundleExecutor;
 	}
 
 	public Logger getLogger() {
@@ -169,6 +437,20 @@ public class ConfigurationManager implements ConfigurationJmx {
 		}
 	}
 
+	/**
+	 * Get the JMX name of the connections to a remote server.
+	 *
+	 * @param server the protocol, the host and the port of the remote server
+	 * @return the JMX name of the connections to a remote server
+	 */
+	public String getUpstreamJmxName(String server) {
+		if (contextName == null) {
+			return "net.gcolin.simplerepo:type=Upstream,name=" + ObjectName.quote(server);
+		} else {
+			return "net.gcolin.simplerepo:ctx=" + contextName + ",type=Upstream,name=" + ObjectName.quote(server);
+		}
+	}
+
 	/**
 	 * Re index the repositories.
 	 */
@@ -238,6 +520,20 @@ public class ConfigurationManager implements ConfigurationJmx {
 			JSONObject o = new JSONObject();
 			o.put("maxSnapshots", config.getMaxSnapshots());
 			o.put("notFoundCache", config.getNotFoundCache());
+			o.put("fetchThreads", config.getFetchThreads());
+			o.put("fetchQueueSize", config.getFetchQueueSize());
+			o.put("connectTimeout", config.getConnectTimeout());
+			o.put("readTimeout", config.getReadTimeout());
+			o.put("maxConnectionsPerRemote", config.getMaxConnectionsPerRemote());
+			o.put("notFoundCacheSize", config.getNotFoundCacheSize());
+			o.put("notFoundSnapshot", config.isNotFoundSnapshot());
+			o.put("attributeCacheTtl", config.getAttributeCacheTtl());
+			o.put("attributeCacheSize", config.getAttributeCacheSize());
+			o.put("gzipThreshold", config.getGzipThreshold());
+			o.put("hotCacheSize", config.getHotCacheSize());
+			o.put("hotCacheMaxFileSize", config.getHotCacheMaxFileSize());
+			o.put("cleanUpDelay", config.getCleanUpDelay());
+			o.put("blobStore", config.isBlobStore());
 			JSONArray repos = new JSONArray();
 			for (Repository r : config.getRepositories()) {
 				JSONObject repo = new JSONObject();
@@ -245,6 +541,9 @@ public class ConfigurationManager implements ConfigurationJmx {
 				repo.put("remote", r.getRemote());
 				repo.put("includes", r.getIncludes());
 				repo.put("artifactMaxAge", r.getArtifactMaxAge());
+				repo.put("parallelResolution", r.isParallelResolution());
+				repo.put("releaseMaxAge", r.getReleaseMaxAge());
+				repo.put("metadataMaxAge", r.getMetadataMaxAge());
 				repos.add(repo);
 			}
 			o.put("repositories", repos);
@@ -338,6 +637,371 @@ public class ConfigurationManager implements ConfigurationJmx {
 		}
 	}
 
+	@Override
+	public int getFetchThreads() {
+		return config.getFetchThreads();
+	}
+
+	@Override
+	public void setFetchThreads(int fetchThreads) {
+		if (fetchThreads <= 0) {
+			throw new IllegalArgumentException("The number of threads must be positive");
+		}
+		lock.lock();
+		try {
+			config.setFetchThreads(fetchThreads);
+			if (fetchThreads > fetchExecutor.getMaximumPoolSize()) {
+				fetchExecutor.setMaximumPoolSize(fetchThreads);
+				fetchExecutor.setCorePoolSize(fetchThreads);
+			} else {
+				fetchExecutor.setCorePoolSize(fetchThreads);
+				fetchExecutor.setMaximumPoolSize(fetchThreads);
+			}
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getFetchQueueSize() {
+		return config.getFetchQueueSize();
+	}
+
+	@Override
+	public void setFetchQueueSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size of the queue cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setFetchQueueSize(size);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public long getConnectTimeout() {
+		return config.getConnectTimeout();
+	}
+
+	@Override
+	public void setConnectTimeout(long connectTimeout) {
+		lock.lock();
+		try {
+			config.setConnectTimeout(connectTimeout);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public long getReadTimeout() {
+		return config.getReadTimeout();
+	}
+
+	@Override
+	public void setReadTimeout(long readTimeout) {
+		lock.lock();
+		try {
+			config.setReadTimeout(readTimeout);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getMaxConnectionsPerRemote() {
+		return config.getMaxConnectionsPerRemote();
+	}
+
+	@Override
+	public void setMaxConnectionsPerRemote(int maxConnections) {
+		if (maxConnections <= 0) {
+			throw new IllegalArgumentException("The number of connections must be positive");
+		}
+		lock.lock();
+		try {
+			config.setMaxConnectionsPerRemote(maxConnections);
+			upstreamClient.setMaxConnections(maxConnections);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getNotFoundCacheSize() {
+		return config.getNotFoundCacheSize();
+	}
+
+	@Override
+	public void setNotFoundCacheSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setNotFoundCacheSize(size);
+			negativeCache.setMaxEntries(size);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean isNotFoundSnapshot() {
+		return config.isNotFoundSnapshot();
+	}
+
+	@Override
+	public void setNotFoundSnapshot(boolean snapshot) {
+		lock.lock();
+		try {
+			config.setNotFoundSnapshot(snapshot);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getNotFoundEntries() {
+		return negativeCache.size();
+	}
+
+	@Override
+	public long getNotFoundHits() {
+		return negativeCache.getHits();
+	}
+
+	@Override
+	public long getNotFoundMisses() {
+		return negativeCache.getMisses();
+	}
+
+	@Override
+	public void flushNotFoundCache() {
+		negativeCache.clear();
+	}
+
+	@Override
+	public long getAttributeCacheTtl() {
+		return config.getAttributeCacheTtl();
+	}
+
+	@Override
+	public void setAttributeCacheTtl(long ttl) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("The time cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setAttributeCacheTtl(ttl);
+			attributeCache.setTtl(ttl);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getAttributeCacheSize() {
+		return config.getAttributeCacheSize();
+	}
+
+	@Override
+	public void setAttributeCacheSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setAttributeCacheSize(size);
+			attributeCache.setMaxEntries(size);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getGzipThreshold() {
+		return config.getGzipThreshold();
+	}
+
+	@Override
+	public void setGzipThreshold(int threshold) {
+		if (threshold < -1) {
+			throw new IllegalArgumentException("The size cannot be less than -1");
+		}
+		lock.lock();
+		try {
+			config.setGzipThreshold(threshold);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public long getHotCacheSize() {
+		return config.getHotCacheSize();
+	}
+
+	@Override
+	public void setHotCacheSize(long size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setHotCacheSize(size);
+			hotCache.setMaxBytes(size);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getHotCacheMaxFileSize() {
+		return config.getHotCacheMaxFileSize();
+	}
+
+	@Override
+	public void setHotCacheMaxFileSize(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("The size cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setHotCacheMaxFileSize(size);
+			hotCache.setMaxFileSize(size);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public long getHotCacheBytes() {
+		return hotCache.getBytes();
+	}
+
+	@Override
+	public int getHotCacheEntries() {
+		return hotCache.size();
+	}
+
+	@Override
+	public long getHotCacheHits() {
+		return hotCache.getHits();
+	}
+
+	@Override
+	public long getHotCacheMisses() {
+		return hotCache.getMisses();
+	}
+
+	@Override
+	public double getHotCacheHitRatio() {
+		long hits = hotCache.getHits();
+		long total = hits + hotCache.getMisses();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	@Override
+	public void flushHotCache() {
+		hotCache.clear();
+	}
+
+	@Override
+	public long getCleanUpDelay() {
+		return config.getCleanUpDelay();
+	}
+
+	@Override
+	public void setCleanUpDelay(long delay) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("The delay cannot be negative");
+		}
+		lock.lock();
+		try {
+			config.setCleanUpDelay(delay);
+			cleanUpScheduler.setDelay(delay);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int getCleanUpQueueSize() {
+		return cleanUpScheduler.getQueueSize();
+	}
+
+	@Override
+	public long getCleanUpRequests() {
+		return cleanUpScheduler.getRequests();
+	}
+
+	@Override
+	public long getCleanUpRuns() {
+		return cleanUpScheduler.getRuns();
+	}
+
+	@Override
+	public long getCleanUpFailures() {
+		return cleanUpScheduler.getFailures();
+	}
+
+	@Override
+	public long getCleanUpTime() {
+		return cleanUpScheduler.getRunTime();
+	}
+
+	@Override
+	public long getCleanUpReclaimedBytes() {
+		return cleanUpScheduler.getReclaimedBytes();
+	}
+
+	@Override
+	public boolean isBlobStore() {
+		return config.isBlobStore();
+	}
+
+	@Override
+	public void setBlobStore(boolean enabled) {
+		lock.lock();
+		try {
+			config.setBlobStore(enabled);
+			save();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public long getBlobLinks() {
+		return blobStore.getLinks();
+	}
+
+	@Override
+	public long getBlobSavedBytes() {
+		return blobStore.getSavedBytes();
+	}
+
+	@Override
+	public long collectBlobs() throws IOException {
+		return blobStore.collect();
+	}
+
 	/**
 	 * Implements RepositoryJmx.
 	 */
@@ -407,7 +1071,7 @@ public class ConfigurationManager implements ConfigurationJmx {
 			}
 			lock.lock();
 			try {
-				other.setRemote(null);
+				repo.setRemote(null);
 				if (repo.getIncludes() == null) {
 					repo.setIncludes(Arrays.asList(other.getName()));
 				} else {
@@ -494,6 +1158,60 @@ public class ConfigurationManager implements ConfigurationJmx {
 			return repo.getArtifactMaxAge();
 		}
 
+		@Override
+		public void updateParallelResolution(boolean parallel) {
+			lock.lock();
+			try {
+				repo.setParallelResolution(parallel);
+				save();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public boolean isParallelResolution() {
+			return repo.isParallelResolution();
+		}
+
+		@Override
+		public void updateReleaseMaxAge(long milliseconds) {
+			if (milliseconds < -1) {
+				throw new IllegalArgumentException("The time cannot be less than -1");
+			}
+			lock.lock();
+			try {
+				repo.setReleaseMaxAge(milliseconds);
+				save();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public long getReleaseMaxAge() {
+			return repo.getReleaseMaxAge();
+		}
+
+		@Override
+		public void updateMetadataMaxAge(long milliseconds) {
+			if (milliseconds < -1) {
+				throw new IllegalArgumentException("The time cannot be less than -1");
+			}
+			lock.lock();
+			try {
+				repo.setMetadataMaxAge(milliseconds);
+				save();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public long getMetadataMaxAge() {
+			return repo.getMetadataMaxAge();
+		}
+
 	}
 
 	public String getCurrentAction() {
@@ -18,16 +18,23 @@
  */
 package net.gcolin.simplerepo.util;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
+import net.gcolin.simplerepo.model.ListingEntry;
+
 /**
- * List all files in directory (virtual or not).
+ * List all files in directory (virtual or not). The local files are merged
+ * with the items of the remote listing that are not downloaded yet. The items
+ * come with their attributes, so the rows are written without accessing the
+ * file system.
  *
  * @author Gaël COLIN
  * @since 1.0
@@ -35,49 +42,139 @@ import java.util.Set;
 public class DirectoryListCallback extends ListCallback {
 
     /**
-     * All files to display.
+     * The local items to display.
+     */
+    private final List<ListingEntry> children;
+    /**
+     * The items of the remote listing or null.
+     */
+    private final List<ListingEntry> listing;
+
+    /**
+     * Create DirectoryListCallback.
+     *
+     * @param newchildren the local items
      */
-    private final List<File> children;
+    public DirectoryListCallback(List<ListingEntry> newchildren) {
+        this(newchildren, null);
+    }
 
     /**
      * Create DirectoryListCallback.
      *
-     * @param newchildren children
+     * @param newchildren the local items
+     * @param newlisting  the items of the remote listing or null
+     * @since 1.1
      */
-    public DirectoryListCallback(List<File> newchildren) {
+    public DirectoryListCallback(List<ListingEntry> newchildren, List<ListingEntry> newlisting) {
         this.children = newchildren;
+        this.listing = newlisting;
     }
 
+    /**
+     * Sort the directories first then the names without case.
+     *
+     * @since 1.1
+     */
+    public static final Comparator<ListingEntry> ORDER = (e1, e2) -> new Row(e1).compareTo(new Row(e2));
+
     @Override
     public void fillTable(Writer writer) throws IOException {
         writer.write("<tr><td><a href=\"../\">Parent Directory</a>"
                 + "</td><td></td><td></td></tr>");
-        Collections.sort(children, new FileNameComparator());
-        Set<String> displayed = new HashSet<String>();
-        for (File child : children) {
-            if (displayed.contains(child.getName())) {
-                continue;
-            }
-            displayed.add(child.getName());
+        for (ListingEntry entry : getEntries()) {
             writer.write("<tr><td><a href=\"");
-            writer.write(child.getName());
-            if (child.isDirectory()) {
+            writer.write(entry.getName());
+            if (entry.isDirectory()) {
                 writer.write("/");
             }
             writer.write("\">");
-            writer.write(child.getName());
-            if (child.isDirectory()) {
+            writer.write(entry.getName());
+            if (entry.isDirectory()) {
                 writer.write("/");
             }
             writer.write("</a></td>");
             writer.write("<td>");
-            writer.write(formatDate(child.lastModified()));
+            if (entry.getLastModified() > 0) {
+                writeDate(writer, entry.getLastModified());
+            }
             writer.write("</td><td>");
-            if (child.exists() && child.isFile()) {
-                writer.write(Long.toString(child.length()));
+            if (!entry.isDirectory() && entry.getSize() >= 0) {
+                writer.write(Long.toString(entry.getSize()));
             }
             writer.write("</td></tr>");
         }
     }
 
+    @Override
+    public int getRowCount() {
+        // the parent directory and the items before removing the duplicates
+        return 1 + children.size() + (listing == null ? 0 : listing.size());
+    }
+
+    /**
+     * Merge the local items with the items of the remote listing and sort
+     * them.
+     *
+     * @return the items to display in {@link #ORDER}
+     * @since 1.1
+     */
+    public List<ListingEntry> getEntries() {
+        int capacity = children.size() + (listing == null ? 0 : listing.size());
+        Set<String> names = new HashSet<String>(capacity * 2);
+        Row[] rows = new Row[capacity];
+        int count = 0;
+        // the local items win over the items of the remote listing
+        for (ListingEntry entry : children) {
+            if (!entry.getName().startsWith(".") && names.add(entry.getName())) {
+                rows[count++] = new Row(entry);
+            }
+        }
+        if (listing != null) {
+            for (ListingEntry entry : listing) {
+                if (!entry.getName().startsWith(".") && names.add(entry.getName())) {
+                    rows[count++] = new Row(entry);
+                }
+            }
+        }
+        Arrays.sort(rows, 0, count);
+        List<ListingEntry> entries = new ArrayList<ListingEntry>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(rows[i].entry);
+        }
+        return entries;
+    }
+
+    /**
+     * An item with its sort key computed once: the directories first then the
+     * names without case.
+     */
+    private static final class Row implements Comparable<Row> {
+
+        /**
+         * The item.
+         */
+        private final ListingEntry entry;
+        /**
+         * The sort key.
+         */
+        private final String key;
+
+        /**
+         * Create a Row.
+         *
+         * @param entry the item
+         */
+        Row(final ListingEntry entry) {
+            this.entry = entry;
+            this.key = (entry.isDirectory() ? '0' : '1') + entry.getName().toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        public int compareTo(final Row other) {
+            int cmp = key.compareTo(other.key);
+            return cmp != 0 ? cmp : entry.getName().compareTo(other.entry.getName());
+        }
+    }
+
 }
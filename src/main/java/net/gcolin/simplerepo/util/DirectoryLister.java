@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.gcolin.simplerepo.model.ListingEntry;
+
+/**
+ * Read the items of a local directory with their attributes. The directory is
+ * read once and each visible item is read once, the hidden items (the internal
+ * files of the repository) are skipped without reading them.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class DirectoryLister {
+
+    /**
+     * Utility class.
+     */
+    private DirectoryLister() {
+    }
+
+    /**
+     * Read the visible items of a directory.
+     *
+     * @param dir directory
+     * @return the items, in no particular order
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<ListingEntry> list(final File dir) throws IOException {
+        List<ListingEntry> entries = new ArrayList<ListingEntry>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(".")) {
+                    continue;
+                }
+                ListingEntry entry = new ListingEntry();
+                entry.setName(name);
+                entry.setFile(path.toFile());
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    entry.setDirectory(attrs.isDirectory());
+                    entry.setLastModified(attrs.lastModifiedTime().toMillis());
+                    if (!attrs.isDirectory()) {
+                        entry.setSize(attrs.size());
+                    }
+                } catch (NoSuchFileException ex) {
+                    // removed since the directory was read
+                    continue;
+                }
+                entries.add(entry);
+            }
+        } catch (NoSuchFileException ex) {
+            return Collections.emptyList();
+        }
+        return entries;
+    }
+}
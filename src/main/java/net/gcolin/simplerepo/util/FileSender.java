@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Send the content of the files. The engine is chosen with the container:
+ * <ul>
+ * <li>the container sends the file itself if it supports the Tomcat sendfile
+ * attributes,</li>
+ * <li>the file channel is read in pooled direct buffers written to the
+ * container if its output accepts byte buffers (Jetty),</li>
+ * <li>otherwise the file is copied through pooled heap buffers.</li>
+ * </ul>
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class FileSender {
+
+    /**
+     * The size of the buffers.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * The maximum number of buffers kept in each pool.
+     */
+    private static final int MAX_POOLED = 64;
+    /**
+     * The request attribute set by Tomcat when sendfile is supported.
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    /**
+     * The request attribute of the file to send by Tomcat.
+     */
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    /**
+     * The request attribute of the first byte to send by Tomcat.
+     */
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    /**
+     * The request attribute of the end of the bytes to send by Tomcat.
+     */
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /**
+     * The heap buffers.
+     */
+    private final Queue<byte[]> heapBuffers = new ConcurrentLinkedQueue<byte[]>();
+    /**
+     * The direct buffers.
+     */
+    private final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    /**
+     * The write(ByteBuffer) method of the output stream classes, or null if the
+     * class does not have one.
+     */
+    private final ConcurrentMap<Class<?>, Method> bufferWriters = new ConcurrentHashMap<Class<?>, Method>();
+    /**
+     * Marker of a class without write(ByteBuffer) method.
+     */
+    private final Method noWriter;
+
+    /**
+     * Create a FileSender.
+     */
+    public FileSender() {
+        try {
+            noWriter = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Send a part of a file as the body of the response. The Content-Length
+     * header is set.
+     *
+     * @param req    request
+     * @param resp   response
+     * @param file   file
+     * @param start  the first byte to send
+     * @param length the number of bytes to send
+     * @throws IOException if an i/o error occurs
+     */
+    public void send(final HttpServletRequest req, final HttpServletResponse resp, final File file,
+            final long start, final long length) throws IOException {
+        resp.setHeader("Content-Length", Long.toString(length));
+        if (length == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT)) && !req.isAsyncStarted()
+                && !"HEAD".equals(req.getMethod())) {
+            // the container sends the file when the servlet returns
+            req.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        write(file, start, length, resp.getOutputStream());
+    }
+
+    /**
+     * Send a content kept in memory as the body of the response. The
+     * Content-Length header is set.
+     *
+     * @param resp   response
+     * @param buffer the content
+     * @throws IOException if an i/o error occurs
+     */
+    public void send(final HttpServletResponse resp, final ByteBuffer buffer) throws IOException {
+        resp.setHeader("Content-Length", Integer.toString(buffer.remaining()));
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        OutputStream out = resp.getOutputStream();
+        Method writer = getBufferWriter(out);
+        if (writer != null) {
+            invoke(writer, out, buffer);
+            return;
+        }
+        byte[] buf = acquireHeap();
+        try {
+            while (buffer.hasRemaining()) {
+                int count = Math.min(buf.length, buffer.remaining());
+                buffer.get(buf, 0, count);
+                out.write(buf, 0, count);
+            }
+        } finally {
+            release(buf);
+        }
+    }
+
+    /**
+     * Write a part of a file in a stream.
+     *
+     * @param file   file
+     * @param start  the first byte to write
+     * @param length the number of bytes to write
+     * @param out    the output
+     * @throws IOException if an i/o error occurs
+     */
+    public void write(final File file, final long start, final long length, final OutputStream out)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            write(channel, start, length, out);
+        }
+    }
+
+    /**
+     * Write a part of an opened file in a stream.
+     *
+     * @param channel the file
+     * @param start   the first byte to write
+     * @param length  the number of bytes to write
+     * @param out     the output
+     * @throws IOException if an i/o error occurs
+     */
+    public void write(final FileChannel channel, final long start, final long length, final OutputStream out)
+            throws IOException {
+        Method writer = getBufferWriter(out);
+        if (writer == null) {
+            copy(channel, start, length, out);
+        } else {
+            transfer(channel, start, length, out, writer);
+        }
+    }
+
+    /**
+     * Copy a stream to another with a pooled buffer.
+     *
+     * @param in  the input
+     * @param out the output
+     * @throws IOException if an i/o error occurs
+     */
+    public void copy(final InputStream in, final OutputStream out) throws IOException {
+        byte[] buf = acquireHeap();
+        try {
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                out.write(buf, 0, count);
+            }
+        } finally {
+            release(buf);
+        }
+    }
+
+    /**
+     * Copy a stream to another with a pooled buffer and compute the digests
+     * of the bytes copied.
+     *
+     * @param in          the input
+     * @param out         the output
+     * @param checksummer the digests of the content
+     * @throws IOException if an i/o error occurs
+     */
+    public void copy(final InputStream in, final OutputStream out, final Checksummer checksummer)
+            throws IOException {
+        byte[] buf = acquireHeap();
+        try {
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                out.write(buf, 0, count);
+                checksummer.update(buf, 0, count);
+            }
+        } finally {
+            release(buf);
+        }
+    }
+
+    /**
+     * Copy a number of bytes of a stream to another with a pooled buffer.
+     *
+     * @param in     the input
+     * @param out    the output
+     * @param length the number of bytes
+     * @throws IOException if an i/o error occurs or the input is too short
+     */
+    public void copy(final InputStream in, final OutputStream out, final long length) throws IOException {
+        byte[] buf = acquireHeap();
+        try {
+            long remaining = length;
+            while (remaining > 0) {
+                int count = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (count == -1) {
+                    throw new IOException("unexpected end of stream");
+                }
+                out.write(buf, 0, count);
+                remaining -= count;
+            }
+        } finally {
+            release(buf);
+        }
+    }
+
+    /**
+     * Skip a number of bytes of a stream.
+     *
+     * @param in     the input
+     * @param length the number of bytes
+     * @throws IOException if an i/o error occurs or the input is too short
+     */
+    public static void skip(final InputStream in, final long length) throws IOException {
+        long remaining = length;
+        while (remaining > 0) {
+            long count = in.skip(remaining);
+            if (count <= 0) {
+                if (in.read() == -1) {
+                    throw new IOException("unexpected end of stream");
+                }
+                count = 1;
+            }
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Send several ranges of a content in a multipart/byteranges response.
+     *
+     * @param resp        response
+     * @param ranges      the sorted ranges
+     * @param length      the length of the content
+     * @param contentType the type of the content
+     * @param source      the writer of the ranges
+     * @throws IOException if an i/o error occurs
+     */
+    public void sendRanges(final HttpServletResponse resp, final List<ByteRange> ranges, final long length,
+            final String contentType, final RangeSource source) throws IOException {
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong())
+                + Long.toHexString(System.nanoTime());
+        byte[][] headers = new byte[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < headers.length; i++) {
+            ByteRange range = ranges.get(i);
+            headers[i] = ("\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+                    + range.toContentRange(length) + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            total += headers[i].length + range.getLength();
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        total += end.length;
+        resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        resp.setContentType("multipart/byteranges; boundary=" + boundary);
+        resp.setHeader("Content-Length", Long.toString(total));
+        OutputStream out = resp.getOutputStream();
+        for (int i = 0; i < headers.length; i++) {
+            out.write(headers[i]);
+            source.write(ranges.get(i), out);
+        }
+        out.write(end);
+    }
+
+    /**
+     * Copy a part of a file through a heap buffer.
+     *
+     * @param channel the file
+     * @param start   the first byte to write
+     * @param length  the number of bytes to write
+     * @param out     the output
+     * @throws IOException if an i/o error occurs
+     */
+    private void copy(final FileChannel channel, final long start, final long length, final OutputStream out)
+            throws IOException {
+        byte[] buf = acquireHeap();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(buf);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buf.length, end - position));
+                int count = channel.read(buffer, position);
+                if (count == -1) {
+                    throw new IOException("unexpected end of file");
+                }
+                out.write(buf, 0, count);
+                position += count;
+            }
+        } finally {
+            release(buf);
+        }
+    }
+
+    /**
+     * Transfer a part of a file through a direct buffer to an output that
+     * accepts byte buffers.
+     *
+     * @param channel the file
+     * @param start   the first byte to write
+     * @param length  the number of bytes to write
+     * @param out     the output
+     * @param writer  the write(ByteBuffer) method of the output
+     * @throws IOException if an i/o error occurs
+     */
+    private void transfer(final FileChannel channel, final long start, final long length, final OutputStream out,
+            final Method writer) throws IOException {
+        ByteBuffer buffer = acquireDirect();
+        try {
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int count = channel.read(buffer, position);
+                if (count == -1) {
+                    throw new IOException("unexpected end of file");
+                }
+                buffer.flip();
+                invoke(writer, out, buffer);
+                position += count;
+            }
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Call write(ByteBuffer) on an output.
+     *
+     * @param writer the method
+     * @param out    the output
+     * @param buffer the bytes
+     * @throws IOException if an i/o error occurs
+     */
+    private void invoke(final Method writer, final OutputStream out, final ByteBuffer buffer) throws IOException {
+        try {
+            writer.invoke(out, buffer);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Get the write(ByteBuffer) method of an output.
+     *
+     * @param out the output
+     * @return the method or null
+     */
+    private Method getBufferWriter(final OutputStream out) {
+        Method method = bufferWriters.get(out.getClass());
+        if (method == null) {
+            method = noWriter;
+            if (out.getClass().getName().startsWith("org.eclipse.jetty.")) {
+                try {
+                    method = out.getClass().getMethod("write", ByteBuffer.class);
+                } catch (NoSuchMethodException ex) {
+                    method = noWriter;
+                }
+            }
+            bufferWriters.put(out.getClass(), method);
+        }
+        return method == noWriter ? null : method;
+    }
+
+    /**
+     * Get a heap buffer.
+     *
+     * @return a heap buffer
+     */
+    private byte[] acquireHeap() {
+        byte[] buf = heapBuffers.poll();
+        return buf == null ? new byte[BUFFER_SIZE] : buf;
+    }
+
+    /**
+     * Give back a heap buffer.
+     *
+     * @param buf a heap buffer
+     */
+    private void release(final byte[] buf) {
+        if (heapBuffers.size() < MAX_POOLED) {
+            heapBuffers.offer(buf);
+        }
+    }
+
+    /**
+     * Get a direct buffer.
+     *
+     * @return a direct buffer
+     */
+    private ByteBuffer acquireDirect() {
+        ByteBuffer buf = directBuffers.poll();
+        return buf == null ? ByteBuffer.allocateDirect(BUFFER_SIZE) : buf;
+    }
+
+    /**
+     * Give back a direct buffer.
+     *
+     * @param buf a direct buffer
+     */
+    private void release(final ByteBuffer buf) {
+        if (directBuffers.size() < MAX_POOLED) {
+            directBuffers.offer(buf);
+        }
+    }
+
+    /**
+     * Write the ranges of a content.
+     */
+    public interface RangeSource {
+
+        /**
+         * Write a range.
+         *
+         * @param range the range
+         * @param out   the output
+         * @throws IOException if an i/o error occurs
+         */
+        void write(ByteRange range, OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep the content of the small files in memory, so the frequent files
+ * (poms, checksums, metadata) are sent without opening them. The contents are
+ * kept in direct buffers outside of the heap, the least recently used files
+ * are evicted when the cache exceeds its size.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class HotCache {
+
+    /**
+     * The contents indexed by file path, in access order.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    /**
+     * The number of bytes kept.
+     */
+    private long bytes;
+    /**
+     * The maximum number of bytes kept.
+     */
+    private volatile long maxBytes;
+    /**
+     * The maximum size of a file kept.
+     */
+    private volatile int maxFileSize;
+    /**
+     * The number of files sent from the memory.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * The number of files read from the disk.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a HotCache.
+     *
+     * @param maxBytes    the maximum number of bytes kept, 0 disables the cache
+     * @param maxFileSize the maximum size of a file kept
+     */
+    public HotCache(final long maxBytes, final int maxFileSize) {
+        this.maxBytes = maxBytes;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Get the content of a file. The content is read and kept if the file is
+     * small enough.
+     *
+     * @param file         file
+     * @param size         the current size of the file
+     * @param lastModified the current last modification date of the file
+     * @return a read-only buffer with the content or null if the file is not
+     *         kept in memory
+     * @throws IOException if an i/o error occurs
+     */
+    public ByteBuffer get(final File file, final long size, final long lastModified) throws IOException {
+        if (size > maxFileSize || size > maxBytes) {
+            return null;
+        }
+        String key = file.getPath();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.buffer.capacity() == size) {
+                hits.incrementAndGet();
+                return entry.buffer.duplicate();
+            }
+        }
+        misses.incrementAndGet();
+        ByteBuffer buffer = read(file, (int) size);
+        if (buffer == null) {
+            return null;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(buffer, lastModified));
+            if (previous != null) {
+                bytes -= previous.buffer.capacity();
+            }
+            bytes += size;
+            evict(maxBytes);
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * Forget a file and its compressed copy, because they have changed.
+     *
+     * @param file file
+     */
+    public void invalidate(final File file) {
+        synchronized (entries) {
+            remove(file.getPath());
+            remove(Compression.getCompanion(file).getPath());
+        }
+    }
+
+    /**
+     * Forget all the files.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Change the maximum number of bytes kept.
+     *
+     * @param max the maximum number of bytes, 0 disables the cache
+     */
+    public void setMaxBytes(final long max) {
+        maxBytes = max;
+        synchronized (entries) {
+            evict(max);
+        }
+    }
+
+    /**
+     * Change the maximum size of a file kept.
+     *
+     * @param max the maximum size in bytes
+     */
+    public void setMaxFileSize(final int max) {
+        maxFileSize = max;
+        synchronized (entries) {
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.buffer.capacity() > max) {
+                    bytes -= entry.buffer.capacity();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the number of bytes kept.
+     *
+     * @return the number of bytes
+     */
+    public long getBytes() {
+        synchronized (entries) {
+            return bytes;
+        }
+    }
+
+    /**
+     * Get the number of files kept.
+     *
+     * @return the number of files
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Get the number of files sent from the memory.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of files read from the disk.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Remove a file. The caller holds the lock.
+     *
+     * @param key the path of the file
+     */
+    private void remove(final String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            bytes -= entry.buffer.capacity();
+        }
+    }
+
+    /**
+     * Remove the least recently used files until the cache fits its size. The
+     * caller holds the lock.
+     *
+     * @param max the maximum number of bytes
+     */
+    private void evict(final long max) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > max && it.hasNext()) {
+            bytes -= it.next().buffer.capacity();
+            it.remove();
+        }
+    }
+
+    /**
+     * Read a file in a direct buffer.
+     *
+     * @param file file
+     * @param size the expected size of the file
+     * @return a read-only buffer or null if the file has changed
+     * @throws IOException if an i/o error occurs
+     */
+    private ByteBuffer read(final File file, final int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                return null;
+            }
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    return null;
+                }
+            }
+        }
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * The content of a file.
+     */
+    private static final class Entry {
+
+        /**
+         * The content.
+         */
+        private final ByteBuffer buffer;
+        /**
+         * The last modification date of the file.
+         */
+        private final long lastModified;
+
+        /**
+         * Create an Entry.
+         *
+         * @param buffer       the content
+         * @param lastModified the last modification date of the file
+         */
+        Entry(final ByteBuffer buffer, final long lastModified) {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+import net.gcolin.simplerepo.model.Checksums;
+
+/**
+ * A file being downloaded. The bytes are written in a temporary file next to
+ * the target and the temporary file replaces the target only when the download
+ * is complete. Other readers can follow the temporary file while it grows.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class InflightDownload {
+
+    /**
+     * The final file.
+     */
+    private final File target;
+    /**
+     * The temporary file.
+     */
+    private final File part;
+    /**
+     * The expected length or -1.
+     */
+    private final long length;
+    /**
+     * The last modification date or 0.
+     */
+    private final long lastModified;
+    /**
+     * The digests announced by the remote repository or null.
+     */
+    private volatile Checksums checksums;
+    /**
+     * The temporary file output.
+     */
+    private OutputStream out;
+    /**
+     * The number of bytes written.
+     */
+    private long written;
+    /**
+     * True if the target file is published.
+     */
+    private boolean complete;
+    /**
+     * True if the download has failed.
+     */
+    private boolean failed;
+
+    /**
+     * Create an InflightDownload.
+     *
+     * @param target       the final file
+     * @param length       the expected length or -1
+     * @param lastModified the last modification date or 0
+     */
+    public InflightDownload(final File target, final long length, final long lastModified) {
+        this.target = target;
+        // a new download can start while a failed one is removing its file
+        this.part = new File(target.getParentFile(),
+                "." + target.getName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".part");
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get the digests announced by the remote repository.
+     *
+     * @return the digests or null if they are unknown
+     */
+    public Checksums getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * Set the digests announced by the remote repository.
+     *
+     * @param checksums the digests or null if they are unknown
+     */
+    public void setChecksums(final Checksums checksums) {
+        this.checksums = checksums;
+    }
+
+    /**
+     * Open the temporary file.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void open() throws IOException {
+        out = new FileOutputStream(part);
+    }
+
+    /**
+     * Append bytes to the temporary file.
+     *
+     * @param buf   bytes
+     * @param off   offset
+     * @param count number of bytes
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(final byte[] buf, final int off, final int count) throws IOException {
+        out.write(buf, off, count);
+        synchronized (this) {
+            written += count;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Publish the target file.
+     *
+     * @throws IOException if the download is incomplete or an I/O error occurs.
+     */
+    public void complete() throws IOException {
+        out.close();
+        if (length >= 0 && written != length) {
+            throw new IOException("incomplete download of " + target + ": " + written + "/" + length);
+        }
+        if (lastModified > 0 && !part.setLastModified(lastModified)) {
+            throw new IOException("cannot set the last modification date of " + part);
+        }
+        try {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        synchronized (this) {
+            complete = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Abort the download and remove the temporary file.
+     */
+    public void fail() {
+        Io.close(out);
+        if (part.exists() && !part.delete()) {
+            part.deleteOnExit();
+        }
+        synchronized (this) {
+            failed = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Open a stream that reads the file while it is downloaded.
+     *
+     * @return a stream
+     * @throws IOException if an I/O error occurs.
+     */
+    public InputStream openStream() throws IOException {
+        synchronized (this) {
+            if (failed) {
+                throw new IOException("the download of " + target + " has failed");
+            }
+            if (complete) {
+                return new FileInputStream(target);
+            }
+            return new FollowStream(new FileInputStream(part));
+        }
+    }
+
+    /**
+     * Get the final file.
+     *
+     * @return the final file
+     */
+    public File getTarget() {
+        return target;
+    }
+
+    /**
+     * Get the expected length.
+     *
+     * @return the expected length or -1 if unknown
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Get the last modification date.
+     *
+     * @return the last modification date or 0 if unknown
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Wait until a number of bytes is written or the download is finished.
+     *
+     * @param position the number of bytes
+     * @return the number of bytes written or -1 if the download is complete and
+     *         there is no more byte.
+     * @throws IOException if the download has failed
+     */
+    private synchronized long await(final long position) throws IOException {
+        while (written <= position && !complete && !failed) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+        if (failed) {
+            throw new IOException("the download of " + target + " has failed");
+        }
+        return written <= position ? -1 : written;
+    }
+
+    /**
+     * A stream that waits for the bytes not written yet.
+     */
+    private final class FollowStream extends InputStream {
+
+        /**
+         * The temporary file input.
+         */
+        private final InputStream in;
+        /**
+         * The number of bytes read.
+         */
+        private long position;
+
+        /**
+         * Create a FollowStream.
+         *
+         * @param in the temporary file input
+         */
+        FollowStream(final InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buf = new byte[1];
+            return read(buf, 0, 1) == -1 ? -1 : buf[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long max = await(position);
+            if (max == -1) {
+                return -1;
+            }
+            int count = in.read(buf, off, (int) Math.min(len, max - position));
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n) {
+                long max = await(position);
+                if (max == -1) {
+                    break;
+                }
+                long count = in.skip(Math.min(n - skipped, max - position));
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -75,6 +75,23 @@ public class Io {
     }
   }
 
+  /**
+   * Delete a file or a directory with its content.
+   * 
+   * @param file a file or a directory
+   * @return true if everything is deleted
+   */
+  public static boolean delete(File file) {
+    boolean result = true;
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        result &= delete(child);
+      }
+    }
+    return (file.delete() || !file.exists()) && result;
+  }
+
   /**
    * Copy a stream to another.
    * 
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.simple.JSONValue;
+
+import net.gcolin.simplerepo.model.Checksums;
+import net.gcolin.simplerepo.model.ListingEntry;
+
+/**
+ * Write a page of a directory listing in JSON. The items are written one by
+ * one and the next page starts after a cursor that contains the last item of
+ * the previous page, so the pages stay consistent when items are added.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class JsonListing {
+
+    /**
+     * The number of items of a page when the client does not ask for one.
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+    /**
+     * The maximum number of items of a page.
+     */
+    public static final int MAX_LIMIT = 10000;
+
+    /**
+     * Utility class.
+     */
+    private JsonListing() {
+    }
+
+    /**
+     * Get the first item of a page.
+     *
+     * @param entries the sorted items
+     * @param cursor  the cursor of the previous page or null for the first page
+     * @return the index of the first item
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public static int start(final List<ListingEntry> entries, final String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (value.length() < 2 || value.charAt(1) != ':' || value.charAt(0) != 'd' && value.charAt(0) != 'f') {
+            throw new IllegalArgumentException("invalid cursor " + cursor);
+        }
+        ListingEntry last = new ListingEntry();
+        last.setDirectory(value.charAt(0) == 'd');
+        last.setName(value.substring(2));
+        int index = Collections.binarySearch(entries, last, DirectoryListCallback.ORDER);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+
+    /**
+     * Get the cursor of a page.
+     *
+     * @param last the last item of the page
+     * @return the cursor of the next page
+     */
+    public static String cursor(final ListingEntry last) {
+        String value = (last.isDirectory() ? "d:" : "f:") + last.getName();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compute the entity tag of a page. It changes when an item of the page
+     * changes.
+     *
+     * @param entries the sorted items
+     * @param from    the index of the first item
+     * @param to      the index after the last item
+     * @return a weak entity tag
+     */
+    public static String etag(final List<ListingEntry> entries, final int from, final int to) {
+        long hash = 1125899906842597L;
+        for (int i = from; i < to; i++) {
+            ListingEntry entry = entries.get(i);
+            hash = 31 * hash + entry.getName().hashCode();
+            hash = 31 * hash + (entry.isDirectory() ? 1 : 0);
+            hash = 31 * hash + entry.getSize();
+            hash = 31 * hash + entry.getLastModified();
+            hash = 31 * hash + (entry.getFile() == null ? 0 : 1);
+        }
+        hash = 31 * hash + (to < entries.size() ? 1 : 0);
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Write a page.
+     *
+     * @param writer  the output
+     * @param entries the sorted items
+     * @param from    the index of the first item
+     * @param to      the index after the last item
+     * @throws IOException if an i/o error occurs
+     */
+    public static void write(final Writer writer, final List<ListingEntry> entries, final int from, final int to)
+            throws IOException {
+        writer.write("{\"items\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                writer.write(',');
+            }
+            write(writer, entries.get(i));
+        }
+        writer.write(']');
+        if (to < entries.size()) {
+            writer.write(",\"next\":\"");
+            writer.write(cursor(entries.get(to - 1)));
+            writer.write('"');
+        }
+        writer.write('}');
+    }
+
+    /**
+     * Write an item.
+     *
+     * @param writer the output
+     * @param entry  the item
+     * @throws IOException if an i/o error occurs
+     */
+    private static void write(final Writer writer, final ListingEntry entry) throws IOException {
+        writer.write("{\"name\":\"");
+        writer.write(JSONValue.escape(entry.getName()));
+        writer.write(entry.isDirectory() ? "\",\"type\":\"directory\"" : "\",\"type\":\"file\"");
+        if (!entry.isDirectory() && entry.getSize() >= 0) {
+            writer.write(",\"size\":");
+            writer.write(Long.toString(entry.getSize()));
+        }
+        if (entry.getLastModified() > 0) {
+            writer.write(",\"lastModified\":");
+            writer.write(Long.toString(entry.getLastModified()));
+        }
+        if (!entry.isDirectory() && entry.getFile() != null) {
+            Checksums checksums = ChecksumStore.read(entry.getFile(), entry.getSize(), entry.getLastModified());
+            if (checksums != null) {
+                writer.write(",\"sha1\":\"");
+                writer.write(checksums.getSha1());
+                writer.write("\",\"sha256\":\"");
+                writer.write(checksums.getSha256());
+                writer.write('"');
+            }
+        }
+        writer.write('}');
+    }
+}
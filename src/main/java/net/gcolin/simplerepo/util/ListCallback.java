@@ -20,10 +20,10 @@ package net.gcolin.simplerepo.util;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * Callback for printing file listing.
@@ -41,6 +41,21 @@ public abstract class ListCallback {
      */
     public abstract void fillTable(Writer writer) throws IOException;
 
+    /**
+     * Get the maximum number of rows of the listing, known before printing
+     * it.
+     *
+     * @return the number of rows
+     * @since 1.1
+     */
+    public abstract int getRowCount();
+
+    /**
+     * The format of the dates, shared by all the rows.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss z", Locale.ENGLISH).withZone(ZoneId.of("GMT"));
+
     /**
      * Format date.
      * 
@@ -48,12 +63,19 @@ public abstract class ListCallback {
      * @return a formatted date.
      */
     public String formatDate(final long dateMilli) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(dateMilli);
-        SimpleDateFormat dateFormat = new SimpleDateFormat(
-                "EEE, dd MMM yyyy HH:mm:ss z", Locale.ENGLISH);
-        dateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
-        return dateFormat.format(calendar.getTime());
+        return DATE_FORMAT.format(Instant.ofEpochMilli(dateMilli));
+    }
+
+    /**
+     * Write a formatted date.
+     *
+     * @param writer    writer
+     * @param dateMilli date in milliseconds
+     * @throws IOException if an i/o error occurs
+     * @since 1.1
+     */
+    protected void writeDate(final Writer writer, final long dateMilli) throws IOException {
+        DATE_FORMAT.formatTo(Instant.ofEpochMilli(dateMilli), writer);
     }
 
 }
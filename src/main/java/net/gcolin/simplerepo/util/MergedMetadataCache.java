@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.gcolin.simplerepo.model.Checksums;
+import net.gcolin.simplerepo.model.MergedMetadata;
+import net.gcolin.simplerepo.model.Metadata;
+import net.gcolin.simplerepo.model.PathAttributes;
+import net.gcolin.simplerepo.model.Plugin;
+import net.gcolin.simplerepo.model.Version;
+
+/**
+ * Keep the maven-metadata.xml merged for the virtual repositories. A merged
+ * document is reused while the files of the members keep their size and their
+ * last modification date, and only the files that have changed are read again.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class MergedMetadataCache {
+
+    /**
+     * The attributes of the files.
+     */
+    private final PathAttributeCache attributeCache;
+    /**
+     * The maximum number of entries of each map.
+     */
+    private final int maxEntries;
+    /**
+     * The metadata of the members indexed by file path.
+     */
+    private final Map<String, Parsed> parsed;
+    /**
+     * The merged metadata indexed by virtual repository and path.
+     */
+    private final Map<String, MergedMetadata> merged;
+
+    /**
+     * Create a MergedMetadataCache.
+     *
+     * @param attributeCache the attributes of the files
+     * @param maxEntries     the maximum number of entries of each map
+     */
+    public MergedMetadataCache(final PathAttributeCache attributeCache, final int maxEntries) {
+        this.attributeCache = attributeCache;
+        this.maxEntries = maxEntries;
+        parsed = new LinkedHashMap<String, Parsed>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Parsed> eldest) {
+                return size() > MergedMetadataCache.this.maxEntries;
+            }
+        };
+        merged = new LinkedHashMap<String, MergedMetadata>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, MergedMetadata> eldest) {
+                return size() > MergedMetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Get the merged metadata of a virtual repository.
+     *
+     * @param key   the virtual repository and the path
+     * @param files the maven-metadata.xml of the members, by priority
+     * @return the merged metadata or null if no member has the file
+     * @throws IOException if a file cannot be read
+     */
+    public MergedMetadata get(final String key, final List<File> files) throws IOException {
+        List<PathAttributes> attributes = new ArrayList<PathAttributes>(files.size());
+        StringBuilder fingerprint = new StringBuilder();
+        long lastModified = 0;
+        for (File file : files) {
+            PathAttributes attr = attributeCache.get(file);
+            if (attr.isExists() && !attr.isDirectory()) {
+                fingerprint.append(file.getPath()).append('|').append(attr.getSize()).append('|')
+                        .append(attr.getLastModified()).append('\n');
+                lastModified = Math.max(lastModified, attr.getLastModified());
+            }
+            attributes.add(attr);
+        }
+        if (fingerprint.length() == 0) {
+            return null;
+        }
+        MergedMetadata result;
+        synchronized (this) {
+            result = merged.get(key);
+        }
+        if (result != null && result.getFingerprint().equals(fingerprint.toString())) {
+            return result;
+        }
+        List<Metadata> members = new ArrayList<Metadata>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            PathAttributes attr = attributes.get(i);
+            if (attr.isExists() && !attr.isDirectory()) {
+                members.add(read(files.get(i), attr));
+            }
+        }
+        byte[] content = MetadataWriter.write(merge(members));
+        Checksummer checksummer = new Checksummer();
+        checksummer.update(content, 0, content.length);
+        Checksums checksums = checksummer.finish(lastModified);
+        result = new MergedMetadata();
+        result.setFingerprint(fingerprint.toString());
+        result.setContent(content);
+        result.setChecksums(checksums);
+        result.setLastModified(lastModified);
+        synchronized (this) {
+            merged.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Read the metadata of a member, or reuse them if the file has not
+     * changed.
+     *
+     * @param file       the file
+     * @param attributes the attributes of the file
+     * @return the metadata
+     * @throws IOException if the file cannot be read
+     */
+    private Metadata read(final File file, final PathAttributes attributes) throws IOException {
+        Parsed entry;
+        synchronized (this) {
+            entry = parsed.get(file.getPath());
+        }
+        if (entry != null && entry.size == attributes.getSize()
+                && entry.lastModified == attributes.getLastModified()) {
+            return entry.metadata;
+        }
+        Metadata metadata;
+        try (InputStream in = new FileInputStream(file)) {
+            metadata = MetadataReader.read(in);
+        }
+        entry = new Parsed(metadata, attributes.getSize(), attributes.getLastModified());
+        synchronized (this) {
+            parsed.put(file.getPath(), entry);
+        }
+        return metadata;
+    }
+
+    /**
+     * Forget the metadata of a member, because the file has changed.
+     *
+     * @param file the file
+     */
+    public synchronized void invalidate(final File file) {
+        parsed.remove(file.getPath());
+    }
+
+    /**
+     * Forget all the metadata.
+     */
+    public synchronized void clear() {
+        parsed.clear();
+        merged.clear();
+    }
+
+    /**
+     * Merge the metadata of the members of a virtual repository. The versions,
+     * the snapshot versions and the plugins of all the members are kept; the
+     * latest version, the release and the latest snapshot come from the member
+     * updated last.
+     *
+     * @param members the metadata by priority
+     * @return the merged metadata
+     */
+    public static Metadata merge(final List<Metadata> members) {
+        Metadata result = new Metadata();
+        Map<String, Version> snapshotVersions = new LinkedHashMap<String, Version>();
+        Map<String, Plugin> plugins = new LinkedHashMap<String, Plugin>();
+        String latestUpdated = null;
+        for (Metadata member : members) {
+            if (result.getGroupId() == null) {
+                result.setGroupId(member.getGroupId());
+            }
+            if (result.getArtifactId() == null) {
+                result.setArtifactId(member.getArtifactId());
+            }
+            if (result.getVersion() == null) {
+                result.setVersion(member.getVersion());
+            }
+            for (String version : member.getVersions()) {
+                if (!result.getVersions().contains(version)) {
+                    result.getVersions().add(version);
+                }
+            }
+            boolean newer = isNewer(member.getLastUpdated(), latestUpdated);
+            if (newer) {
+                latestUpdated = member.getLastUpdated();
+            }
+            if (member.getLatest() != null && (newer || result.getLatest() == null)) {
+                result.setLatest(member.getLatest());
+            }
+            if (member.getRelease() != null && (newer || result.getRelease() == null)) {
+                result.setRelease(member.getRelease());
+            }
+            if (member.getSnapshotTimestamp() != null
+                    && (newer || result.getSnapshotTimestamp() == null)) {
+                result.setSnapshotTimestamp(member.getSnapshotTimestamp());
+                result.setSnapshotBuildNumber(member.getSnapshotBuildNumber());
+            }
+            for (Version version : member.getSnapshotVersions()) {
+                String key = version.getClassifier() + ':' + version.getExtension();
+                Version previous = snapshotVersions.get(key);
+                if (previous == null || isNewer(version.getUpdated(), previous.getUpdated())) {
+                    snapshotVersions.put(key, version);
+                }
+            }
+            for (Plugin plugin : member.getPlugins()) {
+                if (!plugins.containsKey(plugin.getPrefix())) {
+                    plugins.put(plugin.getPrefix(), plugin);
+                }
+            }
+        }
+        result.setLastUpdated(latestUpdated);
+        result.getSnapshotVersions().addAll(snapshotVersions.values());
+        result.getPlugins().addAll(plugins.values());
+        return result;
+    }
+
+    /**
+     * Compare two dates (yyyyMMddHHmmss).
+     *
+     * @param date     a date or null
+     * @param previous another date or null
+     * @return true if the first date is after the other date
+     */
+    private static boolean isNewer(final String date, final String previous) {
+        return date != null && (previous == null || date.compareTo(previous) > 0);
+    }
+
+    /**
+     * The metadata of a file.
+     */
+    private static final class Parsed {
+
+        /**
+         * The metadata.
+         */
+        private final Metadata metadata;
+        /**
+         * The size of the file when it was read.
+         */
+        private final long size;
+        /**
+         * The last modification date of the file when it was read.
+         */
+        private final long lastModified;
+
+        /**
+         * Create a Parsed.
+         *
+         * @param metadata     the metadata
+         * @param size         the size of the file
+         * @param lastModified the last modification date of the file
+         */
+        Parsed(final Metadata metadata, final long size, final long lastModified) {
+            this.metadata = metadata;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
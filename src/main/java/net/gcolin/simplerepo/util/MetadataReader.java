@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.gcolin.simplerepo.model.Metadata;
+import net.gcolin.simplerepo.model.Plugin;
+import net.gcolin.simplerepo.model.Version;
+import net.gcolin.simplerepo.model.VersionFile;
+
+/**
+ * Read a maven-metadata.xml in one pass, without building a document.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class MetadataReader {
+
+    /**
+     * The path of a snapshot version.
+     */
+    private static final String SNAPSHOT_VERSION = "/metadata/versioning/snapshotVersions/snapshotVersion";
+    /**
+     * The path of a plugin.
+     */
+    private static final String PLUGIN = "/metadata/plugins/plugin";
+    /**
+     * The factory of the readers, configured once.
+     */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    /**
+     * Utility class.
+     */
+    private MetadataReader() {
+    }
+
+    /**
+     * Create the factory of the readers. The metadata are sent by the clients,
+     * so the DTD and the external entities are not processed.
+     *
+     * @return the factory
+     */
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Read a maven-metadata.xml.
+     *
+     * @param in the content
+     * @return the metadata
+     * @throws IOException if the content cannot be read or is not valid
+     */
+    public static Metadata read(final InputStream in) throws IOException {
+        Metadata metadata = new Metadata();
+        StringBuilder path = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        Version version = null;
+        VersionFile match = null;
+        Plugin plugin = null;
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    path.append('/').append(reader.getLocalName());
+                    text.setLength(0);
+                    if (version == null && equals(path, SNAPSHOT_VERSION)) {
+                        version = new Version();
+                    } else if (version != null && match == null && endsWith(path, "/matches")) {
+                        match = new VersionFile();
+                    } else if (plugin == null && equals(path, PLUGIN)) {
+                        plugin = new Plugin();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    String name = reader.getLocalName();
+                    if (match != null) {
+                        if (name.equals("matches")) {
+                            version.getMatches().add(match);
+                            match = null;
+                        } else if (name.equals("file")) {
+                            match.setFile(text.toString().trim());
+                        } else if (name.equals("version")) {
+                            match.setVersion(text.toString().trim());
+                        }
+                    } else if (version != null) {
+                        setVersionField(version, name, text);
+                        if (equals(path, SNAPSHOT_VERSION)) {
+                            metadata.getSnapshotVersions().add(version);
+                            version = null;
+                        }
+                    } else if (plugin != null) {
+                        setPluginField(plugin, name, text);
+                        if (equals(path, PLUGIN)) {
+                            metadata.getPlugins().add(plugin);
+                            plugin = null;
+                        }
+                    } else {
+                        setField(metadata, path, text);
+                    }
+                    path.setLength(path.length() - name.length() - 1);
+                    text.setLength(0);
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException("invalid metadata", ex);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // the stream is closed by the caller
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Set a field of the metadata.
+     *
+     * @param metadata the metadata
+     * @param path     the path of the element
+     * @param text     the text of the element
+     */
+    private static void setField(final Metadata metadata, final StringBuilder path, final CharSequence text) {
+        if (equals(path, "/metadata/groupId")) {
+            metadata.setGroupId(text.toString().trim());
+        } else if (equals(path, "/metadata/artifactId")) {
+            metadata.setArtifactId(text.toString().trim());
+        } else if (equals(path, "/metadata/version")) {
+            metadata.setVersion(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/versions/version")) {
+            metadata.getVersions().add(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/latest")) {
+            metadata.setLatest(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/release")) {
+            metadata.setRelease(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/lastUpdated")) {
+            metadata.setLastUpdated(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/snapshot/timestamp")) {
+            metadata.setSnapshotTimestamp(text.toString().trim());
+        } else if (equals(path, "/metadata/versioning/snapshot/buildNumber")) {
+            metadata.setSnapshotBuildNumber(text.toString().trim());
+        }
+    }
+
+    /**
+     * Set a field of a plugin.
+     *
+     * @param plugin the plugin
+     * @param name   the name of the element
+     * @param text   the text of the element
+     */
+    private static void setPluginField(final Plugin plugin, final String name, final CharSequence text) {
+        switch (name) {
+        case "name":
+            plugin.setName(text.toString().trim());
+            break;
+        case "prefix":
+            plugin.setPrefix(text.toString().trim());
+            break;
+        case "artifactId":
+            plugin.setArtifactId(text.toString().trim());
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Set a field of a snapshot version.
+     *
+     * @param version the snapshot version
+     * @param name    the name of the element
+     * @param text    the text of the element
+     */
+    private static void setVersionField(final Version version, final String name, final CharSequence text) {
+        switch (name) {
+        case "classifier":
+            String classifier = text.toString().trim();
+            // the file names without classifier are matched with a null classifier
+            version.setClassifier(classifier.isEmpty() ? null : classifier);
+            break;
+        case "extension":
+            version.setExtension(text.toString().trim());
+            break;
+        case "value":
+            version.setValue(text.toString().trim());
+            break;
+        case "updated":
+            version.setUpdated(text.toString().trim());
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Compare a path with a string without creating a string.
+     *
+     * @param path  the path
+     * @param value the string
+     * @return true if they are equal
+     */
+    private static boolean equals(final StringBuilder path, final String value) {
+        return path.length() == value.length() && endsWith(path, value);
+    }
+
+    /**
+     * Check the end of a path without creating a string.
+     *
+     * @param path   the path
+     * @param suffix the end
+     * @return true if the path ends with the suffix
+     */
+    private static boolean endsWith(final StringBuilder path, final String suffix) {
+        int offset = path.length() - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (path.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
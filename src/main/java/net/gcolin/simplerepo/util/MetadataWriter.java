@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.gcolin.simplerepo.model.Metadata;
+import net.gcolin.simplerepo.model.Plugin;
+import net.gcolin.simplerepo.model.Version;
+
+/**
+ * Write a maven-metadata.xml.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class MetadataWriter {
+
+    /**
+     * The factory of the writers.
+     */
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+    /**
+     * Utility class.
+     */
+    private MetadataWriter() {
+    }
+
+    /**
+     * Write a maven-metadata.xml.
+     *
+     * @param metadata the metadata
+     * @return the content in UTF-8
+     * @throws IOException if the metadata cannot be written
+     */
+    public static byte[] write(final Metadata metadata) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            XMLStreamWriter writer = FACTORY.createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("metadata");
+            element(writer, 1, "groupId", metadata.getGroupId());
+            element(writer, 1, "artifactId", metadata.getArtifactId());
+            element(writer, 1, "version", metadata.getVersion());
+            if (hasVersioning(metadata)) {
+                start(writer, 1, "versioning");
+                element(writer, 2, "latest", metadata.getLatest());
+                element(writer, 2, "release", metadata.getRelease());
+                if (metadata.getSnapshotTimestamp() != null || metadata.getSnapshotBuildNumber() != null) {
+                    start(writer, 2, "snapshot");
+                    element(writer, 3, "timestamp", metadata.getSnapshotTimestamp());
+                    element(writer, 3, "buildNumber", metadata.getSnapshotBuildNumber());
+                    end(writer, 2);
+                }
+                if (!metadata.getVersions().isEmpty()) {
+                    start(writer, 2, "versions");
+                    for (String version : metadata.getVersions()) {
+                        element(writer, 3, "version", version);
+                    }
+                    end(writer, 2);
+                }
+                element(writer, 2, "lastUpdated", metadata.getLastUpdated());
+                if (!metadata.getSnapshotVersions().isEmpty()) {
+                    start(writer, 2, "snapshotVersions");
+                    for (Version version : metadata.getSnapshotVersions()) {
+                        start(writer, 3, "snapshotVersion");
+                        element(writer, 4, "classifier", version.getClassifier());
+                        element(writer, 4, "extension", version.getExtension());
+                        element(writer, 4, "value", version.getValue());
+                        element(writer, 4, "updated", version.getUpdated());
+                        end(writer, 3);
+                    }
+                    end(writer, 2);
+                }
+                end(writer, 1);
+            }
+            if (!metadata.getPlugins().isEmpty()) {
+                start(writer, 1, "plugins");
+                for (Plugin plugin : metadata.getPlugins()) {
+                    start(writer, 2, "plugin");
+                    element(writer, 3, "name", plugin.getName());
+                    element(writer, 3, "prefix", plugin.getPrefix());
+                    element(writer, 3, "artifactId", plugin.getArtifactId());
+                    end(writer, 2);
+                }
+                end(writer, 1);
+            }
+            end(writer, 0);
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException("cannot write the metadata", ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Check if the metadata has a versioning element.
+     *
+     * @param metadata the metadata
+     * @return true if the metadata has a versioning element
+     */
+    private static boolean hasVersioning(final Metadata metadata) {
+        return metadata.getLatest() != null || metadata.getRelease() != null || metadata.getLastUpdated() != null
+                || metadata.getSnapshotTimestamp() != null || metadata.getSnapshotBuildNumber() != null
+                || !metadata.getVersions().isEmpty() || !metadata.getSnapshotVersions().isEmpty();
+    }
+
+    /**
+     * Start an element on a new line.
+     *
+     * @param writer the writer
+     * @param depth  the depth of the element
+     * @param name   the name of the element
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void start(final XMLStreamWriter writer, final int depth, final String name)
+            throws XMLStreamException {
+        indent(writer, depth);
+        writer.writeStartElement(name);
+    }
+
+    /**
+     * End an element on a new line.
+     *
+     * @param writer the writer
+     * @param depth  the depth of the element
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void end(final XMLStreamWriter writer, final int depth) throws XMLStreamException {
+        indent(writer, depth);
+        writer.writeEndElement();
+    }
+
+    /**
+     * Write an element with a text if the text is not null.
+     *
+     * @param writer the writer
+     * @param depth  the depth of the element
+     * @param name   the name of the element
+     * @param text   the text or null
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void element(final XMLStreamWriter writer, final int depth, final String name,
+            final String text) throws XMLStreamException {
+        if (text != null) {
+            start(writer, depth, name);
+            writer.writeCharacters(text);
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Start a new line.
+     *
+     * @param writer the writer
+     * @param depth  the number of indentations
+     * @throws XMLStreamException if an error occurs
+     */
+    private static void indent(final XMLStreamWriter writer, final int depth) throws XMLStreamException {
+        writer.writeCharacters("\n");
+        for (int i = 0; i < depth; i++) {
+            writer.writeCharacters("  ");
+        }
+    }
+}
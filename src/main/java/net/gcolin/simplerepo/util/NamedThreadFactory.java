@@ -18,37 +18,39 @@
  */
 package net.gcolin.simplerepo.util;
 
-import java.io.File;
-import java.io.Serializable;
-import java.util.Comparator;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Compare file by name.
+ * Create daemon threads with a readable name.
  *
  * @author Gaël COLIN
- * @since 1.0
+ * @since 1.1
  */
-public class FileNameComparator implements Comparator<File>, Serializable {
+public class NamedThreadFactory implements ThreadFactory {
 
     /**
-     * A unique serial version identifier.
+     * The prefix of the thread names.
+     */
+    private final String prefix;
+    /**
+     * The number of threads created.
+     */
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * Create a NamedThreadFactory.
      *
-     * @see Serializable#serialVersionUID
+     * @param prefix the prefix of the thread names
      */
-    private static final long serialVersionUID = 479949221935034738L;
+    public NamedThreadFactory(final String prefix) {
+        this.prefix = prefix;
+    }
 
     @Override
-    public final int compare(final File f1, final File f2) {
-        if (f1.isDirectory() && f2.isDirectory()) {
-            return f1.getName().compareToIgnoreCase(f2.getName());
-        }
-        if (f1.isDirectory()) {
-            return -1;
-        }
-        if (f2.isDirectory()) {
-            return 1;
-        }
-        return f1.getName().compareToIgnoreCase(f2.getName());
+    public Thread newThread(final Runnable r) {
+        Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
     }
-
 }
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remember the remote resources that cannot be found, so they are not asked
+ * again before a delay. The oldest entries are evicted when the cache is full.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class NegativeCache {
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * The date when each resource was not found, in access order.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    /**
+     * The maximum number of entries.
+     */
+    private volatile int maxEntries;
+    /**
+     * The number of lookups of a resource not found.
+     */
+    private final AtomicLong hits = new AtomicLong();
+    /**
+     * The number of lookups of a resource not in the cache.
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Create a NegativeCache.
+     *
+     * @param maxEntries the maximum number of entries
+     */
+    public NegativeCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Check if a resource has not been found recently.
+     *
+     * @param key the repository and the path of the resource
+     * @param ttl the time in milliseconds before retrying a resource not found
+     * @return true if the resource must not be asked again
+     */
+    public boolean contains(final String key, final long ttl) {
+        synchronized (entries) {
+            Long date = entries.get(key);
+            if (date != null) {
+                if (System.currentTimeMillis() - date <= ttl) {
+                    hits.incrementAndGet();
+                    return true;
+                }
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Remember a resource not found.
+     *
+     * @param key the repository and the path of the resource
+     */
+    public void add(final String key) {
+        synchronized (entries) {
+            entries.put(key, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Forget a resource, because it has been created.
+     *
+     * @param key the repository and the path of the resource
+     */
+    public void remove(final String key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Forget all the resources.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Change the maximum number of entries.
+     *
+     * @param max the maximum number of entries
+     */
+    public void setMaxEntries(final int max) {
+        maxEntries = max;
+        synchronized (entries) {
+            while (entries.size() > max) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Get the number of lookups of a resource not found.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of lookups of a resource not in the cache.
+     *
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Load the entries saved in a file. The entries older than the delay are
+     * ignored.
+     *
+     * @param file the snapshot file
+     * @param ttl  the time in milliseconds before retrying a resource not found
+     * @throws IOException if an i/o error occurs
+     */
+    public void load(final File file, final long ttl) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            synchronized (entries) {
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    long date = in.readLong();
+                    if (now - date <= ttl) {
+                        entries.put(key, date);
+                    }
+                }
+            }
+        } catch (EOFException ex) {
+            throw new IOException("truncated snapshot " + file, ex);
+        }
+    }
+
+    /**
+     * Save the entries in a file.
+     *
+     * @param file the snapshot file
+     * @throws IOException if an i/o error occurs
+     */
+    public void save(final File file) throws IOException {
+        Map<String, Long> copy;
+        synchronized (entries) {
+            copy = new HashMap<String, Long>(entries);
+        }
+        File tmp = new File(file.getParentFile(), file.getName() + ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<String, Long> entry : copy.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
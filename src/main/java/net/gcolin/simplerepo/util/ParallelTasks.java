@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Run tasks on a shared executor with a bounded parallelism.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class ParallelTasks {
+
+    /**
+     * Utility class.
+     */
+    private ParallelTasks() {
+    }
+
+    /**
+     * Run tasks and wait for them. At most parallelism tasks are submitted at
+     * the same time and a task is run by the current thread if the executor is
+     * saturated. The tasks not started are skipped after a failure and this
+     * method returns only when the started tasks are finished.
+     *
+     * @param executor    the executor
+     * @param callables   the tasks
+     * @param parallelism the maximum number of tasks submitted at the same time
+     * @throws IOException if a task fails
+     */
+    public static void run(final Executor executor, final List<Callable<Void>> callables, final int parallelism)
+            throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(callables.size());
+        for (Callable<Void> callable : callables) {
+            tasks.add(new FutureTask<Void>(() -> failed.get() ? null : callable.call()));
+        }
+        int submitted = 0;
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                for (; submitted < tasks.size() && submitted < i + parallelism; submitted++) {
+                    try {
+                        executor.execute(tasks.get(submitted));
+                    } catch (RejectedExecutionException ex) {
+                        tasks.get(submitted).run();
+                    }
+                }
+                tasks.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        } finally {
+            failed.set(true);
+            for (int i = 0; i < submitted; i++) {
+                try {
+                    tasks.get(i).get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException ex) {
+                    // already reported or not needed anymore
+                }
+            }
+        }
+    }
+}
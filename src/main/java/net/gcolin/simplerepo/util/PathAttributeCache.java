@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.gcolin.simplerepo.model.Checksums;
+import net.gcolin.simplerepo.model.PathAttributes;
+
+/**
+ * Keep the attributes of the local files for a short time, so the frequent
+ * lookups of the same paths do not access the file system. The writers of the
+ * repositories invalidate the files they change; the time to live bounds the
+ * staleness of the changes made outside of the server.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class PathAttributeCache {
+
+    /**
+     * The attributes indexed by file path.
+     */
+    private final ConcurrentMap<String, PathAttributes> entries = new ConcurrentHashMap<String, PathAttributes>();
+    /**
+     * The maximum number of entries.
+     */
+    private volatile int maxEntries;
+    /**
+     * The time to live of an entry in milliseconds.
+     */
+    private volatile long ttl;
+
+    /**
+     * Create a PathAttributeCache.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param ttl        the time to live of an entry in milliseconds, 0
+     *                   disables the cache
+     */
+    public PathAttributeCache(final int maxEntries, final long ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Get the attributes of a file.
+     *
+     * @param file file
+     * @return the attributes
+     * @throws IOException if an i/o error occurs
+     */
+    public PathAttributes get(final File file) throws IOException {
+        long now = System.currentTimeMillis();
+        long timeToLive = ttl;
+        String key = file.getPath();
+        if (timeToLive > 0) {
+            PathAttributes attributes = entries.get(key);
+            if (attributes != null && now - attributes.getChecked() <= timeToLive) {
+                return attributes;
+            }
+        }
+        PathAttributes attributes = read(file);
+        attributes.setChecked(now);
+        if (timeToLive > 0 && maxEntries > 0) {
+            if (entries.size() >= maxEntries) {
+                evict(now, timeToLive);
+            }
+            entries.put(key, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Get the digests of a file. The digests are read once and kept with the
+     * attributes.
+     *
+     * @param file       file
+     * @param attributes the attributes of the file
+     * @return the digests or null if they are not known
+     */
+    public Checksums getChecksums(final File file, final PathAttributes attributes) {
+        if (!attributes.isChecksumsRead()) {
+            attributes.setChecksums(ChecksumStore.read(file, attributes.getSize(), attributes.getLastModified()));
+            attributes.setChecksumsRead(true);
+        }
+        return attributes.getChecksums();
+    }
+
+    /**
+     * Forget a file and its ancestors, because they have changed. Writing a
+     * file may create all the missing directories above it.
+     *
+     * @param file file
+     */
+    public void invalidate(final File file) {
+        for (File f = file; f != null; f = f.getParentFile()) {
+            entries.remove(f.getPath());
+        }
+    }
+
+    /**
+     * Forget all the files.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Change the maximum number of entries.
+     *
+     * @param max the maximum number of entries
+     */
+    public void setMaxEntries(final int max) {
+        maxEntries = max;
+        if (entries.size() > max) {
+            evict(System.currentTimeMillis(), ttl);
+        }
+    }
+
+    /**
+     * Change the time to live of the entries.
+     *
+     * @param timeToLive the time to live in milliseconds, 0 disables the cache
+     */
+    public void setTtl(final long timeToLive) {
+        ttl = timeToLive;
+        if (timeToLive <= 0) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Remove the expired entries then, if the cache is still full, a quarter
+     * of the entries.
+     *
+     * @param now        the current date
+     * @param timeToLive the time to live of an entry
+     */
+    private void evict(final long now, final long timeToLive) {
+        Iterator<PathAttributes> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getChecked() > timeToLive) {
+                it.remove();
+            }
+        }
+        int excess = entries.size() - maxEntries * 3 / 4;
+        it = entries.values().iterator();
+        while (excess > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            excess--;
+        }
+    }
+
+    /**
+     * Read the attributes of a file.
+     *
+     * @param file file
+     * @return the attributes
+     * @throws IOException if an i/o error occurs
+     */
+    private static PathAttributes read(final File file) throws IOException {
+        PathAttributes attributes = new PathAttributes();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return attributes;
+        }
+        attributes.setExists(true);
+        attributes.setDirectory(attrs.isDirectory());
+        attributes.setSize(attrs.size());
+        attributes.setLastModified(attrs.lastModifiedTime().toMillis());
+        if (attrs.isDirectory()) {
+            attributes.setChildren(Collections.unmodifiableList(DirectoryLister.list(file)));
+        }
+        return attributes;
+    }
+}
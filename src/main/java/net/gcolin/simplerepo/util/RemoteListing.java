@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import net.gcolin.simplerepo.model.ListingEntry;
+
+/**
+ * The listing of a remote directory. The listing is parsed from the HTML page
+ * of the remote repository and kept in a hidden file of the local directory, so
+ * a directory can be displayed without downloading its files.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class RemoteListing {
+
+    /**
+     * The name of the file that contains the listing in a directory.
+     */
+    public static final String FILE_NAME = ".listing";
+    /**
+     * A link followed by the text before the next link.
+     */
+    private static final Pattern LINK = Pattern.compile(
+            "<a\\s[^>]*?href\\s*=\\s*[\"']([^\"']*)[\"'][^>]*>.*?</a>(.*?)(?=<a\\s|$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    /**
+     * A tag.
+     */
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    /**
+     * A date like 2016-01-31 12:42 or 2016-01-31 12:42:10.
+     */
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}(?::\\d{2})?");
+    /**
+     * A date like 31-Jan-2016 12:42.
+     */
+    private static final Pattern APACHE_DATE = Pattern.compile("\\d{2}-[A-Za-z]{3}-\\d{4} \\d{2}:\\d{2}");
+    /**
+     * A date like Sun, 31 Jan 2016 12:42:10 GMT.
+     */
+    private static final Pattern RFC_DATE = Pattern
+            .compile("[A-Za-z]{3}, \\d{2} [A-Za-z]{3} \\d{4} \\d{2}:\\d{2}:\\d{2} GMT");
+    /**
+     * A size like 1024, 1.5K or 12M.
+     */
+    private static final Pattern SIZE = Pattern.compile("(?<![\\w.:-])(\\d+(?:\\.\\d+)?)([KMG]?)(?![\\w.:-])");
+    /**
+     * The format of the ISO dates with seconds.
+     */
+    private static final DateTimeFormatter ISO_SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss",
+            Locale.ENGLISH);
+    /**
+     * The format of the ISO dates without seconds.
+     */
+    private static final DateTimeFormatter ISO_MINUTES = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm",
+            Locale.ENGLISH);
+    /**
+     * The format of the Apache dates.
+     */
+    private static final DateTimeFormatter APACHE = DateTimeFormatter.ofPattern("dd-MMM-yyyy HH:mm",
+            Locale.ENGLISH);
+
+    /**
+     * Utility class.
+     */
+    private RemoteListing() {
+    }
+
+    /**
+     * Parse the HTML listing of a remote directory. Only the links to the
+     * children of the directory are kept.
+     *
+     * @param html the HTML page
+     * @return the items of the directory
+     */
+    public static List<ListingEntry> parse(final String html) {
+        List<ListingEntry> entries = new ArrayList<ListingEntry>();
+        Matcher matcher = LINK.matcher(html);
+        while (matcher.find()) {
+            String name = decode(matcher.group(1).trim());
+            boolean directory = name.endsWith("/");
+            if (directory) {
+                name = name.substring(0, name.length() - 1);
+            }
+            if (name.isEmpty() || name.startsWith(".") || name.indexOf('/') != -1 || name.indexOf('?') != -1
+                    || name.indexOf('#') != -1 || name.indexOf(':') != -1) {
+                // parent, sort links, anchors and links outside the directory
+                continue;
+            }
+            ListingEntry entry = new ListingEntry();
+            entry.setName(name);
+            entry.setDirectory(directory);
+            String text = TAG.matcher(matcher.group(2)).replaceAll(" ").replace("&nbsp;", " ");
+            int end = parseDate(entry, text);
+            if (end != -1 && !directory) {
+                entry.setSize(parseSize(text.substring(end)));
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Read the listing of a directory.
+     *
+     * @param dir the directory
+     * @return the items of the directory or null if the listing does not exist
+     *         or cannot be read
+     */
+    public static List<ListingEntry> read(final File dir) {
+        File file = new File(dir, FILE_NAME);
+        if (!file.exists()) {
+            return null;
+        }
+        try (Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            JSONArray array = (JSONArray) new JSONParser().parse(in);
+            List<ListingEntry> entries = new ArrayList<ListingEntry>(array.size());
+            for (Object item : array) {
+                JSONObject o = (JSONObject) item;
+                ListingEntry entry = new ListingEntry();
+                entry.setName((String) o.get("name"));
+                entry.setDirectory(Boolean.TRUE.equals(o.get("directory")));
+                entry.setSize((Long) o.get("size"));
+                entry.setLastModified((Long) o.get("lastModified"));
+                entries.add(entry);
+            }
+            return entries;
+        } catch (IOException | ParseException | ClassCastException | NullPointerException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Write the listing of a directory.
+     *
+     * @param dir     the directory
+     * @param entries the items of the directory
+     * @throws IOException if an i/o error occurs
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(final File dir, final List<ListingEntry> entries) throws IOException {
+        File file = new File(dir, FILE_NAME);
+        File tmp = new File(dir, FILE_NAME + ".part");
+        JSONArray array = new JSONArray();
+        for (ListingEntry entry : entries) {
+            JSONObject o = new JSONObject();
+            o.put("name", entry.getName());
+            o.put("directory", entry.isDirectory());
+            o.put("size", entry.getSize());
+            o.put("lastModified", entry.getLastModified());
+            array.add(o);
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            array.writeJSONString(out);
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Decode the href of a link.
+     *
+     * @param href href
+     * @return the decoded href
+     */
+    private static String decode(final String href) {
+        try {
+            return URLDecoder.decode(href.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException ex) {
+            return href;
+        }
+    }
+
+    /**
+     * Find the last modification date in the text following a link.
+     *
+     * @param entry the item
+     * @param text  the text following the link
+     * @return the end of the date in the text or -1 if there is no date
+     */
+    private static int parseDate(final ListingEntry entry, final String text) {
+        try {
+            Matcher matcher = ISO_DATE.matcher(text);
+            if (matcher.find()) {
+                String date = matcher.group();
+                LocalDateTime time = LocalDateTime.parse(date, date.length() > 16 ? ISO_SECONDS : ISO_MINUTES);
+                entry.setLastModified(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+                return matcher.end();
+            }
+            matcher = APACHE_DATE.matcher(text);
+            if (matcher.find()) {
+                LocalDateTime time = LocalDateTime.parse(matcher.group(), APACHE);
+                entry.setLastModified(time.toInstant(ZoneOffset.UTC).toEpochMilli());
+                return matcher.end();
+            }
+            matcher = RFC_DATE.matcher(text);
+            if (matcher.find()) {
+                ZonedDateTime time = ZonedDateTime.parse(matcher.group(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                entry.setLastModified(time.toInstant().toEpochMilli());
+                return matcher.end();
+            }
+        } catch (DateTimeParseException ex) {
+            entry.setLastModified(0);
+        }
+        return -1;
+    }
+
+    /**
+     * Find the size in the text following the date of a link.
+     *
+     * @param text the text following the date
+     * @return the size in bytes or -1 if there is no size
+     */
+    private static long parseSize(final String text) {
+        Matcher matcher = SIZE.matcher(text);
+        if (!matcher.find()) {
+            return -1L;
+        }
+        double size = Double.parseDouble(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "K":
+                size *= 1024;
+                break;
+            case "M":
+                size *= 1024 * 1024;
+                break;
+            case "G":
+                size *= 1024 * 1024 * 1024;
+                break;
+            default:
+                break;
+        }
+        return (long) size;
+    }
+}
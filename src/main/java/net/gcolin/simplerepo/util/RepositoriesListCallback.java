@@ -63,4 +63,9 @@ public class RepositoriesListCallback extends ListCallback {
         }
     }
 
+    @Override
+    public int getRowCount() {
+        return configurationManager.getConfiguration().getRepositories().size();
+    }
+
 }
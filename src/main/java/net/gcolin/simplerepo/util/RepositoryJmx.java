@@ -48,6 +48,36 @@ public interface RepositoryJmx {
      */
     void updateArtifactMaxAge(long milliseconds);
 
+    /**
+     * Look up the included repositories at the same time or one by one. In
+     * both cases, the first included repository that has a file wins. The
+     * remote repositories are asked at the same time with HEAD requests and
+     * the file is downloaded from the winner only.
+     *
+     * @param parallel true for looking up the included repositories at the
+     * same time
+     */
+    void updateParallelResolution(boolean parallel);
+
+    /**
+     * Update the time during which the clients and the proxies keep the
+     * released artifacts. They are sent as immutable.
+     *
+     * @param milliseconds the time in milliseconds, 0 for revalidating them
+     * each time or -1 for the default (one year)
+     */
+    void updateReleaseMaxAge(long milliseconds);
+
+    /**
+     * Update the time during which the clients and the proxies keep the
+     * metadata and the snapshots.
+     *
+     * @param milliseconds the time in milliseconds, 0 for revalidating them
+     * each time or -1 for the artifact max age (one minute if the artifacts
+     * never expire)
+     */
+    void updateMetadataMaxAge(long milliseconds);
+
     /**
      * Include a repository to this one.
      *
@@ -96,4 +126,27 @@ public interface RepositoryJmx {
      */
     long getArtifactMaxAge();
 
+    /**
+     * Check if the included repositories are looked up at the same time.
+     *
+     * @return true if the included repositories are looked up at the same time
+     */
+    boolean isParallelResolution();
+
+    /**
+     * Get the time during which the clients and the proxies keep the released
+     * artifacts.
+     *
+     * @return the time in milliseconds or -1 for the default
+     */
+    long getReleaseMaxAge();
+
+    /**
+     * Get the time during which the clients and the proxies keep the metadata
+     * and the snapshots.
+     *
+     * @return the time in milliseconds or -1 for the artifact max age
+     */
+    long getMetadataMaxAge();
+
 }
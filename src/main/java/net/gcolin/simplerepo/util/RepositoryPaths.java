@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+/**
+ * Check the paths of files sent by the clients.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class RepositoryPaths {
+
+    /**
+     * Utility class.
+     */
+    private RepositoryPaths() {
+    }
+
+    /**
+     * Get the relative path of a file in a repository.
+     *
+     * @param path a path
+     * @return the path without the leading slashes or null if the path is a
+     *         directory, leaves the repository or designates an internal file
+     */
+    public static String normalize(final String path) {
+        String result = path;
+        while (result.startsWith("/")) {
+            result = result.substring(1);
+        }
+        if (result.isEmpty() || result.endsWith("/") || result.indexOf('\\') != -1) {
+            return null;
+        }
+        for (String segment : result.split("/")) {
+            // no parent, no hidden file
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        return result;
+    }
+}
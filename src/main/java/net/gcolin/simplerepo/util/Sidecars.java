@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import net.gcolin.simplerepo.model.Checksums;
+
+/**
+ * The checksum files deployed next to the artifacts (foo.jar.sha1 for
+ * foo.jar).
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public final class Sidecars {
+
+    /**
+     * The extensions of the checksum files.
+     */
+    public static final List<String> EXTENSIONS = Collections
+            .unmodifiableList(Arrays.asList("md5", "sha1", "sha256", "sha512"));
+    /**
+     * The maximum number of bytes of a checksum file read.
+     */
+    private static final int MAX_LENGTH = 1024;
+
+    /**
+     * Utility class.
+     */
+    private Sidecars() {
+    }
+
+    /**
+     * Get the algorithm of a checksum file.
+     *
+     * @param name the name of a file
+     * @return the extension of the checksum file or null if the file is not a
+     *         checksum file
+     */
+    public static String getExtension(final String name) {
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        String ext = name.substring(dot + 1);
+        return EXTENSIONS.contains(ext) ? ext : null;
+    }
+
+    /**
+     * Get a digest.
+     *
+     * @param checksums the digests of a file
+     * @param extension the extension of the checksum file
+     * @return the digest in hexadecimal or null if unknown
+     */
+    public static String getDigest(final Checksums checksums, final String extension) {
+        switch (extension) {
+        case "md5":
+            return checksums.getMd5();
+        case "sha1":
+            return checksums.getSha1();
+        case "sha256":
+            return checksums.getSha256();
+        case "sha512":
+            return checksums.getSha512();
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Get the name of the header that contains a digest sent by a client
+     * (X-Checksum-Sha1 for sha1).
+     *
+     * @param extension the extension of the checksum file
+     * @return the header name
+     */
+    public static String getHeader(final String extension) {
+        return "X-Checksum-" + Character.toUpperCase(extension.charAt(0)) + extension.substring(1);
+    }
+
+    /**
+     * Read the digest of a checksum file. The file contains the digest in
+     * hexadecimal optionally followed by the name of the file.
+     *
+     * @param file a checksum file
+     * @return the digest in lower case or null if the file is empty
+     * @throws IOException if an I/O error occurs.
+     */
+    public static String read(final File file) throws IOException {
+        byte[] buf = new byte[MAX_LENGTH];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file)) {
+            int count;
+            while (length < buf.length && (count = in.read(buf, length, buf.length - length)) != -1) {
+                length += count;
+            }
+        }
+        String content = new String(buf, 0, length, StandardCharsets.ISO_8859_1).trim();
+        if (content.isEmpty()) {
+            return null;
+        }
+        String[] tokens = content.split("\\s+", 2);
+        return tokens[0].toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Write the checksum files of a file. The existing checksum files are
+     * replaced because they may describe a previous version of the file.
+     *
+     * @param file      file
+     * @param checksums the digests of the file
+     * @return the checksum files written
+     * @throws IOException if an I/O error occurs.
+     */
+    public static List<File> write(final File file, final Checksums checksums) throws IOException {
+        List<File> written = new ArrayList<File>(EXTENSIONS.size());
+        for (String ext : EXTENSIONS) {
+            String digest = getDigest(checksums, ext);
+            if (digest == null) {
+                continue;
+            }
+            File sidecar = new File(file.getParentFile(), file.getName() + "." + ext);
+            File tmp = new File(file.getParentFile(), "." + sidecar.getName() + ".part");
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                out.write(digest.getBytes(StandardCharsets.ISO_8859_1));
+            }
+            try {
+                Files.move(tmp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            written.add(sidecar);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Execute at most one task by key at the same time. The callers that ask for
+ * a key already in progress wait for the result of the running task instead of
+ * executing their own.
+ *
+ * @param <V> result type
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class SingleFlight<V> {
+
+    /**
+     * The tasks in progress.
+     */
+    private final ConcurrentMap<String, Flight<V>> flights = new ConcurrentHashMap<String, Flight<V>>();
+    /**
+     * The tasks executed by the current thread, the innermost last.
+     */
+    private final ThreadLocal<List<Flight<V>>> owned = new ThreadLocal<List<Flight<V>>>() {
+        @Override
+        protected List<Flight<V>> initialValue() {
+            return new ArrayList<Flight<V>>();
+        }
+    };
+
+    /**
+     * Execute a task or wait for the task in progress with the same key. A task
+     * that asks for its own key (recursive call) is executed directly.
+     *
+     * @param key      key
+     * @param callable task
+     * @return the result of the task or the result published by the task
+     * @throws IOException if the task fails
+     */
+    public V execute(final String key, final Callable<V> callable) throws IOException {
+        Flight<V> flight = new Flight<V>(Thread.currentThread());
+        Flight<V> inflight = flights.putIfAbsent(key, flight);
+        if (inflight == null) {
+            List<Flight<V>> stack = owned.get();
+            stack.add(flight);
+            try {
+                V value = call(callable);
+                flight.done(value, null);
+                return value;
+            } catch (IOException | RuntimeException | Error ex) {
+                flight.done(null, ex);
+                throw ex;
+            } finally {
+                stack.remove(stack.size() - 1);
+                flights.remove(key, flight);
+            }
+        } else if (inflight.owner == Thread.currentThread()) {
+            return call(callable);
+        } else {
+            return inflight.await();
+        }
+    }
+
+    /**
+     * Give a partial result to the callers waiting for a task executed by the
+     * current thread. The waiting callers and the next ones receive this result
+     * while the task continues. The tasks of the current thread that enclose
+     * this task (a virtual repository resolved through its members) receive it
+     * too, because their result is the result of this task.
+     *
+     * @param key   key
+     * @param value the partial result
+     */
+    public void publish(final String key, final V value) {
+        Flight<V> flight = flights.get(key);
+        if (flight != null && flight.owner == Thread.currentThread()) {
+            List<Flight<V>> stack = owned.get();
+            int index = stack.lastIndexOf(flight);
+            for (int i = index; i >= 0; i--) {
+                stack.get(i).publish(value);
+            }
+        }
+    }
+
+    /**
+     * Get the number of tasks in progress.
+     *
+     * @return the number of tasks in progress
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * Call a task.
+     *
+     * @param callable task
+     * @return the result of the task
+     * @throws IOException if the task fails
+     */
+    private V call(final Callable<V> callable) throws IOException {
+        try {
+            return callable.call();
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * A task in progress.
+     *
+     * @param <V> result type
+     */
+    private static final class Flight<V> {
+
+        /**
+         * The thread that executes the task.
+         */
+        private final Thread owner;
+        /**
+         * The result.
+         */
+        private V value;
+        /**
+         * The error.
+         */
+        private Throwable error;
+        /**
+         * True if the task is finished or a partial result is published.
+         */
+        private boolean available;
+
+        /**
+         * Create a Flight.
+         *
+         * @param owner the thread that executes the task
+         */
+        Flight(final Thread owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * Publish a partial result.
+         *
+         * @param partial partial result
+         */
+        synchronized void publish(final V partial) {
+            value = partial;
+            available = true;
+            notifyAll();
+        }
+
+        /**
+         * Finish the task.
+         *
+         * @param result result
+         * @param ex     error
+         */
+        synchronized void done(final V result, final Throwable ex) {
+            if (!available) {
+                value = result;
+                error = ex;
+                available = true;
+            }
+            notifyAll();
+        }
+
+        /**
+         * Wait for the result.
+         *
+         * @return the result
+         * @throws IOException if the task fails
+         */
+        synchronized V await() throws IOException {
+            while (!available) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(ex.getMessage());
+                }
+            }
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by keys. Two keys with the same hash use the
+ * same lock, the other keys are locked independently.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class StripedLocks {
+
+    /**
+     * The locks.
+     */
+    private final Lock[] locks;
+
+    /**
+     * Create a StripedLocks.
+     *
+     * @param stripes the number of locks, a power of two
+     */
+    public StripedLocks(final int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("the number of locks must be a power of two: " + stripes);
+        }
+        locks = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Get the lock of a key.
+     *
+     * @param key key
+     * @return the lock
+     */
+    public Lock get(final String key) {
+        int h = key.hashCode();
+        // spread the high bits as the low bits select the lock
+        h ^= h >>> 16;
+        return locks[h & (locks.length - 1)];
+    }
+}
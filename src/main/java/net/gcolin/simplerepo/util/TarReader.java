@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read the files of a tar stream. The ustar, GNU long names and pax paths are
+ * supported. The directories, links and special files are skipped.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class TarReader {
+
+    /**
+     * The size of a block.
+     */
+    public static final int BLOCK_SIZE = 512;
+    /**
+     * The maximum size of a long name or of pax headers.
+     */
+    private static final int MAX_HEADER_SIZE = 1024 * 1024;
+    /**
+     * The tar stream.
+     */
+    private final InputStream in;
+    /**
+     * The current header.
+     */
+    private final byte[] header = new byte[BLOCK_SIZE];
+    /**
+     * The bytes of the current file not read.
+     */
+    private long remaining;
+    /**
+     * The padding after the current file.
+     */
+    private long padding;
+    /**
+     * The size of the current file.
+     */
+    private long size;
+    /**
+     * True if the end of the archive is reached.
+     */
+    private boolean end;
+
+    /**
+     * Create a TarReader.
+     *
+     * @param in the tar stream
+     */
+    public TarReader(final InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Check if bytes start a tar stream.
+     *
+     * @param buf   bytes
+     * @param count the number of bytes
+     * @return true if the bytes have the ustar magic
+     */
+    public static boolean isTar(final byte[] buf, final int count) {
+        return count >= 262 && new String(buf, 257, 5, StandardCharsets.ISO_8859_1).equals("ustar");
+    }
+
+    /**
+     * Go to the next file.
+     *
+     * @return the path of the file or null at the end of the archive
+     * @throws IOException if the stream is not a valid tar stream
+     */
+    public String next() throws IOException {
+        String longName = null;
+        while (!end) {
+            skip(remaining + padding);
+            if (!readHeader()) {
+                end = true;
+                break;
+            }
+            char type = (char) header[156];
+            if (type == 'L' || type == 'x') {
+                String value = readEntry();
+                if (type == 'L') {
+                    int n = value.indexOf('\0');
+                    longName = n == -1 ? value : value.substring(0, n);
+                } else {
+                    String pax = getPaxPath(value);
+                    longName = pax == null ? longName : pax;
+                }
+            } else if (type == '0' || type == '\0' || type == '7') {
+                return longName == null ? getName() : longName;
+            } else {
+                // directory, link, global pax header or special file
+                longName = null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the size of the current file.
+     *
+     * @return the size of the current file
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get a stream of the current file. The stream is valid until the next
+     * call to {@link #next()}.
+     *
+     * @return a stream of the current file
+     */
+    public InputStream getInputStream() {
+        return new EntryStream();
+    }
+
+    /**
+     * Read a header.
+     *
+     * @return false at the end of the archive
+     * @throws IOException if the header is invalid
+     */
+    private boolean readHeader() throws IOException {
+        int count = 0;
+        while (count < BLOCK_SIZE) {
+            int n = in.read(header, count, BLOCK_SIZE - count);
+            if (n == -1) {
+                if (count == 0) {
+                    return false;
+                }
+                throw new EOFException("truncated tar header");
+            }
+            count += n;
+        }
+        long sum = 0;
+        boolean zero = true;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int b = header[i] & 0xFF;
+            zero &= b == 0;
+            // the checksum field is counted as spaces
+            sum += i >= 148 && i < 156 ? ' ' : b;
+        }
+        if (zero) {
+            return false;
+        }
+        if (sum != parseOctal(148, 8)) {
+            throw new IOException("invalid tar header checksum");
+        }
+        size = parseOctal(124, 12);
+        if (size < 0) {
+            throw new IOException("invalid tar entry size");
+        }
+        remaining = size;
+        padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+        return true;
+    }
+
+    /**
+     * Read the current entry in memory.
+     *
+     * @return the content of the entry
+     * @throws IOException if the entry is too large
+     */
+    private String readEntry() throws IOException {
+        if (size > MAX_HEADER_SIZE) {
+            throw new IOException("tar header too large");
+        }
+        byte[] buf = new byte[(int) size];
+        int count = 0;
+        while (count < buf.length) {
+            int n = in.read(buf, count, buf.length - count);
+            if (n == -1) {
+                throw new EOFException("truncated tar entry");
+            }
+            count += n;
+        }
+        remaining = 0;
+        return new String(buf, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the path of pax headers.
+     *
+     * @param records pax records
+     * @return the path or null
+     * @throws IOException if a record is invalid
+     */
+    private String getPaxPath(final String records) throws IOException {
+        byte[] bytes = records.getBytes(StandardCharsets.UTF_8);
+        String path = null;
+        int pos = 0;
+        while (pos < bytes.length) {
+            // a record is "<length> <key>=<value>\n", the length counts bytes
+            int space = pos;
+            while (space < bytes.length && bytes[space] != ' ') {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(bytes, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException ex) {
+                throw new IOException("invalid pax header", ex);
+            }
+            if (length <= space - pos || pos + length > bytes.length) {
+                throw new IOException("invalid pax header");
+            }
+            String record = new String(bytes, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                path = record.substring(5);
+            }
+            pos += length;
+        }
+        return path;
+    }
+
+    /**
+     * Get the name of the current header.
+     *
+     * @return the name with the prefix
+     */
+    private String getName() {
+        String name = getString(0, 100);
+        if (isTar(header, BLOCK_SIZE)) {
+            String prefix = getString(345, 155);
+            if (!prefix.isEmpty()) {
+                name = prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Get a string field of the current header.
+     *
+     * @param off    offset
+     * @param length maximum length
+     * @return the string
+     */
+    private String getString(final int off, final int length) {
+        int end = off;
+        while (end < off + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, off, end - off, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse a numeric field of the current header.
+     *
+     * @param off    offset
+     * @param length length
+     * @return the number
+     * @throws IOException if the field is invalid
+     */
+    private long parseOctal(final int off, final int length) throws IOException {
+        if ((header[off] & 0x80) != 0) {
+            // GNU base-256 encoding of the large sizes
+            long value = header[off] & 0x7F;
+            for (int i = off + 1; i < off + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = off; i < off + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value > 0) {
+                    break;
+                }
+            } else if (b >= '0' && b <= '7') {
+                value = (value << 3) + b - '0';
+            } else {
+                throw new IOException("invalid tar header");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Skip bytes.
+     *
+     * @param count the number of bytes
+     * @throws IOException if the stream ends before
+     */
+    private void skip(final long count) throws IOException {
+        long left = count;
+        while (left > 0) {
+            long n = in.skip(left);
+            if (n <= 0) {
+                if (in.read() == -1) {
+                    throw new EOFException("truncated tar entry");
+                }
+                n = 1;
+            }
+            left -= n;
+        }
+        remaining = 0;
+        padding = 0;
+    }
+
+    /**
+     * A stream of the current file.
+     */
+    private final class EntryStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] buf = new byte[1];
+            return read(buf, 0, 1) == -1 ? -1 : buf[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = in.read(buf, off, (int) Math.min(len, remaining));
+            if (count == -1) {
+                throw new EOFException("truncated tar entry");
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The client of the remote repositories. The connections are grouped by remote
+ * server, each group has a bounded number of connections and the connections
+ * are reused between the requests.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class UpstreamClient {
+
+    /**
+     * The configuration manager.
+     */
+    private final ConfigurationManager configManager;
+    /**
+     * The connections by remote server.
+     */
+    private final ConcurrentMap<String, UpstreamPool> pools = new ConcurrentHashMap<String, UpstreamPool>();
+
+    /**
+     * Create an UpstreamClient.
+     *
+     * @param configManager the configuration manager
+     */
+    public UpstreamClient(final ConfigurationManager configManager) {
+        this.configManager = configManager;
+    }
+
+    /**
+     * Send a request to a remote repository. The response must be closed.
+     *
+     * @param url             the URL of the resource
+     * @param method          the HTTP method
+     * @param ifModifiedSince the date of the local copy or 0
+     * @return the response
+     * @throws IOException if an I/O error occurs.
+     */
+    public UpstreamResponse open(final String url, final String method, final long ifModifiedSince)
+            throws IOException {
+        URL u = new URL(url);
+        UpstreamPool pool = getPool(u);
+        pool.acquire(configManager.getConnectTimeout());
+        URLConnection c = null;
+        try {
+            c = u.openConnection();
+            c.setUseCaches(false);
+            c.setConnectTimeout((int) configManager.getConnectTimeout());
+            c.setReadTimeout((int) configManager.getReadTimeout());
+            if (ifModifiedSince > 0) {
+                c.setIfModifiedSince(ifModifiedSince);
+            }
+            if (c instanceof HttpURLConnection) {
+                ((HttpURLConnection) c).setRequestMethod(method);
+            }
+            c.connect();
+            UpstreamResponse response = new UpstreamResponse(c, pool, method);
+            response.getStatus();
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            pool.error();
+            if (c instanceof HttpURLConnection) {
+                pool.close();
+                ((HttpURLConnection) c).disconnect();
+            }
+            pool.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Get the connections of a remote server.
+     *
+     * @param url an URL of the remote server
+     * @return the connections of the remote server
+     */
+    private UpstreamPool getPool(final URL url) {
+        String server = url.getProtocol() + "://" + url.getHost() + ":"
+                + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+        UpstreamPool pool = pools.get(server);
+        if (pool == null) {
+            UpstreamPool created = new UpstreamPool(server, configManager.getMaxConnectionsPerRemote());
+            pool = pools.putIfAbsent(server, created);
+            if (pool == null) {
+                pool = created;
+                JmxUtil.publish(configManager.getUpstreamJmxName(server), pool, UpstreamJmx.class);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Change the maximum number of connections of the remote servers already
+     * contacted. The new servers use the value of the configuration.
+     *
+     * @param maxConnections the maximum number of connections by server
+     */
+    public void setMaxConnections(final int maxConnections) {
+        for (UpstreamPool pool : pools.values()) {
+            pool.setMaxConnections(maxConnections);
+        }
+    }
+
+    /**
+     * Unpublish the statistics.
+     */
+    public void close() {
+        for (String server : pools.keySet()) {
+            JmxUtil.unpublish(configManager.getUpstreamJmxName(server));
+        }
+    }
+}
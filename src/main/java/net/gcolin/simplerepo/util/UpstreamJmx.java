@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+/**
+ * Remote server connections JMX API.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public interface UpstreamJmx {
+
+    /**
+     * Get the remote server.
+     *
+     * @return the protocol, the host and the port of the remote server
+     */
+    String getServer();
+
+    /**
+     * Get the maximum number of connections opened at the same time.
+     *
+     * @return the maximum number of connections
+     */
+    int getMaxConnections();
+
+    /**
+     * Set the maximum number of connections opened at the same time.
+     *
+     * @param maxConnections the maximum number of connections
+     */
+    void setMaxConnections(int maxConnections);
+
+    /**
+     * Get the number of connections in use.
+     *
+     * @return the number of connections in use
+     */
+    int getActiveConnections();
+
+    /**
+     * Get the highest number of connections in use at the same time.
+     *
+     * @return the highest number of connections in use
+     */
+    int getPeakConnections();
+
+    /**
+     * Get the number of requests waiting for a connection.
+     *
+     * @return the number of requests waiting for a connection
+     */
+    int getWaitingRequests();
+
+    /**
+     * Get the number of requests sent.
+     *
+     * @return the number of requests sent
+     */
+    long getRequests();
+
+    /**
+     * Get the number of requests that have failed.
+     *
+     * @return the number of requests that have failed
+     */
+    long getErrors();
+
+    /**
+     * Get the number of connections closed instead of being kept alive.
+     *
+     * @return the number of connections closed
+     */
+    long getClosedConnections();
+
+    /**
+     * Get the number of bytes received.
+     *
+     * @return the number of bytes received
+     */
+    long getBytesReceived();
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The connections to a remote server. The number of connections in use is
+ * bounded and the idle connections are kept alive by the JRE for the next
+ * requests.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class UpstreamPool implements UpstreamJmx {
+
+    /**
+     * The protocol, the host and the port of the remote server.
+     */
+    private final String server;
+    /**
+     * The maximum number of connections.
+     */
+    private int maxConnections;
+    /**
+     * The number of connections in use.
+     */
+    private int active;
+    /**
+     * The highest number of connections in use.
+     */
+    private int peak;
+    /**
+     * The number of requests waiting for a connection.
+     */
+    private int waiting;
+    /**
+     * The number of requests.
+     */
+    private final AtomicLong requests = new AtomicLong();
+    /**
+     * The number of errors.
+     */
+    private final AtomicLong errors = new AtomicLong();
+    /**
+     * The number of connections closed.
+     */
+    private final AtomicLong closed = new AtomicLong();
+    /**
+     * The number of bytes received.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Create an UpstreamPool.
+     *
+     * @param server         the protocol, the host and the port of the remote
+     *                       server
+     * @param maxConnections the maximum number of connections
+     */
+    public UpstreamPool(final String server, final int maxConnections) {
+        this.server = server;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Wait for a connection.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @throws IOException if no connection is available in time
+     */
+    synchronized void acquire(final long timeout) throws IOException {
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        waiting++;
+        try {
+            while (active >= maxConnections) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+                if (remaining <= 0) {
+                    errors.incrementAndGet();
+                    throw new IOException("no connection available for " + server);
+                }
+                wait(remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } finally {
+            waiting--;
+        }
+        active++;
+        peak = Math.max(peak, active);
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Give back a connection.
+     */
+    synchronized void release() {
+        active--;
+        notifyAll();
+    }
+
+    /**
+     * Count an error.
+     */
+    void error() {
+        errors.incrementAndGet();
+    }
+
+    /**
+     * Count a connection closed.
+     */
+    void close() {
+        closed.incrementAndGet();
+    }
+
+    /**
+     * Count bytes received.
+     *
+     * @param count the number of bytes
+     */
+    void received(final long count) {
+        bytes.addAndGet(count);
+    }
+
+    @Override
+    public String getServer() {
+        return server;
+    }
+
+    @Override
+    public synchronized int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public synchronized void setMaxConnections(final int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("The number of connections must be positive");
+        }
+        this.maxConnections = maxConnections;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized int getActiveConnections() {
+        return active;
+    }
+
+    @Override
+    public synchronized int getPeakConnections() {
+        return peak;
+    }
+
+    @Override
+    public synchronized int getWaitingRequests() {
+        return waiting;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.get();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public long getClosedConnections() {
+        return closed.get();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytes.get();
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+
+/**
+ * A response of a remote repository. Closing the response gives the connection
+ * back for the next requests when the body has been read entirely.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class UpstreamResponse implements Closeable {
+
+    /**
+     * The size of the error bodies read for reusing the connection.
+     */
+    private static final int MAX_ERROR_BODY = 64 * 1024;
+
+    /**
+     * The connection.
+     */
+    private final URLConnection connection;
+    /**
+     * The connections of the remote server.
+     */
+    private final UpstreamPool pool;
+    /**
+     * The HTTP method.
+     */
+    private final String method;
+    /**
+     * The body.
+     */
+    private CountingStream in;
+    /**
+     * True if the response is closed.
+     */
+    private boolean closed;
+
+    /**
+     * Create an UpstreamResponse.
+     *
+     * @param connection the connection
+     * @param pool       the connections of the remote server
+     * @param method     the HTTP method
+     */
+    UpstreamResponse(final URLConnection connection, final UpstreamPool pool, final String method) {
+        this.connection = connection;
+        this.pool = pool;
+        this.method = method;
+    }
+
+    /**
+     * Get the HTTP status.
+     *
+     * @return the HTTP status or 200 if the protocol is not HTTP
+     * @throws IOException if an I/O error occurs.
+     */
+    public int getStatus() throws IOException {
+        if (connection instanceof HttpURLConnection) {
+            return ((HttpURLConnection) connection).getResponseCode();
+        }
+        return HttpURLConnection.HTTP_OK;
+    }
+
+    /**
+     * Get the content type.
+     *
+     * @return the content type or null
+     */
+    public String getContentType() {
+        return connection.getContentType();
+    }
+
+    /**
+     * Get the content length.
+     *
+     * @return the content length or -1
+     */
+    public long getContentLength() {
+        return connection.getContentLengthLong();
+    }
+
+    /**
+     * Get the last modification date.
+     *
+     * @return the last modification date or 0
+     */
+    public long getLastModified() {
+        return connection.getLastModified();
+    }
+
+    /**
+     * Get a header.
+     *
+     * @param name the name of the header
+     * @return the value of the header or null
+     */
+    public String getHeader(final String name) {
+        return connection.getHeaderField(name);
+    }
+
+    /**
+     * Get the body.
+     *
+     * @return the body
+     * @throws IOException if an I/O error occurs.
+     */
+    public InputStream getInputStream() throws IOException {
+        if (in == null) {
+            in = new CountingStream(connection.getInputStream());
+        }
+        return in;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean reusable = true;
+        if (in != null) {
+            reusable = in.eof && !in.failed;
+            Io.close(in);
+        } else if (connection instanceof HttpURLConnection) {
+            HttpURLConnection http = (HttpURLConnection) connection;
+            InputStream error = http.getErrorStream();
+            if (error != null) {
+                reusable = drain(error);
+            } else {
+                // a body that has not been read prevents the reuse
+                int status = getResponseCode(http);
+                reusable = "HEAD".equals(method) || status == HttpURLConnection.HTTP_NOT_MODIFIED
+                        || status >= HttpURLConnection.HTTP_BAD_REQUEST;
+            }
+        }
+        if (!reusable && connection instanceof HttpURLConnection) {
+            // a partially read connection cannot be reused
+            pool.close();
+            ((HttpURLConnection) connection).disconnect();
+        }
+        pool.release();
+    }
+
+    /**
+     * Get the HTTP status of a connection that has already received the
+     * response.
+     *
+     * @param http connection
+     * @return the HTTP status or -1
+     */
+    private int getResponseCode(final HttpURLConnection http) {
+        try {
+            return http.getResponseCode();
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Read an error body so the connection can be reused.
+     *
+     * @param error the error body
+     * @return true if the connection can be reused
+     */
+    private boolean drain(final InputStream error) {
+        try {
+            byte[] buf = new byte[1024];
+            long total = 0;
+            int count;
+            while ((count = error.read(buf)) != -1) {
+                total += count;
+                if (total > MAX_ERROR_BODY) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            return false;
+        } finally {
+            Io.close(error);
+        }
+    }
+
+    /**
+     * A stream that counts the bytes received.
+     */
+    private final class CountingStream extends FilterInputStream {
+
+        /**
+         * True if the end of the body is reached.
+         */
+        private boolean eof;
+        /**
+         * True if a read has failed.
+         */
+        private boolean failed;
+
+        /**
+         * Create a CountingStream.
+         *
+         * @param in the body
+         */
+        CountingStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buf = new byte[1];
+            return read(buf, 0, 1) == -1 ? -1 : buf[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len) throws IOException {
+            try {
+                int count = super.read(buf, off, len);
+                if (count == -1) {
+                    eof = true;
+                } else {
+                    pool.received(count);
+                }
+                return count;
+            } catch (IOException ex) {
+                failed = true;
+                pool.error();
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.gcolin.simplerepo.model.ContentResult;
+import net.gcolin.simplerepo.model.ListingEntry;
+
+/**
+ * Resolve a resource in the members of a virtual repository. The first member
+ * that has the file wins, the directories of all the members are merged.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class VirtualResolver {
+
+    /**
+     * True in the threads of the resolver.
+     */
+    private static final ThreadLocal<Boolean> WORKER = new ThreadLocal<Boolean>();
+
+    /**
+     * The executor of the parallel lookups.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Create a VirtualResolver.
+     *
+     * @param threads the maximum number of parallel lookups
+     */
+    public VirtualResolver(final int threads) {
+        executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("simplerepo-resolver"));
+    }
+
+    /**
+     * Resolve a resource.
+     *
+     * @param members  the lookups in the members, by priority
+     * @param parallel true for executing the lookups at the same time
+     * @return the result or null if a lookup returns null before a member with
+     *         the file
+     * @throws IOException if a lookup fails
+     */
+    public ContentResult resolve(final List<Callable<ContentResult>> members, final boolean parallel)
+            throws IOException {
+        if (parallel && members.size() > 1 && WORKER.get() == null) {
+            return resolveParallel(members);
+        }
+        ContentResult result = new ContentResult();
+        for (Callable<ContentResult> member : members) {
+            ContentResult res = call(member);
+            if (res == null) {
+                return null;
+            } else if (merge(result, res)) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Run cheap lookups in all the members at the same time, for choosing the
+     * members where the resource is retrieved.
+     *
+     * @param <T>     the type of the results
+     * @param lookups the lookups in the members, by priority
+     * @return the results by priority, null for a lookup that failed
+     * @throws IOException if the thread is interrupted
+     */
+    public <T> List<T> probe(final List<Callable<T>> lookups) throws IOException {
+        List<T> results = new ArrayList<T>(lookups.size());
+        if (lookups.size() < 2 || WORKER.get() != null) {
+            for (Callable<T> lookup : lookups) {
+                try {
+                    results.add(lookup.call());
+                } catch (Exception ex) {
+                    results.add(null);
+                }
+            }
+            return results;
+        }
+        List<Future<T>> futures = new ArrayList<Future<T>>(lookups.size());
+        for (final Callable<T> lookup : lookups) {
+            futures.add(executor.submit(() -> {
+                WORKER.set(Boolean.TRUE);
+                try {
+                    return lookup.call();
+                } finally {
+                    WORKER.remove();
+                }
+            }));
+        }
+        try {
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException ex) {
+                    results.add(null);
+                }
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Resolve a resource with parallel lookups. A lookup is used only when all
+     * the lookups of the members with a higher priority have not found the
+     * file, then the lookups not started are cancelled. The started lookups
+     * are not interrupted, other requests may follow their downloads.
+     *
+     * @param members the lookups in the members, by priority
+     * @return the result or null if a lookup returns null before a member with
+     *         the file
+     * @throws IOException if a lookup fails
+     */
+    private ContentResult resolveParallel(final List<Callable<ContentResult>> members) throws IOException {
+        List<Future<ContentResult>> futures = new ArrayList<Future<ContentResult>>(members.size());
+        for (final Callable<ContentResult> member : members) {
+            futures.add(executor.submit(() -> {
+                WORKER.set(Boolean.TRUE);
+                try {
+                    return member.call();
+                } finally {
+                    WORKER.remove();
+                }
+            }));
+        }
+        ContentResult result = new ContentResult();
+        try {
+            for (Future<ContentResult> future : futures) {
+                ContentResult res = future.get();
+                if (res == null) {
+                    return null;
+                } else if (merge(result, res)) {
+                    return result;
+                }
+            }
+            return result;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        } finally {
+            for (Future<ContentResult> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Merge the result of a member.
+     *
+     * @param result the result of the virtual repository
+     * @param res    the result of a member
+     * @return true if the member has the file
+     */
+    private boolean merge(final ContentResult result, final ContentResult res) {
+        if (res.getFile() != null || res.getDownload() != null) {
+            result.setFile(res.getFile());
+            result.setDownload(res.getDownload());
+            result.setAttributes(res.getAttributes());
+            result.setChildren(null);
+            result.setListing(null);
+            return true;
+        } else if (res.getChildren() != null) {
+            if (result.getChildren() == null) {
+                result.setChildren(new ArrayList<ListingEntry>(res.getChildren()));
+            } else {
+                result.getChildren().addAll(res.getChildren());
+            }
+            if (res.getListing() != null) {
+                if (result.getListing() == null) {
+                    result.setListing(new ArrayList<ListingEntry>(res.getListing()));
+                } else {
+                    result.getListing().addAll(res.getListing());
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Call a lookup.
+     *
+     * @param member lookup
+     * @return the result of the lookup
+     * @throws IOException if the lookup fails
+     */
+    private ContentResult call(final Callable<ContentResult> member) throws IOException {
+        try {
+            return member.call();
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Stop the lookups.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+}
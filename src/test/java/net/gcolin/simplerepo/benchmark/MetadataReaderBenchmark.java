@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import net.gcolin.simplerepo.model.Metadata;
+import net.gcolin.simplerepo.model.Version;
+import net.gcolin.simplerepo.model.VersionFile;
+import net.gcolin.simplerepo.util.MetadataReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Compare the streaming reading of a maven-metadata.xml with the previous DOM
+ * and XPath path of the snapshot clean up. Run with the main method from the
+ * test classpath, with -prof gc for the allocations.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataReaderBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int versions;
+
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StringBuilder str = new StringBuilder();
+        str.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata modelVersion=\"1.1.0\">\n")
+                .append("  <groupId>net.gcolin</groupId>\n  <artifactId>foo</artifactId>\n")
+                .append("  <version>1.0-SNAPSHOT</version>\n  <versioning>\n    <snapshot>\n")
+                .append("      <timestamp>20200101.000000</timestamp>\n      <buildNumber>1</buildNumber>\n")
+                .append("    </snapshot>\n    <lastUpdated>20200101000000</lastUpdated>\n")
+                .append("    <snapshotVersions>\n");
+        for (int i = 0; i < versions; i++) {
+            str.append("      <snapshotVersion>\n");
+            if (i % 2 == 1) {
+                str.append("        <classifier>sources").append(i).append("</classifier>\n");
+            }
+            str.append("        <extension>jar</extension>\n        <value>1.0-20200101.000000-1</value>\n")
+                    .append("        <updated>20200101000000</updated>\n      </snapshotVersion>\n");
+        }
+        str.append("    </snapshotVersions>\n  </versioning>\n</metadata>\n");
+        content = str.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Version> xpath() throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(content));
+        XPath xPath = XPathFactory.newInstance().newXPath();
+        String artifactId = (String) xPath.evaluate("/metadata/artifactId/text()", doc.getDocumentElement(),
+                XPathConstants.STRING);
+        String version = (String) xPath.evaluate("/metadata/version/text()", doc.getDocumentElement(),
+                XPathConstants.STRING);
+        NodeList versionsNode = (NodeList) xPath.evaluate("/metadata/versioning/snapshotVersions/snapshotVersion",
+                doc.getDocumentElement(), XPathConstants.NODESET);
+        List<Version> result = new ArrayList<Version>();
+        for (int i = 0; i < versionsNode.getLength(); i++) {
+            Node node = versionsNode.item(i);
+            Version v = new Version();
+            v.setClassifier(xPath.evaluate("classifier", node));
+            v.setExtension(xPath.evaluate("extension", node));
+            v.setValue(xPath.evaluate("value", node));
+            v.setUpdated(xPath.evaluate("updated", node));
+            NodeList matchesNode = (NodeList) xPath.evaluate("matches", node, XPathConstants.NODESET);
+            for (int j = 0; j < matchesNode.getLength(); j++) {
+                VersionFile vf = new VersionFile();
+                vf.setFile(xPath.evaluate("file", node));
+                vf.setVersion(xPath.evaluate("version", node));
+                v.getMatches().add(vf);
+            }
+            result.add(v);
+        }
+        version = version.substring(0, version.length() - "-SNAPSHOT".length());
+        Pattern.compile(artifactId + "-(" + version.replaceAll("\\.", "\\\\.")
+                + "-\\d{8}\\.\\d{6}-\\d)(-[^.]*){0,1}\\.(.*)");
+        return result;
+    }
+
+    @Benchmark
+    public List<Version> stax() throws IOException {
+        Metadata metadata = MetadataReader.read(new ByteArrayInputStream(content));
+        return metadata.getSnapshotVersions();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MetadataReaderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -71,6 +71,12 @@ public abstract class AbstractRepoTest {
     server.setAttribute(oname, new Attribute(attribute, arguments));
   }
 
+  protected Object getAttributeJmx(String name, String attribute) throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName oname = server.queryNames(new ObjectName(name), null).iterator().next();
+    return server.getAttribute(oname, attribute);
+  }
+
   protected void addRepository(String contextName, String repositoryName, String remote)
       throws Exception {
     executeOperationJmx("net.gcolin.simplerepo:ctx=" + contextName + ",type=Configuration",
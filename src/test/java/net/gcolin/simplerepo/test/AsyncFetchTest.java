@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the remote retrievals outside of the threads of the container.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class AsyncFetchTest extends AbstractRepoTest {
+
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/";
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[4096];
+        SlowServer upstream = new SlowServer(18081, content, 10, 100);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(BASE + "test/foo/1.0/foo-1.0.pom", "<project/>", "user", "user"));
+            setAttributeJmx(JMX, "FetchThreads", 1);
+            setAttributeJmx(JMX, "FetchQueueSize", 1);
+
+            Future<String> running = executor.submit(() -> getContent(BASE + "proxy/foo/1.0/foo-1.0.jar", 0));
+            Thread.sleep(200);
+            Future<String> waiting = executor.submit(() -> getContent(BASE + "proxy/foo/1.0/foo-1.0-a.jar", 0));
+            Thread.sleep(200);
+            // the queue is full
+            Assert.assertEquals(503, getStatus(BASE + "proxy/foo/1.0/foo-1.0-b.jar", 0));
+            // the local files do not wait for the remote retrievals
+            long start = System.currentTimeMillis();
+            Assert.assertEquals("<project/>", getContent(BASE + "test/foo/1.0/foo-1.0.pom", 0));
+            Assert.assertTrue(System.currentTimeMillis() - start < 500);
+            Assert.assertFalse(running.isDone());
+
+            Assert.assertEquals(content.length, running.get().length());
+            Assert.assertEquals(content.length, waiting.get().length());
+            // a rejected retrieval is not remembered as not found
+            Assert.assertEquals(200, getStatus(BASE + "proxy/foo/1.0/foo-1.0-b.jar", 0));
+            Assert.assertEquals(3, upstream.getRequests());
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test that a deployed file is visible at once in the cached listings.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class AttributeCacheTest extends AbstractRepoTest {
+
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            // long enough to be sure that only the invalidation refreshes the listings
+            setAttributeJmx(JMX, "AttributeCacheTtl", 60000L);
+
+            Assert.assertEquals(200, sendContent(BASE + "a.txt", "a", "user", "user"));
+            Assert.assertFalse(getContent(BASE, 0).contains("href=\"com/\""));
+            Assert.assertEquals(404, getStatus(BASE + "com/", 0));
+
+            Assert.assertEquals(200, sendContent(BASE + "com/acme/lib/1.0/lib-1.0.jar", "lib", "user", "user"));
+            Assert.assertTrue(getContent(BASE, 0).contains("href=\"com/\""));
+            Assert.assertTrue(getContent(BASE + "com/", 0).contains("href=\"acme/\""));
+            Assert.assertTrue(getContent(BASE + "com/acme/lib/", 0).contains("href=\"1.0/\""));
+            Assert.assertTrue(getContent(BASE + "com/acme/lib/1.0/", 0)
+                    .contains("href=\"lib-1.0.jar\""));
+            Assert.assertEquals("lib", getContent(BASE + "com/acme/lib/1.0/lib-1.0.jar", 0));
+        } finally {
+            server.stop();
+        }
+    }
+
+}
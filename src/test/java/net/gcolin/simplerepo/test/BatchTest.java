@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the batch resolution.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BatchTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server1 = createServer(18080, "server1");
+        Server server2 = createServer(18081, "server2");
+        try {
+            addRepository("server1", "test", null);
+            addRepository("server2", "remote", "http://localhost:18080/simple-repo/repository/test/");
+
+            File remoteFile = new File("target/reposerver1/test/org/acme/lib/1.0/lib-1.0.jar");
+            remoteFile.getParentFile().mkdirs();
+            FileUtils.write(remoteFile, "jar content", "utf-8");
+            File pom = new File("target/reposerver1/test/org/acme/lib/1.0/lib-1.0.pom");
+            FileUtils.write(pom, "<project/>", "utf-8");
+
+            HttpURLConnection c = post("http://localhost:18081/simple-repo/repository/remote/",
+                    "# artifacts\norg/acme/lib/1.0/lib-1.0.pom\n\norg.acme:lib:1.0\norg/acme/missing.jar\n../x\n");
+            Assert.assertEquals(200, c.getResponseCode());
+            String contentType = c.getContentType();
+            Assert.assertTrue(contentType.startsWith("multipart/mixed; boundary="));
+            String boundary = contentType.substring(contentType.indexOf('=') + 1);
+            String body;
+            InputStream in = c.getInputStream();
+            try {
+                body = IOUtils.toString(in, "utf-8");
+            } finally {
+                in.close();
+            }
+            c.disconnect();
+
+            String[] parts = body.split("\r\n--" + boundary);
+            Assert.assertEquals(6, parts.length);
+            Assert.assertEquals("--\r\n", parts[5]);
+            assertPart(parts[1], "org/acme/lib/1.0/lib-1.0.pom", 200, "<project/>");
+            assertPart(parts[2], "org.acme:lib:1.0", 200, "jar content");
+            assertPart(parts[3], "org/acme/missing.jar", 404, "");
+            assertPart(parts[4], "../x", 400, "");
+            Assert.assertTrue(new File("target/reposerver2/remote/org/acme/lib/1.0/lib-1.0.jar").exists());
+
+            c = post("http://localhost:18081/simple-repo/repository/remote/org/", "org/acme/lib/1.0/lib-1.0.pom");
+            Assert.assertEquals(404, c.getResponseCode());
+            c.disconnect();
+        } finally {
+            server1.stop();
+            server2.stop();
+        }
+    }
+
+    private void assertPart(String part, String item, int status, String content) {
+        int split = part.indexOf("\r\n\r\n");
+        String headers = part.substring(0, split);
+        Assert.assertTrue(headers, headers.contains("\r\nContent-Location: " + item + "\r\n"));
+        Assert.assertTrue(headers, headers.contains("\r\nX-Status: " + status));
+        Assert.assertEquals(content, part.substring(split + 4));
+    }
+
+    private HttpURLConnection post(String url, String body) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setUseCaches(false);
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+        OutputStream out = c.getOutputStream();
+        try {
+            out.write(body.getBytes("utf-8"));
+        } finally {
+            out.close();
+        }
+        return c;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the storage of the identical files as links to the same blob.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BlobStoreTest extends AbstractRepoTest {
+
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/";
+
+    @Test
+    public void test() throws Exception {
+        Server remote = createServer(18081, "remote");
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("remote", "test", null);
+            addRepository("server", "proxy1", "http://localhost:18081/simple-repo/repository/test/");
+            addRepository("server", "proxy2", "http://localhost:18081/simple-repo/repository/test/");
+            addRepository("server", "hosted", null);
+            setAttributeJmx(JMX, "BlobStore", true);
+            StringBuilder str = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                str.append("jar").append(i % 10).append(' ');
+            }
+            String content = str.toString();
+            String path = "foo/1.0/foo-1.0.jar";
+            File file1 = new File("target/reposerver/proxy1/" + path);
+            File file2 = new File("target/reposerver/proxy2/" + path);
+            File hosted = new File("target/reposerver/hosted/" + path);
+            String sha256 = DigestUtils.sha256Hex(content);
+            File blob = new File("target/reposerver/.blobs/" + sha256.substring(0, 2) + "/" + sha256);
+            Assert.assertEquals(200, sendContent("http://localhost:18081/simple-repo/repository/test/" + path,
+                    content, "user", "user"));
+
+            // the downloads of the same remote file have the same date
+            Assert.assertEquals(content, getContent(BASE + "proxy1/" + path, 0));
+            Assert.assertEquals(content, getContent(BASE + "proxy2/" + path, 0));
+            Assert.assertTrue(Files.isSameFile(file1.toPath(), blob.toPath()));
+            Assert.assertTrue(Files.isSameFile(file1.toPath(), file2.toPath()));
+            Assert.assertEquals(1L, getAttributeJmx(JMX, "BlobLinks"));
+            Assert.assertEquals((long) content.length(), getAttributeJmx(JMX, "BlobSavedBytes"));
+
+            // a copy with another date is not linked and the date of the links does not change
+            long lastModified = file1.lastModified();
+            Thread.sleep(1100);
+            Assert.assertEquals(200, sendContent(BASE + "hosted/" + path, content, "user", "user"));
+            Assert.assertFalse(Files.isSameFile(hosted.toPath(), blob.toPath()));
+            Assert.assertEquals(lastModified, file1.lastModified());
+            Assert.assertEquals(1L, getAttributeJmx(JMX, "BlobLinks"));
+            HttpURLConnection c = (HttpURLConnection) new URL(BASE + "proxy2/" + path).openConnection();
+            try {
+                Assert.assertEquals(200, c.getResponseCode());
+                Assert.assertEquals(DigestUtils.sha1Hex(content), c.getHeaderField("X-Checksum-Sha1"));
+            } finally {
+                c.disconnect();
+            }
+
+            // the blob is released when its last link is overwritten
+            setAttributeJmx(JMX, "CleanUpDelay", 100L);
+            Assert.assertEquals(200, sendContent(BASE + "proxy1/" + path, "other", "user", "user"));
+            Thread.sleep(500);
+            Assert.assertTrue(blob.exists());
+            Assert.assertEquals(200, sendContent(BASE + "proxy2/" + path, "other", "user", "user"));
+            for (int i = 0; i < 50 && blob.exists(); i++) {
+                Thread.sleep(100);
+            }
+            Assert.assertFalse(blob.exists());
+            Assert.assertEquals("other", getContent(BASE + "proxy1/" + path, 0));
+            Assert.assertEquals(0L, executeOperationJmx(JMX, "collectBlobs", new Object[0], new String[0]));
+        } finally {
+            server.stop();
+            remote.stop();
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the deployment of a bundle.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class BundleDeployTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            String base = "http://localhost:18080/simple-repo/repository/test/";
+            File dir = new File("target/reposerver/test/foo/bar/1.0");
+
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            ZipOutputStream zout = new ZipOutputStream(zip);
+            addZipEntry(zout, "foo/bar/1.0/bar-1.0.jar", "jar");
+            addZipEntry(zout, "foo/bar/1.0/bar-1.0.jar.sha1", DigestUtils.sha1Hex("jar"));
+            addZipEntry(zout, "foo/bar/1.0/bar-1.0.pom", "pom");
+            addZipEntry(zout, "foo/bar/maven-metadata.xml", "<metadata/>");
+            zout.close();
+            String response = send(base, zip.toByteArray(), 200);
+            Assert.assertTrue(response, response.contains("test/foo/bar/1.0/bar-1.0.jar"));
+            Assert.assertTrue(response.indexOf("bar-1.0.pom") < response.indexOf("bar-1.0.jar.sha1"));
+            Assert.assertTrue(response.indexOf("bar-1.0.jar.sha1") < response.indexOf("maven-metadata.xml"));
+            Assert.assertEquals("jar", getContent(base + "foo/bar/1.0/bar-1.0.jar", 0));
+            Assert.assertEquals("pom", getContent(base + "foo/bar/1.0/bar-1.0.pom", 0));
+            Assert.assertEquals(DigestUtils.md5Hex("pom"), read(new File(dir, "bar-1.0.pom.md5")));
+            Assert.assertEquals("<metadata/>", getContent(base + "foo/bar/maven-metadata.xml", 0));
+
+            // a tar.gz in a sub-directory
+            ByteArrayOutputStream tar = new ByteArrayOutputStream();
+            GZIPOutputStream gout = new GZIPOutputStream(tar);
+            addTarEntry(gout, "bar-1.0-sources.jar", "sources");
+            addTarEntry(gout, "bar-1.0-sources.jar.sha256", DigestUtils.sha256Hex("sources"));
+            gout.write(new byte[1024]);
+            gout.close();
+            send(base + "foo/bar/1.0/", tar.toByteArray(), 200);
+            Assert.assertEquals("sources", getContent(base + "foo/bar/1.0/bar-1.0-sources.jar", 0));
+            Assert.assertEquals(DigestUtils.sha1Hex("sources"), read(new File(dir, "bar-1.0-sources.jar.sha1")));
+
+            // nothing is published if a checksum does not match
+            zip = new ByteArrayOutputStream();
+            zout = new ZipOutputStream(zip);
+            addZipEntry(zout, "foo/bar/1.0/bar-1.0.jar", "jar2");
+            addZipEntry(zout, "foo/bar/1.0/bar-1.0.jar.sha1", DigestUtils.sha1Hex("jar"));
+            zout.close();
+            send(base, zip.toByteArray(), 400);
+            Assert.assertEquals("jar", read(new File(dir, "bar-1.0.jar")));
+
+            // a path outside of the directory is rejected
+            zip = new ByteArrayOutputStream();
+            zout = new ZipOutputStream(zip);
+            addZipEntry(zout, "../evil.jar", "evil");
+            zout.close();
+            send(base + "foo/", zip.toByteArray(), 400);
+            Assert.assertFalse(new File("target/reposerver/test/evil.jar").exists());
+
+            send(base, "not a bundle".getBytes(StandardCharsets.UTF_8), 400);
+
+            // the files published before a failure are listed
+            Assert.assertEquals(200, sendContent(base + "foo/baz/maven-metadata.xml/x.txt", "x", "user", "user"));
+            zip = new ByteArrayOutputStream();
+            zout = new ZipOutputStream(zip);
+            addZipEntry(zout, "foo/baz/1.0/baz-1.0.jar", "baz");
+            addZipEntry(zout, "foo/baz/maven-metadata.xml", "<metadata/>");
+            zout.close();
+            response = send(base, zip.toByteArray(), 500);
+            Assert.assertEquals("test/foo/baz/1.0/baz-1.0.jar", response.trim());
+            Assert.assertEquals("baz", getContent(base + "foo/baz/1.0/baz-1.0.jar", 0));
+
+            // the staging directories are removed
+            for (String name : new File("target/reposerver/test").list()) {
+                Assert.assertFalse(name, name.startsWith(".bundle-"));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private String read(File file) throws Exception {
+        return FileUtils.readFileToString(file, "utf-8");
+    }
+
+    private void addZipEntry(ZipOutputStream out, String name, String content) throws Exception {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    private void addTarEntry(GZIPOutputStream out, String name, String content) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 124, String.format("%011o", bytes.length));
+        put(header, 136, String.format("%011o", 0));
+        header[156] = '0';
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int sum = 0;
+        for (byte b : header) {
+            sum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o", sum));
+        out.write(header);
+        out.write(bytes);
+        out.write(new byte[(512 - bytes.length % 512) % 512]);
+    }
+
+    private void put(byte[] header, int off, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, off, bytes.length);
+    }
+
+    private String send(String url, byte[] content, int status) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            c.setDoOutput(true);
+            c.setRequestMethod("PUT");
+            c.setRequestProperty("Authorization",
+                    "Basic " + Base64.encodeBase64String("user:user".getBytes("utf-8")));
+            c.connect();
+            c.getOutputStream().write(content);
+            Assert.assertEquals(status, c.getResponseCode());
+            if (status == 200) {
+                return IOUtils.toString(c.getInputStream(), "utf-8");
+            }
+            return status == 500 ? IOUtils.toString(c.getErrorStream(), "utf-8") : null;
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the cache headers.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class CachePolicyTest extends AbstractRepoTest {
+
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/foo/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(BASE + "1.0/foo-1.0.jar", "jar", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "maven-metadata.xml", "<metadata/>", "user", "user"));
+
+            Assert.assertEquals("max-age=31536000, immutable", getCacheControl(BASE + "1.0/foo-1.0.jar"));
+            Assert.assertEquals("max-age=60", getCacheControl(BASE + "maven-metadata.xml"));
+            Assert.assertEquals("no-cache", getCacheControl(BASE));
+
+            executeOperationJmx("net.gcolin.simplerepo:ctx=server,type=Repository,name=test",
+                    "updateReleaseMaxAge", new Object[] {0L}, new String[] {"long"});
+            setArtifactMaxAge("server", "test", 300000L);
+            Assert.assertEquals("no-cache", getCacheControl(BASE + "1.0/foo-1.0.jar"));
+            Assert.assertEquals("max-age=300", getCacheControl(BASE + "maven-metadata.xml"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private String getCacheControl(String url) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            c.setUseCaches(false);
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertTrue(c.getExpiration() > 0);
+            return c.getHeaderField("Cache-Control");
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the entity tags and the checksum headers.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class ChecksumTest extends AbstractRepoTest {
+
+    private static final String URL = "http://localhost:18080/simple-repo/repository/test/foo/bar.txt";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(URL, "hello", "user", "user"));
+
+            HttpURLConnection c = open(null);
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertEquals("\"" + DigestUtils.sha1Hex("hello") + "\"", c.getHeaderField("ETag"));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello"), c.getHeaderField("X-Checksum-Sha1"));
+            Assert.assertEquals(DigestUtils.sha256Hex("hello"), c.getHeaderField("X-Checksum-Sha256"));
+            Assert.assertEquals(DigestUtils.md5Hex("hello"), c.getHeaderField("X-Checksum-Md5"));
+            String etag = c.getHeaderField("ETag");
+            c.disconnect();
+
+            c = open(etag);
+            Assert.assertEquals(304, c.getResponseCode());
+            c.disconnect();
+
+            c = open("\"other\"");
+            Assert.assertEquals(200, c.getResponseCode());
+            c.disconnect();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection open(String ifNoneMatch) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(URL).openConnection();
+        c.setUseCaches(false);
+        if (ifNoneMatch != null) {
+            c.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        c.connect();
+        return c;
+    }
+
+}
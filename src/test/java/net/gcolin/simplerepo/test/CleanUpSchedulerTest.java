@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.gcolin.simplerepo.util.CleanUpScheduler;
+
+/**
+ * Test that a clean up requested continuously is executed anyway.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class CleanUpSchedulerTest {
+
+    @Test
+    public void test() throws Exception {
+        CleanUpScheduler scheduler = new CleanUpScheduler(1, 50, Logger.getLogger("test"));
+        AtomicInteger runs = new AtomicInteger();
+        try {
+            // a request every 20 milliseconds during 2 seconds
+            long end = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < end) {
+                scheduler.schedule("dir", () -> {
+                    runs.incrementAndGet();
+                    return 0L;
+                });
+                Thread.sleep(20);
+            }
+            // at most 50 * 10 milliseconds between two executions
+            Assert.assertTrue(String.valueOf(runs.get()), runs.get() >= 2);
+        } finally {
+            scheduler.close();
+        }
+    }
+
+}
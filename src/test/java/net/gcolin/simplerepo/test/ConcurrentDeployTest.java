@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test deploy files at the same time.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class ConcurrentDeployTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            addRepository("server", "test", null);
+
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            final List<String> contents = new ArrayList<String>();
+            for (int i = 0; i < 8; i++) {
+                final String content = large("file" + i);
+                final String url = "http://localhost:18080/simple-repo/repository/test/foo/file" + i + ".txt";
+                results.add(executor.submit(upload(url, content)));
+                final String same = large("same" + i);
+                contents.add(same);
+                results.add(executor.submit(upload("http://localhost:18080/simple-repo/repository/test/foo/same.txt", same)));
+            }
+            for (Future<Integer> result : results) {
+                Assert.assertEquals(200, result.get().intValue());
+            }
+
+            for (int i = 0; i < 8; i++) {
+                Assert.assertEquals(large("file" + i),
+                        FileUtils.readFileToString(new File("target/reposerver/test/foo/file" + i + ".txt"), "utf-8"));
+            }
+            String same = getContent("http://localhost:18080/simple-repo/repository/test/foo/same.txt", 0);
+            Assert.assertTrue(contents.contains(same));
+            for (String name : new File("target/reposerver/test/foo").list()) {
+                Assert.assertFalse(name, name.endsWith(".upload"));
+            }
+            Assert.assertEquals(Arrays.asList("same.txt"), Arrays.asList(new File("target/reposerver/test/foo")
+                    .list((dir, name) -> name.startsWith("same") && name.endsWith(".txt"))));
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private Callable<Integer> upload(final String url, final String content) {
+        return () -> sendContent(url, content, "user", "user");
+    }
+
+    private String large(String prefix) {
+        StringBuilder str = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            str.append(prefix).append(' ').append(i).append('\n');
+        }
+        return str.toString();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.gcolin.simplerepo.util.ChecksumStore;
+
+/**
+ * Test the verification and the generation of the checksum files on deploy.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class DeployChecksumTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            String base = "http://localhost:18080/simple-repo/repository/test/foo/1.0/";
+            File dir = new File("target/reposerver/test/foo/1.0");
+
+            Assert.assertEquals(200, sendContent(base + "foo-1.0.jar", "hello", "user", "user"));
+            Assert.assertEquals(DigestUtils.md5Hex("hello"), read(new File(dir, "foo-1.0.jar.md5")));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello"), read(new File(dir, "foo-1.0.jar.sha1")));
+            Assert.assertEquals(DigestUtils.sha256Hex("hello"), read(new File(dir, "foo-1.0.jar.sha256")));
+            Assert.assertEquals(DigestUtils.sha512Hex("hello"), read(new File(dir, "foo-1.0.jar.sha512")));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello"), getContent(base + "foo-1.0.jar.sha1", 0));
+
+            // the checksum files sent by the client are verified
+            Assert.assertEquals(400, sendContent(base + "foo-1.0.jar.sha1", DigestUtils.sha1Hex("other"), "user",
+                    "user"));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello"), read(new File(dir, "foo-1.0.jar.sha1")));
+            Assert.assertEquals(200, sendContent(base + "foo-1.0.jar.sha1",
+                    DigestUtils.sha1Hex("hello").toUpperCase() + "  foo-1.0.jar\n", "user", "user"));
+            Assert.assertEquals(200, sendContent(base + "foo-1.0.jar.md5", DigestUtils.md5Hex("hello"), "user",
+                    "user"));
+            // the checksum files are not digested
+            Assert.assertFalse(ChecksumStore.getMetaFile(new File(dir, "foo-1.0.jar.md5")).exists());
+            Assert.assertEquals(DigestUtils.md5Hex("hello"), getContent(base + "foo-1.0.jar.md5", 0));
+
+            // the checksum files of a new version of the file are replaced
+            Assert.assertEquals(200, sendContent(base + "foo-1.0.jar", "hello2", "user", "user"));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello2"), read(new File(dir, "foo-1.0.jar.sha1")));
+
+            // the digests sent in the headers are verified
+            Assert.assertEquals(400, send(base + "bar-1.0.jar", "bar", "X-Checksum-Sha1", DigestUtils.sha1Hex("baz")));
+            Assert.assertFalse(new File(dir, "bar-1.0.jar").exists());
+            Assert.assertEquals(200, send(base + "bar-1.0.jar", "bar", "X-Checksum-Sha256",
+                    DigestUtils.sha256Hex("bar")));
+            Assert.assertEquals("bar", read(new File(dir, "bar-1.0.jar")));
+            for (String name : dir.list()) {
+                Assert.assertFalse(name, name.endsWith(".upload"));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private String read(File file) throws Exception {
+        return FileUtils.readFileToString(file, "utf-8");
+    }
+
+    private int send(String url, String content, String header, String value) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            c.setDoOutput(true);
+            c.setRequestMethod("PUT");
+            c.setRequestProperty("Authorization",
+                    "Basic " + Base64.encodeBase64String("user:user".getBytes("utf-8")));
+            c.setRequestProperty(header, value);
+            c.connect();
+            IOUtils.copy(new ByteArrayInputStream(content.getBytes("utf-8")), c.getOutputStream());
+            return c.getResponseCode();
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
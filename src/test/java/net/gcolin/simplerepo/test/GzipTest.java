@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the compression of the text resources.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class GzipTest extends AbstractRepoTest {
+
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/foo/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            StringBuilder str = new StringBuilder("<metadata>");
+            for (int i = 0; i < 100; i++) {
+                str.append("<version>1.").append(i).append("</version>");
+            }
+            String metadata = str.append("</metadata>").toString();
+            Assert.assertEquals(200, sendContent(BASE + "maven-metadata.xml", metadata, "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "small.pom", "<project/>", "user", "user"));
+
+            HttpURLConnection c = open(BASE + "maven-metadata.xml", true);
+            Assert.assertEquals("gzip", c.getHeaderField("Content-Encoding"));
+            Assert.assertEquals("Accept-Encoding", c.getHeaderField("Vary"));
+            Assert.assertTrue(c.getHeaderField("ETag").endsWith("-gzip\""));
+            Assert.assertEquals(metadata, read(c, true));
+
+            c = open(BASE + "maven-metadata.xml", false);
+            Assert.assertNull(c.getHeaderField("Content-Encoding"));
+            Assert.assertEquals(metadata, read(c, false));
+
+            c = open(BASE + "small.pom", true);
+            Assert.assertNull(c.getHeaderField("Content-Encoding"));
+            Assert.assertEquals("<project/>", read(c, false));
+
+            setAttributeJmx("net.gcolin.simplerepo:ctx=server,type=Configuration", "GzipThreshold", 100);
+            c = open(BASE, true);
+            Assert.assertEquals("gzip", c.getHeaderField("Content-Encoding"));
+            Assert.assertTrue(read(c, true).contains("href=\"maven-metadata.xml\""));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection open(String url, boolean gzip) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setUseCaches(false);
+        if (gzip) {
+            c.setRequestProperty("Accept-Encoding", "gzip");
+        }
+        c.connect();
+        Assert.assertEquals(200, c.getResponseCode());
+        return c;
+    }
+
+    private String read(HttpURLConnection c, boolean gzip) throws Exception {
+        try (InputStream in = gzip ? new GZIPInputStream(c.getInputStream()) : c.getInputStream()) {
+            return new String(IOUtils.toByteArray(in), "utf-8");
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
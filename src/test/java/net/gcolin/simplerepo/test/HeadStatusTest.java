@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the HEAD requests when the remote repository does not answer 200.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class HeadStatusTest extends AbstractRepoTest {
+
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/proxy/foo/1.0/";
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[1024];
+        SlowServer upstream = new SlowServer(18081, content, 1, 0);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+
+            // a remote that rejects HEAD is asked with a GET
+            upstream.setHeadStatus(405);
+            Assert.assertEquals(200, head(BASE + "a.jar"));
+            Assert.assertEquals(1, upstream.getRequests());
+
+            // a temporary error is not remembered as not found
+            upstream.setHeadStatus(503);
+            Assert.assertEquals(404, head(BASE + "b.jar"));
+            Assert.assertEquals(content.length, getContent(BASE + "b.jar", 0).length());
+
+            // a not found is remembered
+            upstream.setHeadStatus(404);
+            Assert.assertEquals(404, head(BASE + "c.jar"));
+            upstream.setHeadStatus(0);
+            Assert.assertEquals(404, getStatus(BASE + "c.jar", 0));
+
+            // the stale local copy is served when the remote fails
+            setArtifactMaxAge("server", "proxy", 1);
+            Thread.sleep(10);
+            upstream.setHeadStatus(503);
+            Assert.assertEquals(200, head(BASE + "b.jar"));
+        } finally {
+            server.stop();
+            upstream.end();
+        }
+    }
+
+    private int head(String url) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            c.setUseCaches(false);
+            c.setRequestMethod("HEAD");
+            return c.getResponseCode();
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
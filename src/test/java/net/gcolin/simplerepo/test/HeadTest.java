@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the HEAD requests.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class HeadTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server1 = createServer(18080, "server1");
+        Server server2 = createServer(18081, "server2");
+        try {
+            addRepository("server1", "test", null);
+            addRepository("server2", "remote", "http://localhost:18080/simple-repo/repository/test/");
+
+            File remoteFile = new File("target/reposerver1/test/foo/bar.txt");
+            remoteFile.getParentFile().mkdirs();
+            FileUtils.write(remoteFile, "remote", "utf-8");
+
+            HttpURLConnection c = head("http://localhost:18081/simple-repo/repository/remote/foo/bar.txt");
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertEquals(6, c.getContentLengthLong());
+            Assert.assertEquals(remoteFile.lastModified() / 1000, c.getLastModified() / 1000);
+            c.disconnect();
+            File localFile = new File("target/reposerver2/remote/foo/bar.txt");
+            Assert.assertFalse(localFile.exists());
+
+            c = head("http://localhost:18081/simple-repo/repository/remote/foo/missing.txt");
+            Assert.assertEquals(404, c.getResponseCode());
+            c.disconnect();
+
+            Assert.assertEquals("remote", getContent("http://localhost:18081/simple-repo/repository/remote/foo/bar.txt", 0));
+            c = head("http://localhost:18081/simple-repo/repository/remote/foo/bar.txt");
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertEquals(6, c.getContentLengthLong());
+            Assert.assertNotNull(c.getHeaderField("ETag"));
+            c.disconnect();
+        } finally {
+            server1.stop();
+            server2.stop();
+        }
+    }
+
+    private HttpURLConnection head(String url) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setUseCaches(false);
+        c.setRequestMethod("HEAD");
+        c.connect();
+        return c;
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the small files kept in memory.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class HotCacheTest extends AbstractRepoTest {
+
+    private static final String URL = "http://localhost:18080/simple-repo/repository/test/foo/bar.pom";
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(URL, "hello", "user", "user"));
+
+            Assert.assertEquals("hello", getContent(URL, 0));
+            Assert.assertEquals("hello", getContent(URL, 0));
+            Assert.assertEquals(1L, getAttributeJmx(JMX, "HotCacheHits"));
+            Assert.assertEquals(5L, getAttributeJmx(JMX, "HotCacheBytes"));
+
+            Assert.assertEquals(200, sendContent(URL, "hello world", "user", "user"));
+            Assert.assertEquals(0L, getAttributeJmx(JMX, "HotCacheBytes"));
+            Assert.assertEquals("hello world", getContent(URL, 0));
+
+            executeOperationJmx(JMX, "flushHotCache", new Object[0], new String[0]);
+            Assert.assertEquals(0, getAttributeJmx(JMX, "HotCacheEntries"));
+        } finally {
+            server.stop();
+        }
+    }
+
+}
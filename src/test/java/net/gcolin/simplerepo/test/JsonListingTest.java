@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the listings in JSON.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class JsonListingTest extends AbstractRepoTest {
+
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/foo/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(BASE + "a.txt", "hello", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "B.txt", "b", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "sub/c.txt", "c", "user", "user"));
+
+            HttpURLConnection c = open(BASE + "?format=json&limit=2", null, null);
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertTrue(c.getContentType().startsWith("application/json"));
+            String etag = c.getHeaderField("ETag");
+            JSONObject page = read(c);
+            JSONArray items = (JSONArray) page.get("items");
+            Assert.assertEquals(2, items.size());
+            JSONObject sub = (JSONObject) items.get(0);
+            Assert.assertEquals("sub", sub.get("name"));
+            Assert.assertEquals("directory", sub.get("type"));
+            JSONObject a = (JSONObject) items.get(1);
+            Assert.assertEquals("a.txt", a.get("name"));
+            Assert.assertEquals("file", a.get("type"));
+            Assert.assertEquals(5L, a.get("size"));
+            Assert.assertEquals(DigestUtils.sha1Hex("hello"), a.get("sha1"));
+            Assert.assertNotNull(page.get("next"));
+
+            // the checksum files are generated on deploy
+            c = open(BASE + "?limit=100&cursor=" + page.get("next"), "application/json", null);
+            page = read(c);
+            items = (JSONArray) page.get("items");
+            Assert.assertEquals(9, items.size());
+            Assert.assertEquals("a.txt.md5", ((JSONObject) items.get(0)).get("name"));
+            Assert.assertEquals("B.txt", ((JSONObject) items.get(4)).get("name"));
+            Assert.assertNull(page.get("next"));
+
+            c = open(BASE + "?format=json&limit=2", null, etag);
+            Assert.assertEquals(304, c.getResponseCode());
+            c.disconnect();
+
+            c = open(BASE + "?format=json&cursor=!", null, null);
+            Assert.assertEquals(400, c.getResponseCode());
+            c.disconnect();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection open(String url, String accept, String ifNoneMatch) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        c.setUseCaches(false);
+        if (accept != null) {
+            c.setRequestProperty("Accept", accept);
+        }
+        if (ifNoneMatch != null) {
+            c.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        c.connect();
+        return c;
+    }
+
+    private JSONObject read(HttpURLConnection c) throws Exception {
+        try (InputStream in = c.getInputStream()) {
+            return (JSONObject) JSONValue.parse(new String(IOUtils.toByteArray(in), "utf-8"));
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
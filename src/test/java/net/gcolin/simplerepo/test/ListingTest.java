@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the HTML listings of the local directories.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class ListingTest extends AbstractRepoTest {
+
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/foo/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            Assert.assertEquals(200, sendContent(BASE + "a.txt", "hello", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "B.txt", "b", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "sub/c.txt", "c", "user", "user"));
+            FileUtils.writeStringToFile(new File("target/reposerver/test/foo/.hidden"), "h", "utf-8");
+
+            String listing = getContent(BASE, 0);
+            Assert.assertTrue(listing.contains("<title>Index of /test/foo/</title>"));
+            Assert.assertTrue(listing.contains("<a href=\"../\">Parent Directory</a>"));
+            // a file has its date and its size
+            String date = "\\w{3}, \\d{2} \\w{3} \\d{4} \\d{2}:\\d{2}:\\d{2} GMT";
+            Assert.assertTrue(listing, Pattern.compile("<tr><td><a href=\"a.txt\">a.txt</a></td><td>" + date
+                    + "</td><td>5</td></tr>").matcher(listing).find());
+            // a directory has its date only
+            Assert.assertTrue(listing, Pattern.compile("<tr><td><a href=\"sub/\">sub/</a></td><td>" + date
+                    + "</td><td></td></tr>").matcher(listing).find());
+            // the directories first then the names without case
+            int sub = listing.indexOf("href=\"sub/\"");
+            int a = listing.indexOf("href=\"a.txt\"");
+            int md5 = listing.indexOf("href=\"a.txt.md5\"");
+            int b = listing.indexOf("href=\"B.txt\"");
+            Assert.assertTrue(sub < a && a < md5 && md5 < b);
+            // the internal files are hidden
+            Assert.assertFalse(listing.contains(".hidden"));
+            Assert.assertFalse(listing.contains(".meta"));
+            Assert.assertFalse(listing.contains(".upload"));
+
+            Assert.assertTrue(getContent(BASE + "sub/", 0).contains("<a href=\"c.txt\">c.txt</a>"));
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the maven-metadata.xml of a virtual repository.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class MergedMetadataTest extends AbstractRepoTest {
+
+    private static final String GROUP = "http://localhost:18081/simple-repo/repository/group/org/acme/lib/";
+
+    @Test
+    public void test() throws Exception {
+        Server server1 = createServer(18080, "server1");
+        Server server2 = createServer(18081, "server2");
+        try {
+            addRepository("server1", "test", null);
+            addRepository("server2", "local", null);
+            addRepository("server2", "remote", "http://localhost:18080/simple-repo/repository/test/");
+            addRepository("server2", "group", null);
+            String group = "net.gcolin.simplerepo:ctx=server2,type=Repository,name=group";
+            executeOperationJmx(group, "addInclude", new Object[] {"local"}, new String[] {"java.lang.String"});
+            executeOperationJmx(group, "addInclude", new Object[] {"remote"}, new String[] {"java.lang.String"});
+
+            File remoteFile = new File("target/reposerver1/test/org/acme/lib/maven-metadata.xml");
+            remoteFile.getParentFile().mkdirs();
+            FileUtils.write(remoteFile, metadata("1.1", "20200101000000", "1.0", "1.1"), "utf-8");
+            Assert.assertEquals(200, sendContent("http://localhost:18081/simple-repo/repository/local/org/acme/lib/"
+                    + "maven-metadata.xml", metadata("2.0", "20210101000000", "1.0", "2.0"), "user", "user"));
+
+            String merged = getContent(GROUP + "maven-metadata.xml", 0);
+            Assert.assertTrue(merged, merged.contains("<latest>2.0</latest>"));
+            Assert.assertTrue(merged, merged.contains("<lastUpdated>20210101000000</lastUpdated>"));
+            Assert.assertTrue(merged, merged.contains(
+                    "<version>1.0</version>\n      <version>2.0</version>\n      <version>1.1</version>"));
+            Assert.assertEquals(DigestUtils.sha1Hex(merged), getContent(GROUP + "maven-metadata.xml.sha1", 0));
+            Assert.assertEquals(DigestUtils.md5Hex(merged), getContent(GROUP + "maven-metadata.xml.md5", 0));
+
+            HttpURLConnection c = (HttpURLConnection) new URL(GROUP + "maven-metadata.xml").openConnection();
+            c.setUseCaches(false);
+            c.setRequestMethod("HEAD");
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertEquals(merged.length(), c.getContentLength());
+            Assert.assertEquals("\"" + DigestUtils.sha1Hex(merged) + "\"", c.getHeaderField("ETag"));
+            c.disconnect();
+
+            // a deploy in a member changes the merged file
+            Assert.assertEquals(200, sendContent("http://localhost:18081/simple-repo/repository/local/org/acme/lib/"
+                    + "maven-metadata.xml", metadata("3.0", "20220101000000", "1.0", "2.0", "3.0"), "user", "user"));
+            merged = getContent(GROUP + "maven-metadata.xml", 0);
+            Assert.assertTrue(merged, merged.contains("<latest>3.0</latest>"));
+            Assert.assertTrue(merged, merged.contains("<version>3.0</version>"));
+            Assert.assertTrue(merged, merged.contains("<version>1.1</version>"));
+
+            Assert.assertEquals(404, getStatus(GROUP.replace("lib", "none") + "maven-metadata.xml", 0));
+
+            // the members are retrieved at the same time
+            executeOperationJmx(group, "updateParallelResolution", new Object[] {true}, new String[] {"boolean"});
+            remoteFile = new File("target/reposerver1/test/org/acme/other/maven-metadata.xml");
+            remoteFile.getParentFile().mkdirs();
+            FileUtils.write(remoteFile, metadata("1.1", "20200101000000", "1.0", "1.1"), "utf-8");
+            Assert.assertEquals(200, sendContent("http://localhost:18081/simple-repo/repository/local/org/acme/other/"
+                    + "maven-metadata.xml", metadata("2.0", "20210101000000", "2.0"), "user", "user"));
+            merged = getContent(GROUP.replace("lib", "other") + "maven-metadata.xml", 0);
+            Assert.assertTrue(merged, merged.contains("<latest>2.0</latest>"));
+            Assert.assertTrue(merged, merged.contains(
+                    "<version>2.0</version>\n      <version>1.0</version>\n      <version>1.1</version>"));
+        } finally {
+            server1.stop();
+            server2.stop();
+        }
+    }
+
+    private String metadata(String latest, String lastUpdated, String... versions) {
+        StringBuilder str = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<metadata>\n")
+                .append("  <groupId>org.acme</groupId>\n  <artifactId>lib</artifactId>\n  <versioning>\n")
+                .append("    <latest>").append(latest).append("</latest>\n    <release>").append(latest)
+                .append("</release>\n    <versions>\n");
+        for (String version : versions) {
+            str.append("      <version>").append(version).append("</version>\n");
+        }
+        return str.append("    </versions>\n    <lastUpdated>").append(lastUpdated)
+                .append("</lastUpdated>\n  </versioning>\n</metadata>\n").toString();
+    }
+
+}
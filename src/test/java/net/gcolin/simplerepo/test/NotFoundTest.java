@@ -41,15 +41,17 @@ public class NotFoundTest extends AbstractRepoTest {
             addRepository("server2", "test", "http://localhost:18080/simple-repo/repository/test/");
 
             Assert.assertEquals(404, getStatus("http://localhost:18081/simple-repo/repository/test/foo/bar.txt", 0));
-            Assert.assertTrue(new File("target/reposerver2/test/foo/bar.txt.notfound").exists());
+            Assert.assertFalse(new File("target/reposerver2/test/foo/bar.txt.notfound").exists());
+            Assert.assertEquals(1, getAttributeJmx("net.gcolin.simplerepo:ctx=server2,type=Configuration", "NotFoundEntries"));
             Assert.assertFalse(new File("target/reposerver1/test/foo").exists());
 
             File file = new File("target/reposerver1/test/foo/bar.txt");
             file.getParentFile().mkdirs();
             FileUtils.write(file, "hello", "utf-8");
             Assert.assertEquals(404, getStatus("http://localhost:18081/simple-repo/repository/test/foo/bar.txt", 0));
+            Assert.assertEquals(1L, getAttributeJmx("net.gcolin.simplerepo:ctx=server2,type=Configuration", "NotFoundHits"));
 
-            Thread.sleep(500);
+            Thread.sleep(1000);
             setNotFoundCache("server2", 100);
             Assert.assertEquals("hello", getContent("http://localhost:18081/simple-repo/repository/test/foo/bar.txt", 0));
         } finally {
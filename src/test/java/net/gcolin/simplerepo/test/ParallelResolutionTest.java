@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test that a virtual repository with parallel resolution downloads a file
+ * from one member only.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class ParallelResolutionTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[8 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        SlowServer upstream = new SlowServer(18081, content, 4, 50);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "first", "http://localhost:18081/first/");
+            addRepository("server", "second", "http://localhost:18081/second/");
+            addRepository("server", "group", null);
+            String group = "net.gcolin.simplerepo:ctx=server,type=Repository,name=group";
+            executeOperationJmx(group, "addInclude", new Object[] {"first"}, new String[] {"java.lang.String"});
+            executeOperationJmx(group, "addInclude", new Object[] {"second"}, new String[] {"java.lang.String"});
+            executeOperationJmx(group, "updateParallelResolution", new Object[] {true}, new String[] {"boolean"});
+
+            String path = "foo/1.0/foo-1.0.jar";
+            Assert.assertEquals(new String(content, "utf-8"),
+                    getContent("http://localhost:18080/simple-repo/repository/group/" + path, 0));
+            Assert.assertTrue(new File("target/reposerver/first/" + path).exists());
+            // the other member is asked with a HEAD request only
+            Assert.assertFalse(new File("target/reposerver/second/" + path).exists());
+            Assert.assertEquals(3, upstream.getRequests());
+        } finally {
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
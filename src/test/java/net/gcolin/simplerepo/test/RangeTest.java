@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the partial content.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class RangeTest extends AbstractRepoTest {
+
+    private static final String URL = "http://localhost:18080/simple-repo/repository/test/foo/bar.txt";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            File file = new File("target/reposerver/test/foo/bar.txt");
+            file.getParentFile().mkdirs();
+            FileUtils.write(file, "0123456789", "utf-8");
+
+            HttpURLConnection c = open("bytes=2-4", null);
+            Assert.assertEquals(206, c.getResponseCode());
+            Assert.assertEquals("bytes 2-4/10", c.getHeaderField("Content-Range"));
+            Assert.assertEquals("234", read(c));
+
+            c = open("bytes=-3", null);
+            Assert.assertEquals(206, c.getResponseCode());
+            Assert.assertEquals("789", read(c));
+
+            c = open("bytes=0-0,5-6", null);
+            Assert.assertEquals(206, c.getResponseCode());
+            Assert.assertTrue(c.getContentType().startsWith("multipart/byteranges; boundary="));
+            String body = read(c);
+            Assert.assertTrue(body.contains("Content-Range: bytes 0-0/10\r\n\r\n0\r\n"));
+            Assert.assertTrue(body.contains("Content-Range: bytes 5-6/10\r\n\r\n56\r\n"));
+            Assert.assertEquals(body.length(), c.getContentLength());
+
+            c = open("bytes=20-", null);
+            Assert.assertEquals(416, c.getResponseCode());
+            Assert.assertEquals("bytes */10", c.getHeaderField("Content-Range"));
+            c.disconnect();
+
+            c = open("bytes=2-4", "Thu, 01 Jan 1970 00:00:00 GMT");
+            Assert.assertEquals(200, c.getResponseCode());
+            Assert.assertEquals("0123456789", read(c));
+
+            c = open("bytes=2-4", null);
+            String lastModified = c.getHeaderField("Last-Modified");
+            c.disconnect();
+            c = open("bytes=2-4", lastModified);
+            Assert.assertEquals(206, c.getResponseCode());
+            Assert.assertEquals("234", read(c));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private HttpURLConnection open(String range, String ifRange) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(URL).openConnection();
+        c.setUseCaches(false);
+        c.setRequestProperty("Range", range);
+        if (ifRange != null) {
+            c.setRequestProperty("If-Range", ifRange);
+        }
+        c.connect();
+        return c;
+    }
+
+    private String read(HttpURLConnection c) throws Exception {
+        try (InputStream in = c.getInputStream()) {
+            return new String(IOUtils.toByteArray(in), "utf-8");
+        } finally {
+            c.disconnect();
+        }
+    }
+
+}
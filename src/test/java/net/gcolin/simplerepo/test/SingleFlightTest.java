@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test that the concurrent misses of the same file are downloaded once.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class SingleFlightTest extends AbstractRepoTest {
+
+    private static final int CLIENTS = 8;
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[16 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        SlowServer upstream = new SlowServer(18081, content, 4, 100);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+            String base = "http://localhost:18080/simple-repo/repository/proxy/foo/1.0/";
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return getContent(base + "foo-1.0.jar", 0);
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                Assert.assertEquals(new String(content, "utf-8"), future.get());
+            }
+            Assert.assertEquals(1, upstream.getRequests());
+
+            // the other paths are not blocked by the download of a file
+            futures.clear();
+            for (int i = 0; i < 2; i++) {
+                String url = base + "foo-1.0-" + i + ".jar";
+                futures.add(executor.submit(() -> getContent(url, 0)));
+            }
+            for (Future<String> future : futures) {
+                Assert.assertEquals(new String(content, "utf-8"), future.get());
+            }
+            Assert.assertEquals(3, upstream.getRequests());
+            Assert.assertEquals(2, upstream.getPeak());
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * A remote repository that sends the jar files slowly, for the tests of the
+ * concurrent retrievals. The other paths are not found.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class SlowServer extends AbstractHandler {
+
+    private final Server server;
+    private final byte[] content;
+    private final int chunks;
+    private final long pause;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private volatile int headStatus;
+
+    /**
+     * Create a SlowServer.
+     *
+     * @param port    the port
+     * @param content the content of the jar files
+     * @param chunks  the number of parts of the content
+     * @param pause   the time in milliseconds before each part
+     */
+    public SlowServer(int port, byte[] content, int chunks, long pause) {
+        this.server = new Server(port);
+        this.content = content;
+        this.chunks = chunks;
+        this.pause = pause;
+        server.setHandler(this);
+    }
+
+    public void begin() throws Exception {
+        server.start();
+    }
+
+    public void end() throws Exception {
+        server.stop();
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getPeak() {
+        return peak.get();
+    }
+
+    /**
+     * Answer the HEAD requests with a status.
+     *
+     * @param status the status or 0 for answering as a GET
+     */
+    public void setHeadStatus(int status) {
+        headStatus = status;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        baseRequest.setHandled(true);
+        if (headStatus != 0 && "HEAD".equals(request.getMethod())) {
+            response.sendError(headStatus);
+            return;
+        }
+        if (!target.endsWith(".jar")) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        requests.incrementAndGet();
+        int current = active.incrementAndGet();
+        peak.accumulateAndGet(current, Math::max);
+        try {
+            response.setContentType("application/java-archive");
+            response.setContentLength(content.length);
+            response.setHeader("X-Checksum-Sha1", DigestUtils.sha1Hex(content));
+            OutputStream out = response.getOutputStream();
+            int size = (content.length + chunks - 1) / chunks;
+            for (int off = 0; off < content.length; off += size) {
+                Thread.sleep(pause);
+                out.write(content, off, Math.min(size, content.length - off));
+                out.flush();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the background clean up of the old snapshots.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class SnapshotCleanUpTest extends AbstractRepoTest {
+
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+    private static final String BASE = "http://localhost:18080/simple-repo/repository/test/foo/1.0-SNAPSHOT/";
+
+    @Test
+    public void test() throws Exception {
+        Server server = createServer(18080, "server");
+        try {
+            addRepository("server", "test", null);
+            setAttributeJmx(JMX, "MaxSnapshots", 1);
+            setAttributeJmx(JMX, "CleanUpDelay", 500L);
+            File dir = new File("target/reposerver/test/foo/1.0-SNAPSHOT");
+            File old = new File(dir, "foo-1.0-20200101.000001-1.jar");
+
+            Assert.assertEquals(200, sendContent(BASE + old.getName(), "old", "user", "user"));
+            Assert.assertEquals(200, sendContent(BASE + "foo-1.0-20200101.000002-2.jar", "new", "user", "user"));
+            // the modules of a project deploy the metadata several times
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(200, sendContent(BASE + "maven-metadata.xml", metadata(), "user", "user"));
+            }
+            Assert.assertTrue(old.exists());
+            Assert.assertEquals(1, getAttributeJmx(JMX, "CleanUpQueueSize"));
+
+            long end = System.currentTimeMillis() + 10000;
+            while (old.exists() && System.currentTimeMillis() < end) {
+                Thread.sleep(50);
+            }
+            Assert.assertFalse(old.exists());
+            Assert.assertFalse(new File(dir, old.getName() + ".sha1").exists());
+            Assert.assertTrue(new File(dir, "foo-1.0-20200101.000002-2.jar").exists());
+            while ((Integer) getAttributeJmx(JMX, "CleanUpQueueSize") > 0 && System.currentTimeMillis() < end) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(3L, getAttributeJmx(JMX, "CleanUpRequests"));
+            Assert.assertEquals(1L, getAttributeJmx(JMX, "CleanUpRuns"));
+            // the jar and its md5, sha1, sha256 and sha512 files
+            Assert.assertEquals(3L + 32 + 40 + 64 + 128, getAttributeJmx(JMX, "CleanUpReclaimedBytes"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private String metadata() {
+        return "<metadata><groupId>foo</groupId><artifactId>foo</artifactId><version>1.0-SNAPSHOT</version>"
+                + "<versioning><snapshotVersions><snapshotVersion><extension>jar</extension>"
+                + "<value>1.0-20200101.000002-2</value><updated>20200101000002</updated></snapshotVersion>"
+                + "</snapshotVersions></versioning></metadata>";
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test that a remote file is sent to the clients while it is downloaded.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class TeeDownloadTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[256 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        // about 1.6 second for the whole file
+        SlowServer upstream = new SlowServer(18081, content, 16, 100);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+            String url = "http://localhost:18080/simple-repo/repository/proxy/foo/1.0/foo-1.0.jar";
+
+            long start = System.currentTimeMillis();
+            HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+            try {
+                c.setUseCaches(false);
+                Assert.assertEquals(200, c.getResponseCode());
+                // the headers are the headers of a cached file
+                Assert.assertEquals("application/java-archive", c.getContentType());
+                Assert.assertEquals(content.length, c.getContentLength());
+                Assert.assertEquals("\"" + DigestUtils.sha1Hex(content) + "\"", c.getHeaderField("ETag"));
+                try (InputStream in = c.getInputStream()) {
+                    // the first bytes arrive before the end of the download
+                    Assert.assertEquals('a', in.read());
+                    Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+
+                    // a client that arrives during the download follows it
+                    Future<String> follower = executor.submit(() -> getContent(url, 0));
+                    byte[] rest = IOUtils.toByteArray(in);
+                    Assert.assertEquals(content.length - 1, rest.length);
+                    Assert.assertEquals(new String(content, "utf-8"), follower.get());
+                }
+            } finally {
+                c.disconnect();
+            }
+            Assert.assertEquals(1, upstream.getRequests());
+            Assert.assertArrayEquals(content,
+                    FileUtils.readFileToByteArray(new File("target/reposerver/proxy/foo/1.0/foo-1.0.jar")));
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.management.ObjectName;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the limit of connections to a remote server and its statistics.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class UpstreamPoolTest extends AbstractRepoTest {
+
+    private static final String JMX = "net.gcolin.simplerepo:ctx=server,type=Configuration";
+    private static final String UPSTREAM = "net.gcolin.simplerepo:ctx=server,type=Upstream,name="
+            + ObjectName.quote("http://localhost:18081");
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[4096];
+        SlowServer upstream = new SlowServer(18081, content, 4, 50);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+            String base = "http://localhost:18080/simple-repo/repository/proxy/foo/1.0/";
+
+            Assert.assertEquals(200, getStatus(base + "foo-1.0.jar", 0));
+            Assert.assertEquals(1L, getAttributeJmx(UPSTREAM, "Requests"));
+            Assert.assertEquals((long) content.length, getAttributeJmx(UPSTREAM, "BytesReceived"));
+            // the connection is released once the body is stored
+            for (int i = 0; i < 50 && !Integer.valueOf(0).equals(getAttributeJmx(UPSTREAM, "ActiveConnections")); i++) {
+                Thread.sleep(20);
+            }
+            Assert.assertEquals(0, getAttributeJmx(UPSTREAM, "ActiveConnections"));
+            Assert.assertEquals(20, getAttributeJmx(UPSTREAM, "MaxConnections"));
+
+            // the pool of a server already contacted takes the new limit
+            setAttributeJmx(JMX, "MaxConnectionsPerRemote", 1);
+            Assert.assertEquals(1, getAttributeJmx(UPSTREAM, "MaxConnections"));
+
+            List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 3; i++) {
+                String url = base + "foo-1.0-" + i + ".jar";
+                futures.add(executor.submit(() -> getStatus(url, 0)));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(200, (int) future.get());
+            }
+            Assert.assertEquals(1, upstream.getPeak());
+            Assert.assertEquals(1, getAttributeJmx(UPSTREAM, "PeakConnections"));
+            Assert.assertEquals(4L, getAttributeJmx(UPSTREAM, "Requests"));
+            Assert.assertEquals(0L, getAttributeJmx(UPSTREAM, "Errors"));
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the concurrent retrievals of the same file through a virtual
+ * repository.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class VirtualConcurrentTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        byte[] content = new byte[64 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        SlowServer upstream = new SlowServer(18081, content, 16, 50);
+        upstream.begin();
+        Server server = createServer(18080, "server");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            addRepository("server", "proxy", "http://localhost:18081/");
+            addRepository("server", "group", null);
+            executeOperationJmx("net.gcolin.simplerepo:ctx=server,type=Repository,name=group", "addInclude",
+                    new Object[] {"proxy"}, new String[] {"java.lang.String"});
+
+            String url = "http://localhost:18080/simple-repo/repository/group/foo/1.0/foo-1.0.jar";
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 2; i++) {
+                futures.add(executor.submit(() -> getContent(url, 0)));
+                Thread.sleep(100);
+            }
+            // the first request sends the body while it is downloaded, the
+            // second one follows the same download
+            for (Future<String> future : futures) {
+                Assert.assertEquals(new String(content, "utf-8"), future.get());
+            }
+            Assert.assertEquals(1, upstream.getRequests());
+        } finally {
+            executor.shutdownNow();
+            server.stop();
+            upstream.end();
+        }
+    }
+
+}
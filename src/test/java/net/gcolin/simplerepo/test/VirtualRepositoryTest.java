@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.gcolin.simplerepo.test;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jetty.server.Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the parallel resolution of a virtual repository.
+ *
+ * @author Gaël COLIN
+ * @since 1.1
+ */
+public class VirtualRepositoryTest extends AbstractRepoTest {
+
+    @Test
+    public void test() throws Exception {
+        Server server1 = createServer(18080, "server1");
+        Server server2 = createServer(18081, "server2");
+        try {
+            addRepository("server1", "test", null);
+            addRepository("server2", "local", null);
+            addRepository("server2", "remote", "http://localhost:18080/simple-repo/repository/test/");
+            addRepository("server2", "group", null);
+            String group = "net.gcolin.simplerepo:ctx=server2,type=Repository,name=group";
+            executeOperationJmx(group, "addInclude", new Object[] {"local"}, new String[] {"java.lang.String"});
+            executeOperationJmx(group, "addInclude", new Object[] {"remote"}, new String[] {"java.lang.String"});
+            executeOperationJmx(group, "updateParallelResolution", new Object[] {true}, new String[] {"boolean"});
+
+            File remoteFile = new File("target/reposerver1/test/foo/bar.txt");
+            remoteFile.getParentFile().mkdirs();
+            FileUtils.write(remoteFile, "remote", "utf-8");
+            File remoteOnly = new File("target/reposerver1/test/foo/baz.txt");
+            FileUtils.write(remoteOnly, "remote only", "utf-8");
+            File localFile = new File("target/reposerver2/local/foo/bar.txt");
+            localFile.getParentFile().mkdirs();
+            FileUtils.write(localFile, "local", "utf-8");
+
+            Assert.assertEquals("local", getContent("http://localhost:18081/simple-repo/repository/group/foo/bar.txt", 0));
+            Assert.assertEquals("remote only", getContent("http://localhost:18081/simple-repo/repository/group/foo/baz.txt", 0));
+            Assert.assertEquals(404, getStatus("http://localhost:18081/simple-repo/repository/group/foo/none.txt", 0));
+        } finally {
+            server1.stop();
+            server2.stop();
+        }
+    }
+
+}